@@ -0,0 +1,91 @@
+package com.erp.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection borrow throughput through {@link DatabaseConfig} with every core borrowing at once, comparing the
+ * lock-free accessor with the previous {@code static synchronized getInstance()}. UCP pools H2 connections here,
+ * so the numbers measure the accessor and the pool, not the network. Vary the thread count with {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class PoolBorrowBenchmark {
+
+    private static DatabaseConfig synchronizedInstance;
+
+    private DatabaseConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("db.connection.factory", "org.h2.jdbcx.JdbcDataSource");
+        props.setProperty("db.url", "jdbc:h2:mem:pool;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        props.setProperty("db.username", "sa");
+        props.setProperty("db.password", "");
+        props.setProperty("pool.name", "bench-pool");
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        props.setProperty("pool.initial.size", String.valueOf(poolSize));
+        props.setProperty("pool.min.size", String.valueOf(poolSize));
+        props.setProperty("pool.max.size", String.valueOf(poolSize));
+        props.setProperty("pool.validate.on.borrow", "false");
+        props.setProperty("pool.shutdown.timeout", "1");
+        config = new DatabaseConfig(props);
+        config.warmUp();
+        synchronizedInstance = config;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        config.shutdown();
+    }
+
+    private static synchronized DatabaseConfig synchronizedGetInstance() {
+        return synchronizedInstance;
+    }
+
+    @Benchmark
+    public DatabaseConfig accessorLockFree() {
+        return config;
+    }
+
+    @Benchmark
+    public DatabaseConfig accessorSynchronized() {
+        return synchronizedGetInstance();
+    }
+
+    @Benchmark
+    public boolean borrowLockFree() throws SQLException {
+        try (Connection connection = config.getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean borrowSynchronized() throws SQLException {
+        try (Connection connection = synchronizedGetInstance().getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+}
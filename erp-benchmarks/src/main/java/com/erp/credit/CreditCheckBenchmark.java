@@ -0,0 +1,108 @@
+package com.erp.credit;
+
+import com.erp.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credit checks and reservations against {@link CreditExposureEngine} loaded from an H2 CUSTOMERS table, with every
+ * core checking random customers at once. {@code hotCustomers=1} puts every thread on the same customer to show the
+ * cost of contending on one balance; the outstanding-balance query the database path would run per order is
+ * measured alongside for scale
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CreditCheckBenchmark {
+    private static final int CUSTOMERS = 100_000;
+    private static final String EXPOSURE_QUERY =
+            "SELECT CUSTOMER_ID, SUM(AMOUNT), MIN(BOOKED_ON) FROM OPEN_ITEMS GROUP BY CUSTOMER_ID";
+
+    @Param({"100000", "1"})
+    public int hotCustomers;
+
+    private CreditExposureEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS CUSTOMERS");
+            statement.execute("DROP TABLE IF EXISTS OPEN_ITEMS");
+            statement.execute("CREATE TABLE CUSTOMERS (CUSTOMER_ID NUMBER PRIMARY KEY, CREDIT_LIMIT NUMBER(15,2),"
+                    + " CREDIT_DAYS NUMBER, STATUS VARCHAR2(20))");
+            statement.execute("CREATE TABLE OPEN_ITEMS (CUSTOMER_ID NUMBER, AMOUNT NUMBER(15,2), BOOKED_ON DATE)");
+            statement.execute("CREATE INDEX OPEN_ITEMS_CUSTOMER ON OPEN_ITEMS (CUSTOMER_ID)");
+            try (PreparedStatement customers = connection.prepareStatement(
+                    "INSERT INTO CUSTOMERS VALUES (?, 100000000.00, 3650, 'ACTIVE')");
+                 PreparedStatement items = connection.prepareStatement(
+                         "INSERT INTO OPEN_ITEMS VALUES (?, 1250.75, CURRENT_DATE)")) {
+                for (int id = 1; id <= CUSTOMERS; id++) {
+                    customers.setLong(1, id);
+                    customers.addBatch();
+                    items.setLong(1, id);
+                    items.addBatch();
+                    if (id % 5000 == 0) {
+                        customers.executeBatch();
+                        items.executeBatch();
+                    }
+                }
+            }
+        }
+        engine = new CreditExposureEngine(EXPOSURE_QUERY, Clock.systemDefaultZone());
+        engine.reconcile();
+    }
+
+    private long customer() {
+        return 1 + ThreadLocalRandom.current().nextInt(hotCustomers);
+    }
+
+    @Benchmark
+    public CreditDecision canAccept() {
+        return engine.canAccept(customer(), 99_900);
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        long customerId = customer();
+        CreditDecision decision = engine.reserve(customerId, 99_900);
+        return decision.isAccepted() && engine.release(customerId, 99_900);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long outstandingFromDatabase() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT SUM(AMOUNT) FROM OPEN_ITEMS WHERE CUSTOMER_ID = ?")) {
+            ps.setLong(1, customer());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
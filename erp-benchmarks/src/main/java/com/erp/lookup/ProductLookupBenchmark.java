@@ -0,0 +1,98 @@
+package com.erp.lookup;
+
+import com.erp.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Barcode scans against {@link ProductLookup}, an on-heap {@code HashMap} of the same records (the heap and GC
+ * cost the off-heap index avoids) and an indexed query on the PRODUCTS table. Run with {@code -prof gc} to compare
+ * allocation per lookup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ProductLookupBenchmark {
+
+    @Param({"1000000"})
+    public int products;
+
+    private ProductLookup lookup;
+    private Map<String, PriceRecord> heap;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS PRODUCTS");
+            statement.execute("CREATE TABLE PRODUCTS (PRODUCT_ID NUMBER PRIMARY KEY, PRODUCT_CODE VARCHAR2(50),"
+                    + " BARCODE VARCHAR2(50), HSN VARCHAR2(20), UNIT_PRICE NUMBER(12,2), TAX_RATE NUMBER(5,2),"
+                    + " STATUS VARCHAR2(20))");
+            statement.execute("INSERT INTO PRODUCTS SELECT X, 'P-' || X, CAST(8900000000000 + X AS VARCHAR2(50)),"
+                    + " '8471', MOD(X, 10000) + 0.99, 18, 'ACTIVE' FROM SYSTEM_RANGE(1, " + products + ")");
+            statement.execute("CREATE UNIQUE INDEX PRODUCTS_BARCODE ON PRODUCTS (BARCODE)");
+        }
+        lookup = new ProductLookup();
+        lookup.reload();
+        heap = new HashMap<>();
+        for (long id = 1; id <= products; id++) {
+            PriceRecord record = lookup.findById(id);
+            heap.put(record.getBarcode(), record);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lookup.close();
+    }
+
+    private String randomBarcode() {
+        return Long.toString(8900000000000L + 1 + ThreadLocalRandom.current().nextInt(products));
+    }
+
+    @Benchmark
+    public PriceRecord offHeapIndex() {
+        return lookup.findByBarcode(randomBarcode());
+    }
+
+    @Benchmark
+    public PriceRecord heapMap() {
+        return heap.get(randomBarcode());
+    }
+
+    @Benchmark
+    public BigDecimal jdbcQuery() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT UNIT_PRICE, TAX_RATE FROM PRODUCTS WHERE BARCODE = ? AND STATUS = 'ACTIVE'")) {
+            ps.setString(1, randomBarcode());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.erp.stock;
+
+import com.erp.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Orders on one hot product from every core: reserving and committing through {@link StockLedger} against
+ * decrementing the PRODUCTS row directly, which serializes on the row lock. Commits include the journal fsync, so
+ * {@code ledgerReserveCommit} depends on the disk under {@code java.io.tmpdir}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class StockReservationBenchmark {
+    private static final long HOT_PRODUCT = 1;
+    private static final int STOCK = 1_000_000_000;
+
+    private Path journal;
+    private StockLedger ledger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        try (Connection connection = DatabaseUtil.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS PRODUCTS");
+            statement.execute("DROP TABLE IF EXISTS STOCK_JOURNAL_CHECKPOINT");
+            statement.execute("CREATE TABLE PRODUCTS (PRODUCT_ID NUMBER PRIMARY KEY, STOCK_QUANTITY NUMBER,"
+                    + " MIN_STOCK_LEVEL NUMBER, MAX_STOCK_LEVEL NUMBER, STATUS VARCHAR2(20), MODIFIED_DATE TIMESTAMP)");
+            statement.execute("CREATE TABLE STOCK_JOURNAL_CHECKPOINT (ID NUMBER PRIMARY KEY,"
+                    + " LAST_SEQ NUMBER NOT NULL)");
+            statement.execute("INSERT INTO PRODUCTS VALUES (" + HOT_PRODUCT + ", " + STOCK + ", 10, NULL, 'ACTIVE',"
+                    + " NULL)");
+        }
+        journal = Files.createTempDirectory("stock-journal");
+        ledger = StockLedger.open(journal, Duration.ofMinutes(5), 1000, Clock.systemUTC());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ledger.close();
+        try (Stream<Path> files = Files.list(journal)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journal);
+    }
+
+    @Benchmark
+    public boolean ledgerReserveRelease() throws SQLException {
+        Reservation reservation = ledger.reserve(HOT_PRODUCT, 1).getReservation();
+        return ledger.release(reservation.getReservationId());
+    }
+
+    @Benchmark
+    public boolean ledgerReserveCommit() throws SQLException, IOException {
+        Reservation reservation = ledger.reserve(HOT_PRODUCT, 1).getReservation();
+        return ledger.commit(reservation.getReservationId());
+    }
+
+    @Benchmark
+    public int rowLockDecrement() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement("UPDATE PRODUCTS"
+                     + " SET STOCK_QUANTITY = STOCK_QUANTITY - 1, MODIFIED_DATE = CURRENT_TIMESTAMP"
+                     + " WHERE PRODUCT_ID = ? AND STOCK_QUANTITY - 1 >= MIN_STOCK_LEVEL")) {
+            ps.setLong(1, HOT_PRODUCT);
+            return ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.erp.dao;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * In-memory H2 database in Oracle compatibility mode with the README's PRODUCTS table.
+ * <p>
+ * H2 has no PL/SQL, so {@code PKG_PRODUCT} calls cannot run against it; only the plain SQL paths of
+ * {@link ProductDao} (listing, paging, streaming) are exercised end to end.
+ */
+public final class H2ProductDatabase {
+
+    private H2ProductDatabase() {}
+
+    public static HikariDataSource create(String name, int rows) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(10);
+        HikariDataSource dataSource = new HikariDataSource(config);
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS PRODUCTS");
+                stmt.execute("CREATE TABLE PRODUCTS ("
+                        + "ID NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "NAME VARCHAR2(200) NOT NULL, "
+                        + "PRICE NUMBER(12,2) NOT NULL, "
+                        + "CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP)");
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO PRODUCTS (ID, NAME, PRICE, CREATED_AT) VALUES (?, ?, ?, ?)")) {
+                long now = System.currentTimeMillis();
+                for (int i = 1; i <= rows; i++) {
+                    ps.setLong(1, i);
+                    ps.setString(2, "Product " + i);
+                    ps.setDouble(3, (i % 10_000) / 100.0 + 1);
+                    ps.setTimestamp(4, new Timestamp(now - i * 1000L));
+                    ps.addBatch();
+                    if (i % 1000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+        return dataSource;
+    }
+}
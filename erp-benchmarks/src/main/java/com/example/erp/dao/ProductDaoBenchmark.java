@@ -0,0 +1,72 @@
+package com.example.erp.dao;
+
+import com.example.erp.model.Product;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link ProductDao} list paths (pool borrow, query, fetch, mapping) against H2 in Oracle mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDaoBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private HikariDataSource dataSource;
+    private ProductDao productDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = H2ProductDatabase.create("dao", rows);
+        productDao = new ProductDao(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Product> listAll() throws SQLException {
+        return productDao.listProducts();
+    }
+
+    @Benchmark
+    public long streamAll(Blackhole bh) throws SQLException, IOException {
+        return productDao.streamProducts(bh::consume);
+    }
+
+    @Benchmark
+    public List<Product> keysetPage() throws SQLException {
+        long after = ThreadLocalRandom.current().nextLong(rows - pageSize);
+        return productDao.listProductsPage(after, pageSize);
+    }
+}
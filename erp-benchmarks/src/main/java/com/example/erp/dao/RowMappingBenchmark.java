@@ -0,0 +1,79 @@
+package com.example.erp.dao;
+
+import com.example.erp.model.Product;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Cost of {@link ProductRowMapper} per row, over an in-memory result set so no driver I/O is included.
+ * {@code compileAndMap} adds the one-off metadata resolution that happens the first time a query shape is seen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowMappingBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private SimpleResultSet resultSet;
+    private ProductRowMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resultSet = new SimpleResultSet();
+        // Keep the rows after the last next() so each invocation can rewind with beforeFirst().
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("ID", Types.NUMERIC, 19, 0);
+        resultSet.addColumn("NAME", Types.VARCHAR, 200, 0);
+        resultSet.addColumn("PRICE", Types.NUMERIC, 12, 2);
+        resultSet.addColumn("CREATED_AT", Types.TIMESTAMP, 0, 0);
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= rows; i++) {
+            resultSet.addRow(BigDecimal.valueOf(i), "Product " + i, BigDecimal.valueOf(i, 2), new Timestamp(now - i));
+        }
+        try {
+            mapper = ProductRowMapper.compile(resultSet.getMetaData());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public void mapRows(Blackhole bh) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            Product product = mapper.mapRow(resultSet);
+            bh.consume(product);
+        }
+    }
+
+    @Benchmark
+    public void compileAndMap(Blackhole bh) throws SQLException {
+        resultSet.beforeFirst();
+        ProductRowMapper compiled = ProductRowMapper.compile(resultSet.getMetaData());
+        while (resultSet.next()) {
+            bh.consume(compiled.mapRow(resultSet));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.erp.filter;
+
+import com.example.erp.config.ObjectMappers;
+import com.example.erp.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Deflating a JSON product listing with a {@link Deflater} from {@link DeflaterPool} versus a new one per
+ * response, with several threads compressing at once as concurrent requests would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private byte[] json;
+    private DeflaterPool pool;
+
+    @State(Scope.Thread)
+    public static class OutputBuffer {
+        final byte[] bytes = new byte[8192];
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Product> products = new ArrayList<>(size);
+        Instant now = Instant.now();
+        for (int i = 1; i <= size; i++) {
+            products.add(new Product(i, "Product " + i, i * 1.25, now.minusSeconds(i)));
+        }
+        json = ObjectMappers.create().writeValueAsBytes(products);
+        pool = new DeflaterPool(level, 64);
+    }
+
+    @Benchmark
+    public long pooledDeflater(OutputBuffer out) {
+        Deflater deflater = pool.borrow();
+        try {
+            return deflate(deflater, out.bytes);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    @Benchmark
+    public long newDeflaterPerResponse(OutputBuffer out) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            return deflate(deflater, out.bytes);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private long deflate(Deflater deflater, byte[] out) {
+        deflater.setInput(json);
+        deflater.finish();
+        long written = 0;
+        while (!deflater.finished()) {
+            written += deflater.deflate(out);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.erp.search;
+
+import com.example.erp.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead queries and incremental updates against a {@link ProductSearchIndex}. Names are two to four words
+ * drawn from a vocabulary of generated words, so postings have a realistic spread of lengths; a common
+ * category word ({@code "wireless"}) shows the cost of a query that matches a large share of the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ten", "sor", "ba", "vex", "ri", "dun", "pa",
+            "zel", "qu", "no", "tra", "fi", "gor", "he", "lix", "mo", "san"};
+    private static final String[] CATEGORIES = {"Wireless", "Steel", "Pro", "Mini", "Kit"};
+    private static final String[] WORDS = vocabulary(5000);
+
+    @Param({"100000"})
+    public int products;
+
+    /** Two-character word prefix, a substring, a whole word, a common category word, and a miss. */
+    @Param({"lo", "ensor", "katenri", "wireless", "zzq"})
+    public String query;
+
+    private ProductSearchIndex index;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ProductSearchIndex();
+        Random random = new Random(42);
+        for (int i = 1; i <= products; i++) {
+            index.put(product(i, random));
+        }
+        nextId = products + 1;
+    }
+
+    private static String[] vocabulary(int size) {
+        Random random = new Random(7);
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static Product product(long id, Random random) {
+        StringBuilder name = new StringBuilder();
+        if (random.nextInt(10) == 0) {
+            name.append(CATEGORIES[random.nextInt(CATEGORIES.length)]).append(' ');
+        }
+        int words = 2 + random.nextInt(3);
+        for (int i = 0; i < words; i++) {
+            name.append(WORDS[random.nextInt(WORDS.length)]).append(i + 1 < words ? " " : "");
+        }
+        return new Product(id, name.toString(), 10 + random.nextInt(1000), null);
+    }
+
+    @Benchmark
+    public List<Product> searchTop10() {
+        return index.search(query, 10);
+    }
+
+    @Benchmark
+    public int putAndRemove() {
+        long id = nextId++;
+        index.put(new Product(id, "Wireless Katenri Z" + id, 99, null));
+        index.remove(id);
+        return index.size();
+    }
+}
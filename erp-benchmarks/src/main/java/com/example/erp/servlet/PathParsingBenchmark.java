@@ -0,0 +1,35 @@
+package com.example.erp.servlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the id from {@code /{id}} as done by {@link ProductServlet}'s GET, PUT and DELETE handlers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathParsingBenchmark {
+
+    @Param({"/42", "/1234567890", "/42/extra"})
+    public String pathInfo;
+
+    @Benchmark
+    public long parseId() {
+        String segment = ProductServlet.idSegment(pathInfo);
+        return segment != null ? Long.parseLong(segment) : -1L;
+    }
+}
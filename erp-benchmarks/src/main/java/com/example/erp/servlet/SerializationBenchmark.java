@@ -0,0 +1,93 @@
+package com.example.erp.servlet;
+
+import com.example.erp.config.ObjectMappers;
+import com.example.erp.model.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of product lists the way {@link ProductServlet} writes them: the whole list in one
+ * {@code writeValue}, and row by row through a {@link JsonGenerator} as the streaming listing does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter rowWriter;
+    private List<Product> products;
+    private CountingOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = ObjectMappers.create();
+        rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        products = new ArrayList<>(size);
+        Instant now = Instant.now();
+        for (int i = 1; i <= size; i++) {
+            products.add(new Product(i, "Product " + i, i * 1.25, now.minusSeconds(i)));
+        }
+        out = new CountingOutputStream();
+    }
+
+    @Benchmark
+    public long writeList() throws IOException {
+        objectMapper.writeValue(out, products);
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamRows() throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+        gen.writeStartArray();
+        for (Product product : products) {
+            rowWriter.writeValue(gen, product);
+        }
+        gen.writeEndArray();
+        gen.close();
+        return out.count;
+    }
+
+    /** Discards bytes; stands in for the servlet output stream. */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.erp.servlet;
+
+import com.example.erp.model.Product;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a product list in each {@link WireFormat}. {@code encode} also reports the encoded
+ * payload size as its {@code payloadBytes} secondary result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public String formatName;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private WireFormat format;
+    private List<Product> products;
+    private byte[] encoded;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        format = WireFormat.valueOf(formatName);
+        products = new ArrayList<>(size);
+        Instant now = Instant.now();
+        for (int i = 1; i <= size; i++) {
+            products.add(new Product(i, "Product " + i, i * 1.25 + 0.99, now.minusMillis(i * 1000L + i)));
+        }
+        encoded = format.mapper().writeValueAsBytes(products);
+        out = new ByteArrayOutputStream(encoded.length);
+    }
+
+    @Benchmark
+    public int encode(Payload payload) throws IOException {
+        out.reset();
+        format.mapper().writeValue(out, products);
+        payload.record(out.size());
+        return out.size();
+    }
+
+    @Benchmark
+    public Product[] decode() throws IOException {
+        return format.mapper().readValue(encoded, Product[].class);
+    }
+
+    /**
+     * JMH resets event counters before each iteration and adds them up over threads, measurement iterations and
+     * forks, so each iteration reports its share and the total is the payload size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public double payloadBytes;
+        private double share;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params) {
+            share = 1.0 / (params.getThreads() * params.getMeasurement().getCount() * Math.max(1, params.getForks()));
+        }
+
+        void record(int bytes) {
+            payloadBytes = bytes * share;
+        }
+    }
+}
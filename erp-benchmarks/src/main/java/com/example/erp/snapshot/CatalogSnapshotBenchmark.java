@@ -0,0 +1,138 @@
+package com.example.erp.snapshot;
+
+import com.example.erp.model.Product;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.ref.Reference;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Lookups, pages and incremental merges on a {@link CatalogSnapshot}. {@code mergeTenChanges} also reports the
+ * measured heap per product of the snapshot and of the same rows as {@code List<Product>} as secondary results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class CatalogSnapshotBenchmark {
+
+    @Param({"1000000"})
+    public int products;
+
+    private CatalogSnapshot snapshot;
+    private NameDictionary dictionary;
+    private long objectBytesPerProduct;
+    private long snapshotBytesPerProduct;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long objectBytes = retainedBytes(() -> generate(products));
+        dictionary = new NameDictionary();
+        long snapshotBytes = retainedBytes(() -> {
+            CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(products, dictionary);
+            generate(products).forEach(builder::add);
+            return builder.build(System.currentTimeMillis());
+        });
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(products, dictionary);
+        generate(products).forEach(builder::add);
+        snapshot = builder.build(System.currentTimeMillis());
+        objectBytesPerProduct = objectBytes / products;
+        snapshotBytesPerProduct = snapshotBytes / products;
+    }
+
+    private static List<Product> generate(int count) {
+        List<Product> list = new ArrayList<>(count);
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 1; i <= count; i++) {
+            list.add(new Product(i, "Product " + (i % 50_000) + " Model " + (i % 97), 1 + (i % 10_000) / 100.0,
+                    base.plusMillis(i * 1000L)));
+        }
+        return list;
+    }
+
+    /** Heap still in use after building the value, measured around full GCs; the value is kept alive till then. */
+    private static long retainedBytes(Supplier<Object> builder) {
+        Runtime runtime = Runtime.getRuntime();
+        gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        Object value = builder.get();
+        gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        Reference.reachabilityFence(value);
+        return after - before;
+    }
+
+    private static void gc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+    }
+
+    @Benchmark
+    public Product lookupById() {
+        return snapshot.product(snapshot.indexOf(ThreadLocalRandom.current().nextLong(1, products + 1)));
+    }
+
+    @Benchmark
+    public List<Product> page100() {
+        return snapshot.page(ThreadLocalRandom.current().nextLong(products - 100), 100);
+    }
+
+    @Benchmark
+    public CatalogSnapshot mergeTenChanges(HeapPerProduct heap) {
+        Map<Long, Product> upserts = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            long id = ThreadLocalRandom.current().nextLong(1, products + 1);
+            upserts.put(id, new Product(id, "Renamed " + id, 9.99, Instant.now()));
+        }
+        heap.record(this);
+        return snapshot.merge(upserts, Set.of(), dictionary);
+    }
+
+    /**
+     * JMH resets event counters before each iteration and adds them up over threads, measurement iterations and
+     * forks, so each iteration reports its share and the totals are the bytes per product.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapPerProduct {
+        public double objectModelBytes;
+        public double snapshotBytes;
+        public double estimatedSnapshotBytes;
+        private double share;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params) {
+            share = 1.0 / (params.getThreads() * params.getMeasurement().getCount() * Math.max(1, params.getForks()));
+        }
+
+        void record(CatalogSnapshotBenchmark benchmark) {
+            objectModelBytes = benchmark.objectBytesPerProduct * share;
+            snapshotBytes = benchmark.snapshotBytesPerProduct * share;
+            estimatedSnapshotBytes = (double) benchmark.snapshot.estimatedBytes() / benchmark.products * share;
+        }
+    }
+}
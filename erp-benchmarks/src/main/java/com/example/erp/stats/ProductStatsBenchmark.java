@@ -0,0 +1,81 @@
+package com.example.erp.stats;
+
+import com.example.erp.dao.H2ProductDatabase;
+import com.example.erp.dao.ProductDao;
+import com.example.erp.model.Product;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price statistics over H2: the streaming sketch pass, serially and split by id, against loading every row and
+ * sorting the prices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductStatsBenchmark {
+
+    @Param({"200000"})
+    public int rows;
+
+    private HikariDataSource dataSource;
+    private ProductDao productDao;
+    private ProductStatsService serial;
+    private ProductStatsService parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = H2ProductDatabase.create("stats", rows);
+        productDao = new ProductDao(dataSource);
+        serial = new ProductStatsService(productDao, 1);
+        parallel = new ProductStatsService(productDao, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serial.close();
+        parallel.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public double sketchSerial() throws SQLException {
+        return serial.priceStats(null, null).quantile(0.99);
+    }
+
+    @Benchmark
+    public double sketchParallel() throws SQLException {
+        return parallel.priceStats(null, null).quantile(0.99);
+    }
+
+    @Benchmark
+    public double materializeAndSort() throws SQLException {
+        List<Product> products = productDao.listProducts();
+        double[] prices = new double[products.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = products.get(i).getPrice();
+        }
+        Arrays.sort(prices);
+        return prices[(int) (0.99 * (prices.length - 1))];
+    }
+}
@@ -1,5 +1,7 @@
 package com.erp.config;
 
+import oracle.ucp.UniversalConnectionPoolException;
+import oracle.ucp.admin.UniversalConnectionPoolManagerImpl;
 import oracle.ucp.jdbc.PoolDataSource;
 import oracle.ucp.jdbc.PoolDataSourceFactory;
 import org.slf4j.Logger;
@@ -9,47 +11,69 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Database configuration and connection pool management
+ * <p>
+ * The singleton is created by the class loader the first time {@link #getInstance()} runs (holder idiom), so
+ * borrowing a connection never takes a lock. Pool sizes and timeouts come from the {@code pool.*} keys in
+ * {@code database.properties}.
  */
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
-    private static DatabaseConfig instance;
-    private PoolDataSource poolDataSource;
+    private static final String DEFAULT_FACTORY = "oracle.jdbc.pool.OracleDataSource";
+    private static final long DRAIN_POLL_MILLIS = 100;
     
-    private DatabaseConfig() {
-        initializeConnectionPool();
+    private final PoolDataSource poolDataSource;
+    private final String poolName;
+    private final int warmUpSize;
+    private final long drainTimeoutMillis;
+    private volatile boolean shutdown;
+    
+    private static final class Holder {
+        static final DatabaseConfig INSTANCE = new DatabaseConfig(loadDatabaseProperties());
     }
     
-    public static synchronized DatabaseConfig getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConfig();
-        }
-        return instance;
+    /**
+     * Creates a pool from the given properties; normally only used through {@link #getInstance()}
+     */
+    DatabaseConfig(Properties props) {
+        this.poolName = props.getProperty("pool.name", "erp-pool");
+        this.warmUpSize = intProperty(props, "pool.min.size", 5);
+        this.drainTimeoutMillis = TimeUnit.SECONDS.toMillis(intProperty(props, "pool.shutdown.timeout", 30));
+        this.poolDataSource = initializeConnectionPool(props);
     }
     
-    private void initializeConnectionPool() {
+    public static DatabaseConfig getInstance() {
+        return Holder.INSTANCE;
+    }
+    
+    private PoolDataSource initializeConnectionPool(Properties props) {
         try {
-            Properties props = loadDatabaseProperties();
-            
-            poolDataSource = PoolDataSourceFactory.getPoolDataSource();
-            poolDataSource.setConnectionFactoryClassName("oracle.jdbc.pool.OracleDataSource");
-            poolDataSource.setURL(props.getProperty("db.url", "jdbc:oracle:thin:@localhost:1521:XE"));
-            poolDataSource.setUser(props.getProperty("db.username", "erp_user"));
-            poolDataSource.setPassword(props.getProperty("db.password", "erp_password"));
+            PoolDataSource pool = PoolDataSourceFactory.getPoolDataSource();
+            pool.setConnectionPoolName(poolName);
+            pool.setConnectionFactoryClassName(props.getProperty("db.connection.factory", DEFAULT_FACTORY));
+            pool.setURL(props.getProperty("db.url", "jdbc:oracle:thin:@localhost:1521:XE"));
+            pool.setUser(props.getProperty("db.username", "erp_user"));
+            pool.setPassword(props.getProperty("db.password", "erp_password"));
             
             // Connection pool settings
-            poolDataSource.setInitialPoolSize(5);
-            poolDataSource.setMinPoolSize(5);
-            poolDataSource.setMaxPoolSize(20);
-            poolDataSource.setConnectionWaitTimeout(30);
-            poolDataSource.setInactiveConnectionTimeout(300);
-            poolDataSource.setValidateConnectionOnBorrow(true);
-            poolDataSource.setSQLForValidateConnection("SELECT 1 FROM DUAL");
+            pool.setInitialPoolSize(intProperty(props, "pool.initial.size", 5));
+            pool.setMinPoolSize(warmUpSize);
+            pool.setMaxPoolSize(intProperty(props, "pool.max.size", 20));
+            pool.setConnectionWaitTimeout(intProperty(props, "pool.connection.timeout", 30));
+            pool.setInactiveConnectionTimeout(intProperty(props, "pool.inactive.timeout", 300));
+            pool.setValidateConnectionOnBorrow(
+                    Boolean.parseBoolean(props.getProperty("pool.validate.on.borrow", "true")));
+            pool.setSQLForValidateConnection("SELECT 1 FROM DUAL");
             
-            logger.info("Database connection pool initialized successfully");
+            logger.info("Database connection pool {} initialized (min {}, max {})",
+                    poolName, pool.getMinPoolSize(), pool.getMaxPoolSize());
+            return pool;
             
         } catch (SQLException e) {
             logger.error("Failed to initialize database connection pool", e);
@@ -57,9 +81,22 @@ public class DatabaseConfig {
         }
     }
     
-    private Properties loadDatabaseProperties() {
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    private static Properties loadDatabaseProperties() {
         Properties props = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("database.properties")) {
+        try (InputStream input = DatabaseConfig.class.getClassLoader().getResourceAsStream("database.properties")) {
             if (input != null) {
                 props.load(input);
                 logger.info("Database properties loaded from file");
@@ -72,9 +109,28 @@ public class DatabaseConfig {
         return props;
     }
     
+    /**
+     * Opens and validates {@code pool.min.size} connections so the first requests do not pay for connection setup
+     */
+    public void warmUp() {
+        List<Connection> connections = new ArrayList<>(warmUpSize);
+        try {
+            for (int i = 0; i < warmUpSize; i++) {
+                Connection connection = poolDataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(5);
+            }
+            logger.info("Database connection pool warmed up with {} connections", connections.size());
+        } catch (SQLException e) {
+            logger.warn("Pool warm-up stopped after {} connections", connections.size(), e);
+        } finally {
+            connections.forEach(this::closeConnection);
+        }
+    }
+    
     public Connection getConnection() throws SQLException {
-        if (poolDataSource == null) {
-            throw new SQLException("Database connection pool not initialized");
+        if (shutdown) {
+            throw new SQLException("Database connection pool is shut down");
         }
         return poolDataSource.getConnection();
     }
@@ -89,14 +145,33 @@ public class DatabaseConfig {
         }
     }
     
+    /**
+     * Stops handing out connections, waits up to {@code pool.shutdown.timeout} seconds for borrowed ones to be
+     * returned and then destroys the pool, closing every physical connection
+     */
     public void shutdown() {
-        if (poolDataSource != null) {
-            try {
-                // Close all connections in the pool
-                logger.info("Shutting down database connection pool");
-            } catch (Exception e) {
-                logger.error("Error during database shutdown", e);
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        logger.info("Shutting down database connection pool {}", poolName);
+        try {
+            long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+            int borrowed = poolDataSource.getBorrowedConnectionsCount();
+            while (borrowed > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+                borrowed = poolDataSource.getBorrowedConnectionsCount();
+            }
+            if (borrowed > 0) {
+                logger.warn("{} connections still borrowed after {} ms, closing anyway", borrowed, drainTimeoutMillis);
             }
+            UniversalConnectionPoolManagerImpl.getUniversalConnectionPoolManager().destroyConnectionPool(poolName);
+            logger.info("Database connection pool {} closed", poolName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while draining database connection pool");
+        } catch (SQLException | UniversalConnectionPoolException e) {
+            logger.error("Error during database shutdown", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.erp.credit;
+
+/**
+ * Outcome of a credit check; only {@link #ACCEPTED} lets an order through
+ */
+public enum CreditDecision {
+    ACCEPTED,
+    OVER_LIMIT,
+    /** The customer has an open balance older than their credit days */
+    OVERDUE,
+    BLOCKED,
+    INACTIVE,
+    /** Not in the engine yet; the caller decides whether to check the database */
+    UNKNOWN_CUSTOMER,
+    /** Balances have not been loaded from the database; the caller must check credit there */
+    BALANCE_UNAVAILABLE;
+    
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
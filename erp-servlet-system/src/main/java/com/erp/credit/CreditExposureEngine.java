@@ -0,0 +1,514 @@
+package com.erp.credit;
+
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-customer credit exposure kept in memory so order entry can check credit without a database round trip.
+ * <p>
+ * Amounts are whole paise in {@code long}s. Each customer owns seven adjacent slots of an {@link AtomicLongArray}
+ * chunk (database balance, reserved, limit, oldest open day, packed status and credit days, and committed for two
+ * reconciliation epochs). A customer's exposure is the balance the database reported at the last reconciliation
+ * plus the orders reserved or committed since; {@link #reserve} is a compare-and-set loop on the reserved slot, so
+ * orders for different customers never contend and two orders for the same customer cannot both squeeze under the
+ * limit. Chunks are allocated as customers appear and never move, so growing the engine does not copy or lose
+ * concurrent updates.
+ * <p>
+ * Order entry reserves before saving an order, then {@link #commit commits} the reservation once the order is saved
+ * or {@link #release releases} it if the order is abandoned. A committed amount stays in the exposure until a
+ * reconciliation whose exposure query started after the commit has replaced the balance: each reconciliation moves
+ * new commits to the other epoch slot before running the query and afterwards clears only the slot it moved them
+ * from. Payments reach the balance through reconciliation only. An order saved before a query started but committed
+ * after it is counted twice until the next reconciliation, which can only refuse an order, never let one through.
+ * <p>
+ * {@link #reconcile()} refreshes limits, terms and status from CUSTOMERS and the balances from the exposure query,
+ * which must return {@code CUSTOMER_ID, OUTSTANDING, OLDEST_OPEN_DATE}, the amount in the units of CREDIT_LIMIT and
+ * the date nullable. Until balances have loaded once, and always when no query is configured, every check answers
+ * {@link CreditDecision#BALANCE_UNAVAILABLE} rather than treating customers as owing nothing
+ */
+public final class CreditExposureEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CreditExposureEngine.class);
+    private static final String CUSTOMERS_SQL =
+            "SELECT CUSTOMER_ID, CREDIT_LIMIT, CREDIT_DAYS, STATUS FROM CUSTOMERS";
+    private static final int FETCH_SIZE = 5000;
+    private static final int LARGEST_DRIFTS = 20;
+    
+    private static final int FIELDS = 7;
+    private static final int BALANCE = 0;
+    private static final int RESERVED = 1;
+    private static final int LIMIT = 2;
+    private static final int OLDEST_OPEN_DAY = 3;
+    private static final int TERMS = 4;
+    // Two slots, the one in use picked by the low bit of the reconciliation epoch
+    private static final int COMMITTED = 5;
+    private static final long NO_OPEN_BALANCE = Long.MAX_VALUE;
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    
+    // Low byte of TERMS; credit days + 1 sit above it, 0 meaning no terms
+    private static final int ACTIVE = 0;
+    private static final int INACTIVE = 1;
+    private static final int BLOCKED = 2;
+    
+    private final String exposureQuery;
+    private final Clock clock;
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+    private volatile Directory directory = new Directory(new long[0], new int[0]);
+    // Guarded by this; only reconcile assigns slots
+    private int slotCount;
+    private volatile ReconcileReport lastReport;
+    private volatile boolean balancesLoaded;
+    // Only reconcile changes it, under this
+    private volatile long epoch;
+    private ScheduledExecutorService reconciler;
+    
+    /**
+     * @param exposureQuery query returning each customer's outstanding balance, or null if there is none
+     */
+    public CreditExposureEngine(String exposureQuery, Clock clock) {
+        this.exposureQuery = exposureQuery;
+        this.clock = clock;
+    }
+    
+    /**
+     * Checks an order without reserving credit for it
+     */
+    public CreditDecision canAccept(long customerId, long amountPaise) {
+        if (!balancesLoaded) {
+            return CreditDecision.BALANCE_UNAVAILABLE;
+        }
+        int slot = directory.slot(customerId);
+        if (slot < 0) {
+            return CreditDecision.UNKNOWN_CUSTOMER;
+        }
+        AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+        int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+        CreditDecision terms = checkTerms(chunk, base);
+        if (terms != CreditDecision.ACCEPTED) {
+            return terms;
+        }
+        return amountPaise <= chunk.get(base + LIMIT) - exposure(chunk, base)
+                ? CreditDecision.ACCEPTED : CreditDecision.OVER_LIMIT;
+    }
+    
+    /**
+     * Checks an order and, if it is accepted, reserves its amount in the same atomic step
+     */
+    public CreditDecision reserve(long customerId, long amountPaise) {
+        if (!balancesLoaded) {
+            return CreditDecision.BALANCE_UNAVAILABLE;
+        }
+        int slot = directory.slot(customerId);
+        if (slot < 0) {
+            return CreditDecision.UNKNOWN_CUSTOMER;
+        }
+        AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+        int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+        CreditDecision terms = checkTerms(chunk, base);
+        if (terms != CreditDecision.ACCEPTED) {
+            return terms;
+        }
+        long limit = chunk.get(base + LIMIT);
+        while (true) {
+            long reserved = chunk.get(base + RESERVED);
+            if (amountPaise > limit - chunk.get(base + BALANCE) - committed(chunk, base) - reserved) {
+                return CreditDecision.OVER_LIMIT;
+            }
+            if (chunk.compareAndSet(base + RESERVED, reserved, reserved + amountPaise)) {
+                break;
+            }
+        }
+        chunk.compareAndSet(base + OLDEST_OPEN_DAY, NO_OPEN_BALANCE, today());
+        return CreditDecision.ACCEPTED;
+    }
+    
+    /**
+     * Ends a reservation whose order has been saved. The amount stays in the exposure as committed until a
+     * reconciliation has counted the order in the balance
+     *
+     * @return false if the customer is not in the engine
+     */
+    public boolean commit(long customerId, long amountPaise) {
+        int slot = directory.slot(customerId);
+        if (slot < 0) {
+            return false;
+        }
+        AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+        int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+        // Added before it is taken off the reservation, so it is never missing from the exposure in between
+        chunk.addAndGet(base + COMMITTED + (int) (epoch & 1), amountPaise);
+        long reserved = takeReserved(chunk, base, amountPaise);
+        if (amountPaise > reserved) {
+            logger.warn("Committed {} paise for customer {} with only {} reserved", amountPaise, customerId, reserved);
+        }
+        return true;
+    }
+    
+    /**
+     * Ends a reservation whose order was abandoned. Reserved credit never goes below zero, so releasing more than
+     * was reserved cannot free credit the customer does not have
+     *
+     * @return false if the customer is not in the engine
+     */
+    public boolean release(long customerId, long amountPaise) {
+        int slot = directory.slot(customerId);
+        if (slot < 0) {
+            return false;
+        }
+        AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+        int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+        long reserved = takeReserved(chunk, base, amountPaise);
+        if (amountPaise > reserved) {
+            logger.warn("Released {} paise for customer {} with only {} reserved", amountPaise, customerId, reserved);
+        }
+        if (exposure(chunk, base) <= 0) {
+            chunk.set(base + OLDEST_OPEN_DAY, NO_OPEN_BALANCE);
+        }
+        return true;
+    }
+    
+    /**
+     * @return what was reserved before, of which at most {@code amountPaise} has been taken
+     */
+    private static long takeReserved(AtomicLongArray chunk, int base, long amountPaise) {
+        long reserved;
+        do {
+            reserved = chunk.get(base + RESERVED);
+        } while (!chunk.compareAndSet(base + RESERVED, reserved, Math.max(0, reserved - amountPaise)));
+        return reserved;
+    }
+    
+    private static long committed(AtomicLongArray chunk, int base) {
+        return chunk.get(base + COMMITTED) + chunk.get(base + COMMITTED + 1);
+    }
+    
+    private static long exposure(AtomicLongArray chunk, int base) {
+        return chunk.get(base + BALANCE) + chunk.get(base + RESERVED) + committed(chunk, base);
+    }
+    
+    private CreditDecision checkTerms(AtomicLongArray chunk, int base) {
+        long terms = chunk.get(base + TERMS);
+        switch ((int) (terms & 0xFF)) {
+            case ACTIVE:
+                break;
+            case BLOCKED:
+                return CreditDecision.BLOCKED;
+            default:
+                return CreditDecision.INACTIVE;
+        }
+        long creditDays = (terms >>> 8) - 1;
+        long oldest = chunk.get(base + OLDEST_OPEN_DAY);
+        if (creditDays >= 0 && oldest != NO_OPEN_BALANCE && today() > oldest + creditDays) {
+            return CreditDecision.OVERDUE;
+        }
+        return CreditDecision.ACCEPTED;
+    }
+    
+    /**
+     * @return the customer's current figures, or null if the customer is not in the engine
+     */
+    public Exposure getExposure(long customerId) {
+        int slot = directory.slot(customerId);
+        if (slot < 0) {
+            return null;
+        }
+        AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+        int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+        long terms = chunk.get(base + TERMS);
+        long oldest = chunk.get(base + OLDEST_OPEN_DAY);
+        return new Exposure(customerId, chunk.get(base + BALANCE), chunk.get(base + RESERVED),
+                committed(chunk, base), chunk.get(base + LIMIT), (int) (terms >>> 8) - 1,
+                oldest == NO_OPEN_BALANCE ? null : LocalDate.ofEpochDay(oldest));
+    }
+    
+    public ReconcileReport getLastReport() {
+        return lastReport;
+    }
+    
+    /**
+     * Reconciles every {@code minutes} on a daemon thread
+     */
+    public synchronized void startReconcile(long minutes) {
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "credit-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Credit reconciliation failed; keeping the in-memory figures", e);
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Refreshes every customer's limit, terms and status and, with an exposure query, replaces their database
+     * balances. Reservations are kept: they are only ended by {@link #commit} and {@link #release}. Committed
+     * amounts are dropped once the new balance includes them, that is, when they were committed before the exposure
+     * query started
+     */
+    public synchronized ReconcileReport reconcile() throws SQLException {
+        long start = System.nanoTime();
+        Map<Long, Integer> slots = new HashMap<>();
+        try (Connection connection = DatabaseUtil.getConnection()) {
+            loadCustomers(connection, slots);
+            ReconcileReport report = exposureQuery == null
+                    ? report(start, slots.size(), false, 0, 0, new PriorityQueue<>())
+                    : reconcileBalances(connection, slots, start);
+            lastReport = report;
+            if (report.getDriftedCustomers() > 0) {
+                logger.warn("Credit reconciliation: {} of {} customers drifted from the database, {} paise in total",
+                        report.getDriftedCustomers(), report.getCustomers(), report.getTotalAbsoluteDrift());
+            } else {
+                logger.info("Credit reconciliation: {} customers in {} ms, no drift", report.getCustomers(),
+                        report.getDurationMillis());
+            }
+            return report;
+        }
+    }
+    
+    private void loadCustomers(Connection connection, Map<Long, Integer> slots) throws SQLException {
+        Directory current = directory;
+        long[] ids = new long[Math.max(current.ids.length, 1024)];
+        int count = 0;
+        try (PreparedStatement ps = connection.prepareStatement(CUSTOMERS_SQL)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long customerId = rs.getLong(1);
+                    int slot = current.slot(customerId);
+                    if (slot < 0) {
+                        slot = allocateSlot();
+                    }
+                    BigDecimal limit = rs.getBigDecimal(2);
+                    int creditDays = rs.getInt(3);
+                    long daysField = rs.wasNull() ? 0 : creditDays + 1L;
+                    AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+                    int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+                    chunk.set(base + LIMIT, limit == null ? 0 : toPaise(limit));
+                    chunk.set(base + TERMS, daysField << 8 | statusCode(rs.getString(4)));
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = customerId;
+                    slots.put(customerId, slot);
+                }
+            }
+        }
+        // Customers deleted from the table drop out of the directory; their slots are not reused
+        long[] sortedIds = Arrays.copyOf(ids, count);
+        Arrays.sort(sortedIds);
+        int[] sortedSlots = new int[count];
+        for (int i = 0; i < count; i++) {
+            sortedSlots[i] = slots.get(sortedIds[i]);
+        }
+        directory = new Directory(sortedIds, sortedSlots);
+    }
+    
+    private int allocateSlot() {
+        int slot = slotCount++;
+        if (slot >>> CHUNK_BITS == chunks.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            AtomicLongArray chunk = new AtomicLongArray(CHUNK_SIZE * FIELDS);
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                chunk.set(i * FIELDS + OLDEST_OPEN_DAY, NO_OPEN_BALANCE);
+            }
+            grown[grown.length - 1] = chunk;
+            chunks = grown;
+        }
+        return slot;
+    }
+    
+    private ReconcileReport reconcileBalances(Connection connection, Map<Long, Integer> slots, long start)
+            throws SQLException {
+        long[] database = new long[slotCount];
+        long[] oldestOpen = new long[slotCount];
+        Arrays.fill(oldestOpen, NO_OPEN_BALANCE);
+        // Commits from here on go to the other slot; every one in this slot was saved before the query starts
+        int counted = COMMITTED + (int) (epoch & 1);
+        epoch++;
+        try (PreparedStatement ps = connection.prepareStatement(exposureQuery)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Integer slot = slots.get(rs.getLong(1));
+                    if (slot == null) {
+                        continue;
+                    }
+                    BigDecimal outstanding = rs.getBigDecimal(2);
+                    database[slot] = outstanding == null ? 0 : toPaise(outstanding);
+                    Date oldest = rs.getDate(3);
+                    if (oldest != null) {
+                        oldestOpen[slot] = oldest.toLocalDate().toEpochDay();
+                    }
+                }
+            }
+        }
+        
+        int drifted = 0;
+        long totalDrift = 0;
+        PriorityQueue<ReconcileReport.Drift> largest =
+                new PriorityQueue<>(Comparator.comparingLong(ReconcileReport.Drift::magnitude));
+        for (Map.Entry<Long, Integer> customer : slots.entrySet()) {
+            int slot = customer.getValue();
+            AtomicLongArray chunk = chunks[slot >>> CHUNK_BITS];
+            int base = (slot & (CHUNK_SIZE - 1)) * FIELDS;
+            long committed = chunk.get(base + counted);
+            long memory = chunk.get(base + BALANCE) + committed;
+            chunk.set(base + BALANCE, database[slot]);
+            // Subtracted rather than zeroed, so a commit that read the old epoch just now is not lost
+            chunk.addAndGet(base + counted, -committed);
+            chunk.set(base + OLDEST_OPEN_DAY, oldestOpen[slot]);
+            // The first load has nothing in memory to drift from
+            if (!balancesLoaded || memory == database[slot]) {
+                continue;
+            }
+            drifted++;
+            totalDrift += Math.abs(memory - database[slot]);
+            largest.add(new ReconcileReport.Drift(customer.getKey(), memory, database[slot]));
+            if (largest.size() > LARGEST_DRIFTS) {
+                largest.poll();
+            }
+        }
+        balancesLoaded = true;
+        return report(start, slots.size(), true, drifted, totalDrift, largest);
+    }
+    
+    private ReconcileReport report(long start, int customers, boolean balancesChecked, int drifted, long totalDrift,
+                                   PriorityQueue<ReconcileReport.Drift> largest) {
+        List<ReconcileReport.Drift> drifts = new ArrayList<>(largest);
+        drifts.sort(Comparator.comparingLong(ReconcileReport.Drift::magnitude).reversed());
+        return new ReconcileReport(Instant.now(clock), (System.nanoTime() - start) / 1_000_000, customers,
+                balancesChecked, drifted, totalDrift, drifts);
+    }
+    
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+    
+    private static int statusCode(String status) {
+        if ("ACTIVE".equals(status)) {
+            return ACTIVE;
+        }
+        if ("BLOCKED".equals(status)) {
+            return BLOCKED;
+        }
+        return INACTIVE;
+    }
+    
+    /**
+     * @throws ArithmeticException if the amount does not fit in a long of paise
+     */
+    public static long toPaise(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    public static BigDecimal toAmount(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+    
+    /**
+     * A customer's figures at one moment; amounts in paise
+     */
+    public static final class Exposure {
+        private final long customerId;
+        private final long balance;
+        private final long reserved;
+        private final long committed;
+        private final long limit;
+        private final int creditDays;
+        private final LocalDate oldestOpen;
+        
+        Exposure(long customerId, long balance, long reserved, long committed, long limit, int creditDays,
+                 LocalDate oldestOpen) {
+            this.customerId = customerId;
+            this.balance = balance;
+            this.reserved = reserved;
+            this.committed = committed;
+            this.limit = limit;
+            this.creditDays = creditDays;
+            this.oldestOpen = oldestOpen;
+        }
+        
+        public long getCustomerId() { return customerId; }
+        
+        /**
+         * @return the outstanding balance at the last reconciliation
+         */
+        public long getBalance() { return balance; }
+        
+        /**
+         * @return orders reserved and not yet committed or released
+         */
+        public long getReserved() { return reserved; }
+        
+        /**
+         * @return orders saved that the balance does not include yet
+         */
+        public long getCommitted() { return committed; }
+        
+        public long getLimit() { return limit; }
+        
+        public long getAvailable() { return limit - balance - reserved - committed; }
+        
+        /**
+         * @return -1 if the customer has no credit days
+         */
+        public int getCreditDays() { return creditDays; }
+        
+        /**
+         * @return the date the oldest unpaid amount was booked, or null if nothing is outstanding
+         */
+        public LocalDate getOldestOpen() { return oldestOpen; }
+    }
+    
+    /**
+     * Immutable customer id to slot lookup, replaced whole by reconciliation
+     */
+    private static final class Directory {
+        private final long[] ids;
+        private final int[] slots;
+        
+        Directory(long[] ids, int[] slots) {
+            this.ids = ids;
+            this.slots = slots;
+        }
+        
+        int slot(long customerId) {
+            int index = Arrays.binarySearch(ids, customerId);
+            return index < 0 ? -1 : slots[index];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.erp.credit;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What one reconciliation against the database found. Drift is the balance the engine expected (the previous
+ * database balance plus the orders committed through it before the query started) minus the new database balance,
+ * in paise: payments, and orders booked around the engine, since the last run
+ */
+public final class ReconcileReport {
+    private final Instant completedAt;
+    private final long durationMillis;
+    private final int customers;
+    private final boolean balancesChecked;
+    private final int driftedCustomers;
+    private final long totalAbsoluteDrift;
+    private final List<Drift> largestDrifts;
+    
+    ReconcileReport(Instant completedAt, long durationMillis, int customers, boolean balancesChecked,
+                    int driftedCustomers, long totalAbsoluteDrift, List<Drift> largestDrifts) {
+        this.completedAt = completedAt;
+        this.durationMillis = durationMillis;
+        this.customers = customers;
+        this.balancesChecked = balancesChecked;
+        this.driftedCustomers = driftedCustomers;
+        this.totalAbsoluteDrift = totalAbsoluteDrift;
+        this.largestDrifts = largestDrifts;
+    }
+    
+    public Instant getCompletedAt() { return completedAt; }
+    
+    public long getDurationMillis() { return durationMillis; }
+    
+    public int getCustomers() { return customers; }
+    
+    /**
+     * @return false when no exposure query is configured, so only limits, terms and status were refreshed
+     */
+    public boolean isBalancesChecked() { return balancesChecked; }
+    
+    public int getDriftedCustomers() { return driftedCustomers; }
+    
+    public long getTotalAbsoluteDrift() { return totalAbsoluteDrift; }
+    
+    public List<Drift> getLargestDrifts() { return largestDrifts; }
+    
+    public static final class Drift {
+        private final long customerId;
+        private final long memoryBalance;
+        private final long databaseBalance;
+        
+        Drift(long customerId, long memoryBalance, long databaseBalance) {
+            this.customerId = customerId;
+            this.memoryBalance = memoryBalance;
+            this.databaseBalance = databaseBalance;
+        }
+        
+        public long getCustomerId() { return customerId; }
+        
+        public long getMemoryBalance() { return memoryBalance; }
+        
+        public long getDatabaseBalance() { return databaseBalance; }
+        
+        long magnitude() {
+            return Math.abs(memoryBalance - databaseBalance);
+        }
+    }
+}
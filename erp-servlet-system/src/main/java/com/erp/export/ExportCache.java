@@ -0,0 +1,149 @@
+package com.erp.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Completed exports on local disk, one file per entity, format and data watermark.
+ * <p>
+ * A file is written under a temporary name while the export streams and only renamed into place once the whole
+ * export succeeded, so a file under its final name is always complete. Publishing a new version deletes all but the
+ * newest older one: a request that found that version just before the commit, or a container that opens it for
+ * sendfile after the servlet returns, can still read it. Requests already reading a deleted file keep their open
+ * channel to it
+ */
+public final class ExportCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExportCache.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+    
+    private final Path directory;
+    
+    public ExportCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        // Left behind by exports interrupted by a crash
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+    
+    /**
+     * @return the completed export for this watermark, or null if there is none
+     */
+    public Path find(ExportEntity entity, ExportFormat format, String watermark) {
+        Path file = directory.resolve(fileName(entity, format, watermark));
+        return Files.isRegularFile(file) ? file : null;
+    }
+    
+    /**
+     * Starts writing an export for {@code watermark}. Close the spill without calling {@link Spill#commit()} to
+     * discard it
+     */
+    public Spill create(ExportEntity entity, ExportFormat format, String watermark) throws IOException {
+        String name = fileName(entity, format, watermark);
+        Path temp = directory.resolve(name + "." + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + TEMP_SUFFIX);
+        return new Spill(entity, format, temp, directory.resolve(name));
+    }
+    
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+    
+    static String fileName(ExportEntity entity, ExportFormat format, String watermark) {
+        return prefix(entity) + watermark + "." + format.getExtension();
+    }
+    
+    private static String prefix(ExportEntity entity) {
+        return entity.name().toLowerCase(Locale.ROOT) + "-";
+    }
+    
+    /**
+     * An export being written to disk
+     */
+    public final class Spill implements Closeable {
+        private final ExportEntity entity;
+        private final ExportFormat format;
+        private final Path temp;
+        private final Path target;
+        private final OutputStream out;
+        private boolean committed;
+        
+        private Spill(ExportEntity entity, ExportFormat format, Path temp, Path target) throws IOException {
+            this.entity = entity;
+            this.format = format;
+            this.temp = temp;
+            this.target = target;
+            this.out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024);
+        }
+        
+        public OutputStream getOutputStream() {
+            return out;
+        }
+        
+        /**
+         * Publishes the file under its final name and removes older versions of the same export, keeping the previous
+         * one
+         *
+         * @return the published file
+         */
+        public Path commit() throws IOException {
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            String glob = prefix(entity) + "*." + format.getExtension();
+            List<Path> older = new ArrayList<>();
+            try (DirectoryStream<Path> versions = Files.newDirectoryStream(directory, glob)) {
+                for (Path version : versions) {
+                    if (!version.equals(target)) {
+                        older.add(version);
+                    }
+                }
+                older.sort(Comparator.comparing(ExportCache::lastModified).reversed());
+                for (Path version : older.subList(Math.min(1, older.size()), older.size())) {
+                    Files.deleteIfExists(version);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not remove old {} exports", entity, e);
+            }
+            return target;
+        }
+        
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("Error closing discarded export {}", temp, e);
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.warn("Could not delete discarded export {}", temp, e);
+            }
+        }
+    }
+}
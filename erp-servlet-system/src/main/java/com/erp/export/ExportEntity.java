@@ -0,0 +1,68 @@
+package com.erp.export;
+
+import com.erp.mapping.CustomerRowMapper;
+import com.erp.mapping.EmployeeRowMapper;
+import com.erp.mapping.ProductRowMapper;
+
+import java.util.Locale;
+
+/**
+ * Tables that can be exported, with the columns each export contains
+ */
+public enum ExportEntity {
+    PRODUCTS("PRODUCTS", "PRODUCT_ID", ProductRowMapper.COLUMNS),
+    CUSTOMERS("CUSTOMERS", "CUSTOMER_ID", CustomerRowMapper.COLUMNS),
+    EMPLOYEES("EMPLOYEES", "EMPLOYEE_ID", EmployeeRowMapper.COLUMNS);
+    
+    private final String table;
+    private final String idColumn;
+    private final String[] columns;
+    
+    ExportEntity(String table, String idColumn, String[] columns) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.columns = columns;
+    }
+    
+    public String getTable() {
+        return table;
+    }
+    
+    public String[] getColumns() {
+        return columns.clone();
+    }
+    
+    /**
+     * Every column, ordered by id so repeated exports of unchanged data are byte-identical
+     */
+    public String selectSql() {
+        return "SELECT " + String.join(", ", columns) + " FROM " + table + " ORDER BY " + idColumn;
+    }
+    
+    /**
+     * Row count, highest id and highest ORA_ROWSCN. The commit SCN only grows, and every commit that updates or
+     * inserts a row raises the SCN of its block above any earlier commit, whichever session wrote it and whether or
+     * not it set MODIFIED_DATE, and a delete changes the count. Without ROWDEPENDENCIES the SCN is tracked per
+     * block, which can only change the watermark more often than needed, never less. Costs one aggregate over the
+     * table, no rows leave the database
+     */
+    public String watermarkSql() {
+        return "SELECT COUNT(*), MAX(" + idColumn + "), MAX(ORA_ROWSCN) FROM " + table;
+    }
+    
+    /**
+     * @return the entity for a servlet path info such as {@code /products}, or null
+     */
+    public static ExportEntity fromPath(String pathInfo) {
+        if (pathInfo == null) {
+            return null;
+        }
+        String segment = pathInfo.startsWith("/") ? pathInfo.substring(1) : pathInfo;
+        for (ExportEntity entity : values()) {
+            if (entity.name().equals(segment.toUpperCase(Locale.ROOT))) {
+                return entity;
+            }
+        }
+        return null;
+    }
+}
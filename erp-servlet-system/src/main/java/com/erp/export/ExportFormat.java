@@ -0,0 +1,192 @@
+package com.erp.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Export file formats. Rows are written straight from the ResultSet without building entity objects
+ */
+public enum ExportFormat {
+    /** One JSON object per line, keyed by the model's camelCase field names */
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        void writeHeader(Writer out, String[] names) {
+        }
+        
+        @Override
+        void writeRow(Writer out, String[] names, Object[] values) throws IOException {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            for (int i = 0; i < names.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                json.name(names[i]);
+                if (value instanceof BigDecimal) {
+                    // JsonWriter.value(Number) would write 9.9E+2 for an Oracle NUMBER id of 990
+                    json.jsonValue(((BigDecimal) value).toPlainString());
+                } else {
+                    json.value(value.toString());
+                }
+            }
+            json.endObject();
+            out.write('\n');
+        }
+    },
+    /** RFC 4180 CSV with a header row of column names */
+    CSV("text/csv", "csv") {
+        @Override
+        void writeHeader(Writer out, String[] names) throws IOException {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(names[i]);
+            }
+            out.write("\r\n");
+        }
+        
+        @Override
+        void writeRow(Writer out, String[] names, Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = values[i];
+                if (value != null) {
+                    writeField(out, value instanceof BigDecimal
+                            ? ((BigDecimal) value).toPlainString()
+                            : value.toString());
+                }
+            }
+            out.write("\r\n");
+        }
+        
+        private void writeField(Writer out, String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    };
+    
+    private final String contentType;
+    private final String extension;
+    
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    /**
+     * @return the format for a {@code format} query parameter, NDJSON when absent, or null if unknown
+     */
+    public static ExportFormat fromParameter(String value) {
+        if (value == null || value.isEmpty()) {
+            return NDJSON;
+        }
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(value.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        return null;
+    }
+    
+    abstract void writeHeader(Writer out, String[] names) throws IOException;
+    
+    abstract void writeRow(Writer out, String[] names, Object[] values) throws IOException;
+    
+    /**
+     * Writes every remaining row of {@code rs}
+     *
+     * @return the number of rows written
+     */
+    public long write(ResultSet rs, Writer out) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] names = new String[count];
+        int[] types = new int[count];
+        for (int i = 0; i < count; i++) {
+            String label = metaData.getColumnLabel(i + 1).toUpperCase(Locale.ROOT);
+            names[i] = this == CSV ? label : camelCase(label);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        writeHeader(out, names);
+        
+        Object[] values = new Object[count];
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 0; i < count; i++) {
+                values[i] = read(rs, i + 1, types[i]);
+            }
+            writeRow(out, names, values);
+            rows++;
+        }
+        return rows;
+    }
+    
+    private static Object read(ResultSet rs, int index, int type) throws SQLException {
+        switch (type) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return rs.getBigDecimal(index);
+            case Types.DATE:
+                return rs.getObject(index, LocalDate.class);
+            case Types.TIMESTAMP:
+                return rs.getObject(index, LocalDateTime.class);
+            default:
+                return rs.getString(index);
+        }
+    }
+    
+    /**
+     * {@code MIN_STOCK_LEVEL} to {@code minStockLevel}
+     */
+    static String camelCase(String column) {
+        StringBuilder name = new StringBuilder(column.length());
+        boolean upper = false;
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+            if (c == '_') {
+                upper = name.length() > 0;
+            } else {
+                name.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.erp.export;
+
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Full-table exports streamed from the database cursor and kept on disk for repeat requests.
+ * <p>
+ * Each export is keyed by the table's watermark (see {@link ExportEntity#watermarkSql()}). The first request for a
+ * watermark streams rows to the client and to a spill file at the same time; later requests for the same watermark
+ * are served from that file without a table scan.
+ * <p>
+ * The watermark query itself is an aggregate over the whole table, so its result is reused for a short TTL: within
+ * it, cache hits and 304s do not touch the database, at the price of serving an export up to one TTL out of date.
+ * Requests that miss while another request is already streaming the same watermark wait for that export and are
+ * served from its file
+ */
+public final class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int FETCH_SIZE = 1000;
+    
+    private final ExportCache cache;
+    private final long watermarkTtlNanos;
+    private final ConcurrentMap<ExportEntity, Watermark> watermarks = new ConcurrentHashMap<>();
+    // One lock per entity, so concurrent requests after the TTL expires run one watermark query between them
+    private final Map<ExportEntity, Object> watermarkLocks = new EnumMap<>(ExportEntity.class);
+    // Exports being streamed, by cache file name; completed with the published file, or null if it was not kept
+    private final ConcurrentMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * @param watermarkTtl how long a watermark is reused before the table is queried again; zero queries every time
+     */
+    public ExportService(ExportCache cache, Duration watermarkTtl) {
+        this.cache = cache;
+        this.watermarkTtlNanos = watermarkTtl.toNanos();
+        for (ExportEntity entity : ExportEntity.values()) {
+            watermarkLocks.put(entity, new Object());
+        }
+    }
+    
+    public String watermark(ExportEntity entity) throws SQLException {
+        Watermark known = watermarks.get(entity);
+        if (known != null && known.isFresh()) {
+            return known.value;
+        }
+        synchronized (watermarkLocks.get(entity)) {
+            known = watermarks.get(entity);
+            if (known != null && known.isFresh()) {
+                return known.value;
+            }
+            long readAt = System.nanoTime();
+            String value;
+            try (Connection connection = DatabaseUtil.getConnection()) {
+                value = watermark(connection, entity);
+            }
+            watermarks.put(entity, new Watermark(value, readAt));
+            return value;
+        }
+    }
+    
+    private static String watermark(Connection connection, ExportEntity entity) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(entity.watermarkSql());
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1) + "-" + rs.getLong(2) + "-" + rs.getLong(3);
+        }
+    }
+    
+    /**
+     * @return the completed export for {@code watermark}, or null if it has to be streamed from the database
+     */
+    public Path findCached(ExportEntity entity, ExportFormat format, String watermark) {
+        return cache.find(entity, format, watermark);
+    }
+    
+    /**
+     * Waits for an export of {@code watermark} that another request is streaming, rather than scanning the table a
+     * second time
+     *
+     * @return its file once published, or null if none is running or it was not kept
+     */
+    public Path awaitInFlight(ExportEntity entity, ExportFormat format, String watermark) {
+        CompletableFuture<Path> running = inFlight.get(ExportCache.fileName(entity, format, watermark));
+        if (running == null) {
+            return null;
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Streams the table to {@code out} from the database cursor, spilling the same bytes to disk. The spill is kept
+     * only if the watermark is unchanged after the scan, so the file never holds data newer or older than its key
+     *
+     * @return the number of rows written
+     */
+    public long stream(ExportEntity entity, ExportFormat format, String watermark, OutputStream out)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        String key = ExportCache.fileName(entity, format, watermark);
+        CompletableFuture<Path> published = new CompletableFuture<>();
+        // Only the first request for a watermark is waited on; one that slips in beside it just streams as well
+        boolean claimed = inFlight.putIfAbsent(key, published) == null;
+        Path file = null;
+        try (ExportCache.Spill spill = cache.create(entity, format, watermark);
+             Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(entity.selectSql())) {
+            ps.setFetchSize(FETCH_SIZE);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new TeeOutputStream(out, spill.getOutputStream()), StandardCharsets.UTF_8), 64 * 1024);
+            long rows;
+            try (ResultSet rs = ps.executeQuery()) {
+                rows = format.write(rs, writer);
+            }
+            writer.flush();
+            
+            long readAt = System.nanoTime();
+            String after = watermark(connection, entity);
+            watermarks.put(entity, new Watermark(after, readAt));
+            if (after.equals(watermark)) {
+                file = spill.commit();
+            } else {
+                logger.info("{} changed during export ({} -> {}), not caching it", entity, watermark, after);
+            }
+            logger.info("Exported {} {} rows as {} in {} ms", rows, entity, format,
+                    (System.nanoTime() - start) / 1_000_000);
+            return rows;
+        } finally {
+            if (claimed) {
+                published.complete(file);
+                inFlight.remove(key);
+            }
+        }
+    }
+    
+    private final class Watermark {
+        final String value;
+        final long readAt;
+        
+        Watermark(String value, long readAt) {
+            this.value = value;
+            this.readAt = readAt;
+        }
+        
+        boolean isFresh() {
+            return System.nanoTime() - readAt < watermarkTtlNanos;
+        }
+    }
+}
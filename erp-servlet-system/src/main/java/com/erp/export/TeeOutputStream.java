@@ -0,0 +1,43 @@
+package com.erp.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes everything to two streams; the first one's failures are reported first
+ */
+final class TeeOutputStream extends OutputStream {
+    private final OutputStream first;
+    private final OutputStream second;
+    
+    TeeOutputStream(OutputStream first, OutputStream second) {
+        this.first = first;
+        this.second = second;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        first.write(b);
+        second.write(b);
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        first.write(b, off, len);
+        second.write(b, off, len);
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        first.flush();
+        second.flush();
+    }
+    
+    /**
+     * Closes neither stream; each has its own owner
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
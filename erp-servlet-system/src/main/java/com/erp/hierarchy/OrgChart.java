@@ -0,0 +1,461 @@
+package com.erp.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable snapshot of the reporting hierarchy held in primitive arrays.
+ * <p>
+ * Employees are numbered in depth-first pre-order, so each employee's reports occupy the contiguous run of
+ * {@code order} that follows it: employee {@code d} is under {@code m} exactly when
+ * {@code enter[m] < enter[d] < enter[m] + size[m]}. That makes "is under" an O(1) check and a subtree listing a
+ * sequential array scan. Employees without a manager (or whose manager is not in the table) are roots.
+ * <p>
+ * Changes return a new snapshot. Moving a team rotates its run to the end of the new manager's run, which only
+ * renumbers the employees between the old and the new position
+ */
+public final class OrgChart {
+    /** Manager id meaning "no manager" in {@link #build} input */
+    public static final long NO_MANAGER = -1;
+    static final int NONE = -1;
+    
+    private static final String[] STATUSES = {null, "ACTIVE", "INACTIVE", "TERMINATED"};
+    
+    // Node-indexed; a node is an employee's slot in these arrays
+    private final long[] ids;
+    private final int[] parent;
+    private final int[] enter;
+    private final int[] size;
+    private final int[] depth;
+    private final byte[] status;
+    // Pre-order position -> node
+    private final int[] order;
+    // Employee id lookup
+    private final long[] sortedIds;
+    private final int[] sortedNodes;
+    
+    private OrgChart(long[] ids, int[] parent, int[] enter, int[] size, int[] depth, byte[] status, int[] order,
+                     long[] sortedIds, int[] sortedNodes) {
+        this.ids = ids;
+        this.parent = parent;
+        this.enter = enter;
+        this.size = size;
+        this.depth = depth;
+        this.status = status;
+        this.order = order;
+        this.sortedIds = sortedIds;
+        this.sortedNodes = sortedNodes;
+    }
+    
+    /**
+     * Builds the chart from parallel arrays of employee id, manager id ({@link #NO_MANAGER} for none) and status.
+     * A manager cycle in the data is broken by treating one of its members as a root
+     *
+     * @return the chart and the number of manager links that had to be dropped
+     */
+    static Built build(long[] employeeIds, long[] managerIds, String[] statuses) {
+        int n = employeeIds.length;
+        long[] ids = employeeIds.clone();
+        Arrays.sort(ids);
+        int[] nodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = i;
+        }
+        
+        int[] parent = new int[n];
+        byte[] status = new byte[n];
+        int dropped = 0;
+        for (int row = 0; row < n; row++) {
+            int node = Arrays.binarySearch(ids, employeeIds[row]);
+            int manager = managerIds[row] == NO_MANAGER ? NONE : Arrays.binarySearch(ids, managerIds[row]);
+            if (manager < 0 || manager == node) {
+                if (managerIds[row] != NO_MANAGER) {
+                    dropped++;
+                }
+                manager = NONE;
+            }
+            parent[node] = manager;
+            status[node] = statusCode(statuses[row]);
+        }
+        
+        // Children in id order, compressed-row layout
+        int[] childStart = new int[n + 1];
+        for (int node = 0; node < n; node++) {
+            if (parent[node] != NONE) {
+                childStart[parent[node] + 1]++;
+            }
+        }
+        for (int node = 0; node < n; node++) {
+            childStart[node + 1] += childStart[node];
+        }
+        int[] children = new int[childStart[n]];
+        int[] fill = Arrays.copyOf(childStart, n);
+        for (int node = 0; node < n; node++) {
+            if (parent[node] != NONE) {
+                children[fill[parent[node]]++] = node;
+            }
+        }
+        
+        int[] enter = new int[n];
+        Arrays.fill(enter, NONE);
+        int[] size = new int[n];
+        int[] depth = new int[n];
+        int[] order = new int[n];
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        int position = 0;
+        for (int node = 0; node < n; node++) {
+            if (parent[node] == NONE) {
+                position = visit(node, parent, childStart, children, enter, size, depth, order, stack, cursor,
+                        position);
+            }
+        }
+        // Whatever is left hangs off a cycle: walk up to a cycle member, cut its link and number from there
+        for (int node = 0; node < n; node++) {
+            if (enter[node] == NONE) {
+                int member = node;
+                for (int steps = 0; steps < n; steps++) {
+                    member = parent[member];
+                }
+                parent[member] = NONE;
+                dropped++;
+                position = visit(member, parent, childStart, children, enter, size, depth, order, stack, cursor,
+                        position);
+            }
+        }
+        OrgChart chart = new OrgChart(ids, parent, enter, size, depth, status, order, ids, nodes);
+        return new Built(chart, dropped);
+    }
+    
+    private static int visit(int root, int[] parent, int[] childStart, int[] children, int[] enter, int[] size,
+                             int[] depth, int[] order, int[] stack, int[] cursor, int position) {
+        int top = 0;
+        stack[top++] = root;
+        enter[root] = position;
+        order[position++] = root;
+        depth[root] = 0;
+        while (top > 0) {
+            int node = stack[top - 1];
+            int next = childStart[node] + cursor[node];
+            if (next < childStart[node + 1]) {
+                cursor[node]++;
+                int child = children[next];
+                // A link cut while breaking a cycle is still in the child lists
+                if (parent[child] != node) {
+                    continue;
+                }
+                enter[child] = position;
+                order[position++] = child;
+                depth[child] = depth[node] + 1;
+                stack[top++] = child;
+            } else {
+                top--;
+                size[node] = position - enter[node];
+            }
+        }
+        return position;
+    }
+    
+    public int size() {
+        return ids.length;
+    }
+    
+    public boolean contains(long employeeId) {
+        return node(employeeId) != NONE;
+    }
+    
+    /**
+     * @return true if {@code employeeId} reports to {@code managerId}, directly or indirectly
+     */
+    public boolean isUnder(long employeeId, long managerId) {
+        int employee = node(employeeId);
+        int manager = node(managerId);
+        return employee != NONE && manager != NONE && within(employee, manager);
+    }
+    
+    private boolean within(int node, int ancestor) {
+        return enter[node] > enter[ancestor] && enter[node] < enter[ancestor] + size[ancestor];
+    }
+    
+    /**
+     * @return the manager's id, or null for a root
+     * @throws NoSuchElementException if the employee is not in the chart
+     */
+    public Long getManagerId(long employeeId) {
+        int manager = parent[existing(employeeId)];
+        return manager == NONE ? null : ids[manager];
+    }
+    
+    /**
+     * @throws NoSuchElementException if the employee is not in the chart
+     */
+    public String getStatus(long employeeId) {
+        return STATUSES[status[existing(employeeId)]];
+    }
+    
+    /**
+     * @return the number of employees under {@code managerId} at any depth
+     * @throws NoSuchElementException if the employee is not in the chart
+     */
+    public int countReports(long managerId) {
+        return size[existing(managerId)] - 1;
+    }
+    
+    /**
+     * Employees under {@code managerId} in pre-order, so every report is listed right after their manager.
+     * Reports deeper than {@code maxDepth} levels are skipped without being scanned; with no depth or status
+     * filter, {@code offset} is an array index and costs nothing
+     *
+     * @param maxDepth 1 for direct reports only, {@link Integer#MAX_VALUE} for everyone
+     * @param status   only employees with this status, or null for all
+     * @throws NoSuchElementException if the manager is not in the chart
+     */
+    public List<Member> getReports(long managerId, int maxDepth, String status, int offset, int limit) {
+        int manager = existing(managerId);
+        int end = enter[manager] + size[manager];
+        int baseDepth = depth[manager];
+        byte wanted = statusCode(status);
+        List<Member> reports = new ArrayList<>(Math.min(limit, size[manager] - 1));
+        int position = enter[manager] + 1;
+        int skip = offset;
+        if (maxDepth == Integer.MAX_VALUE && status == null) {
+            position += skip;
+            skip = 0;
+        }
+        while (position < end && reports.size() < limit) {
+            int node = order[position];
+            int level = depth[node] - baseDepth;
+            if (status == null || this.status[node] == wanted) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    reports.add(member(node, level));
+                }
+            }
+            position += level < maxDepth ? 1 : size[node];
+        }
+        return reports;
+    }
+    
+    /**
+     * Managers above {@code employeeId}, nearest first
+     *
+     * @param activeOnly leave out managers who are not ACTIVE, as an approval would skip them
+     * @throws NoSuchElementException if the employee is not in the chart
+     */
+    public List<Member> getChain(long employeeId, boolean activeOnly) {
+        int node = existing(employeeId);
+        if (parent[node] == NONE) {
+            return Collections.emptyList();
+        }
+        List<Member> chain = new ArrayList<>(depth[node]);
+        for (int manager = parent[node]; manager != NONE; manager = parent[manager]) {
+            if (!activeOnly || "ACTIVE".equals(STATUSES[status[manager]])) {
+                chain.add(member(manager, depth[node] - depth[manager]));
+            }
+        }
+        return chain;
+    }
+    
+    private Member member(int node, int level) {
+        return new Member(ids[node], parent[node] == NONE ? null : ids[parent[node]], STATUSES[status[node]], level);
+    }
+    
+    /**
+     * @throws NoSuchElementException   if the employee is not in the chart
+     * @throws IllegalArgumentException if the manager is not in the chart
+     * @throws IllegalStateException    if the manager reports to the employee
+     */
+    OrgChart withManager(long employeeId, Long managerId) {
+        int node = existing(employeeId);
+        int manager = managerNode(managerId);
+        if (manager == parent[node]) {
+            return this;
+        }
+        checkNotUnder(node, manager);
+        OrgChart copy = new OrgChart(ids, parent.clone(), enter.clone(), size.clone(), depth.clone(), status,
+                order.clone(), sortedIds, sortedNodes);
+        copy.move(node, manager);
+        return copy;
+    }
+    
+    /**
+     * @throws NoSuchElementException if the employee is not in the chart
+     */
+    OrgChart withStatus(long employeeId, String newStatus) {
+        int node = existing(employeeId);
+        byte code = statusCode(newStatus);
+        if (status[node] == code) {
+            return this;
+        }
+        byte[] statusCopy = status.clone();
+        statusCopy[node] = code;
+        return new OrgChart(ids, parent, enter, size, depth, statusCopy, order, sortedIds, sortedNodes);
+    }
+    
+    /**
+     * Adds a new employee, or updates the manager and status of one already in the chart
+     *
+     * @throws IllegalArgumentException if the manager is not in the chart
+     * @throws IllegalStateException    if the manager reports to the employee
+     */
+    OrgChart withEmployee(long employeeId, Long managerId, String newStatus) {
+        if (contains(employeeId)) {
+            return withManager(employeeId, managerId).withStatus(employeeId, newStatus);
+        }
+        int manager = managerNode(managerId);
+        int n = ids.length;
+        // The new node starts as a root numbered after everyone else, then moves like any other
+        OrgChart copy = new OrgChart(Arrays.copyOf(ids, n + 1), Arrays.copyOf(parent, n + 1),
+                Arrays.copyOf(enter, n + 1), Arrays.copyOf(size, n + 1), Arrays.copyOf(depth, n + 1),
+                Arrays.copyOf(status, n + 1), Arrays.copyOf(order, n + 1), new long[n + 1], new int[n + 1]);
+        copy.ids[n] = employeeId;
+        copy.parent[n] = NONE;
+        copy.enter[n] = n;
+        copy.size[n] = 1;
+        copy.depth[n] = 0;
+        copy.status[n] = statusCode(newStatus);
+        copy.order[n] = n;
+        int slot = -Arrays.binarySearch(sortedIds, employeeId) - 1;
+        System.arraycopy(sortedIds, 0, copy.sortedIds, 0, slot);
+        System.arraycopy(sortedNodes, 0, copy.sortedNodes, 0, slot);
+        copy.sortedIds[slot] = employeeId;
+        copy.sortedNodes[slot] = n;
+        System.arraycopy(sortedIds, slot, copy.sortedIds, slot + 1, n - slot);
+        System.arraycopy(sortedNodes, slot, copy.sortedNodes, slot + 1, n - slot);
+        if (manager != NONE) {
+            copy.move(n, manager);
+        }
+        return copy;
+    }
+    
+    /**
+     * Re-parents {@code node}'s team under {@code manager} in place; only called on a copy not yet published
+     */
+    private void move(int node, int manager) {
+        int start = enter[node];
+        int count = size[node];
+        int target = manager == NONE ? ids.length : enter[manager] + size[manager];
+        int from;
+        int to;
+        int[] team = Arrays.copyOfRange(order, start, start + count);
+        if (target >= start + count) {
+            // Team moves right; everyone between shifts left by its size
+            System.arraycopy(order, start + count, order, start, target - start - count);
+            System.arraycopy(team, 0, order, target - count, count);
+            from = start;
+            to = target;
+        } else {
+            System.arraycopy(order, target, order, target + count, start - target);
+            System.arraycopy(team, 0, order, target, count);
+            from = target;
+            to = start + count;
+        }
+        for (int position = from; position < to; position++) {
+            enter[order[position]] = position;
+        }
+        
+        for (int ancestor = parent[node]; ancestor != NONE; ancestor = parent[ancestor]) {
+            size[ancestor] -= count;
+        }
+        parent[node] = manager;
+        for (int ancestor = manager; ancestor != NONE; ancestor = parent[ancestor]) {
+            size[ancestor] += count;
+        }
+        int shift = (manager == NONE ? 0 : depth[manager] + 1) - depth[node];
+        if (shift != 0) {
+            for (int position = enter[node]; position < enter[node] + count; position++) {
+                depth[order[position]] += shift;
+            }
+        }
+    }
+    
+    private void checkNotUnder(int node, int manager) {
+        if (manager != NONE && (manager == node || within(manager, node))) {
+            throw new IllegalStateException("Employee " + ids[manager] + " reports to " + ids[node]
+                    + ", so cannot be their manager");
+        }
+    }
+    
+    /**
+     * Same checks as {@link #withManager} without building a new chart
+     */
+    void checkManager(long employeeId, Long managerId) {
+        checkNotUnder(existing(employeeId), managerNode(managerId));
+    }
+    
+    private int managerNode(Long managerId) {
+        if (managerId == null) {
+            return NONE;
+        }
+        int manager = node(managerId);
+        if (manager == NONE) {
+            throw new IllegalArgumentException("Unknown manager " + managerId);
+        }
+        return manager;
+    }
+    
+    private int existing(long employeeId) {
+        int node = node(employeeId);
+        if (node == NONE) {
+            throw new NoSuchElementException("Unknown employee " + employeeId);
+        }
+        return node;
+    }
+    
+    private int node(long employeeId) {
+        int slot = Arrays.binarySearch(sortedIds, employeeId);
+        return slot < 0 ? NONE : sortedNodes[slot];
+    }
+    
+    static boolean isKnownStatus(String status) {
+        return status != null && statusCode(status) != 0;
+    }
+    
+    private static byte statusCode(String status) {
+        for (byte code = 1; code < STATUSES.length; code++) {
+            if (STATUSES[code].equals(status)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * One employee in a listing; {@code level} is the distance from the employee the listing is for
+     */
+    public static final class Member {
+        private final long employeeId;
+        private final Long managerId;
+        private final String status;
+        private final int level;
+        
+        Member(long employeeId, Long managerId, String status, int level) {
+            this.employeeId = employeeId;
+            this.managerId = managerId;
+            this.status = status;
+            this.level = level;
+        }
+        
+        public long getEmployeeId() { return employeeId; }
+        
+        public Long getManagerId() { return managerId; }
+        
+        public String getStatus() { return status; }
+        
+        public int getLevel() { return level; }
+    }
+    
+    static final class Built {
+        final OrgChart chart;
+        final int droppedLinks;
+        
+        Built(OrgChart chart, int droppedLinks) {
+            this.chart = chart;
+            this.droppedLinks = droppedLinks;
+        }
+    }
+}
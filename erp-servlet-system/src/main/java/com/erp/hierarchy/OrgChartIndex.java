@@ -0,0 +1,237 @@
+package com.erp.hierarchy;
+
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * The live {@link OrgChart}. Readers take the current snapshot without locking; manager and status changes made
+ * through this class update the EMPLOYEES row and the snapshot together, one change at a time, so two concurrent
+ * moves can never close a reporting cycle between them.
+ * <p>
+ * Changes made to the table by anything else (imports, direct SQL) are picked up by the periodic reload. An employee
+ * inserted since the last reload is read from the table when a change names them, as employee or as manager
+ */
+public final class OrgChartIndex implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrgChartIndex.class);
+    private static final String LOAD_SQL = "SELECT EMPLOYEE_ID, MANAGER_ID, STATUS FROM EMPLOYEES";
+    private static final String LOAD_ONE_SQL = "SELECT MANAGER_ID, STATUS FROM EMPLOYEES WHERE EMPLOYEE_ID = ?";
+    private static final String UPDATE_MANAGER_SQL =
+            "UPDATE EMPLOYEES SET MANAGER_ID = ?, MODIFIED_DATE = ?, MODIFIED_BY = ? WHERE EMPLOYEE_ID = ?";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE EMPLOYEES SET STATUS = ?, MODIFIED_DATE = ?, MODIFIED_BY = ? WHERE EMPLOYEE_ID = ?";
+    private static final int FETCH_SIZE = 5000;
+    
+    private volatile OrgChart chart;
+    // Changes applied while a reload is reading the table, replayed onto the reloaded chart; guarded by this
+    private List<UnaryOperator<OrgChart>> sinceReload;
+    // Held for a whole reload, so overlapping reloads run one after the other
+    private final Object reloadLock = new Object();
+    private ScheduledExecutorService refresher;
+    
+    public OrgChartIndex() throws SQLException {
+        reload();
+    }
+    
+    /**
+     * @return the current snapshot; hold on to it for the whole of a request so every answer is consistent
+     */
+    public OrgChart get() {
+        return chart;
+    }
+    
+    /**
+     * Rebuilds the chart from the EMPLOYEES table
+     */
+    public void reload() throws SQLException {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                sinceReload = new ArrayList<>();
+            }
+            long start = System.nanoTime();
+            OrgChart.Built built;
+            try {
+                built = load();
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    sinceReload = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                OrgChart loaded = built.chart;
+                for (UnaryOperator<OrgChart> change : sinceReload) {
+                    try {
+                        loaded = change.apply(loaded);
+                    } catch (RuntimeException e) {
+                        logger.warn("Change made during reload no longer applies: {}", e.getMessage());
+                    }
+                }
+                sinceReload = null;
+                chart = loaded;
+            }
+            if (built.droppedLinks > 0) {
+                logger.warn("{} manager links point to unknown employees or form cycles; treated as top level",
+                        built.droppedLinks);
+            }
+            logger.info("Org chart loaded: {} employees in {} ms", built.chart.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    private static OrgChart.Built load() throws SQLException {
+        long[] ids = new long[1024];
+        long[] managers = new long[1024];
+        String[] statuses = new String[1024];
+        int count = 0;
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_SQL)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        managers = Arrays.copyOf(managers, count * 2);
+                        statuses = Arrays.copyOf(statuses, count * 2);
+                    }
+                    ids[count] = rs.getLong(1);
+                    long manager = rs.getLong(2);
+                    managers[count] = rs.wasNull() ? OrgChart.NO_MANAGER : manager;
+                    statuses[count] = rs.getString(3);
+                    count++;
+                }
+            }
+        }
+        return OrgChart.build(Arrays.copyOf(ids, count), Arrays.copyOf(managers, count),
+                Arrays.copyOf(statuses, count));
+    }
+    
+    /**
+     * Reloads every {@code minutes} on a daemon thread
+     */
+    public synchronized void startRefresh(long minutes) {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "org-chart-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Org chart reload failed; keeping the previous chart", e);
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Moves an employee, with everyone under them, to a new manager
+     *
+     * @param managerId the new manager, or null to make the employee top level
+     * @throws NoSuchElementException   if the employee does not exist
+     * @throws IllegalArgumentException if the manager does not exist
+     * @throws IllegalStateException    if the manager reports to the employee
+     */
+    public synchronized void changeManager(long employeeId, Long managerId, String modifiedBy) throws SQLException {
+        loadIfMissing(employeeId);
+        if (managerId != null) {
+            loadIfMissing(managerId);
+        }
+        chart.checkManager(employeeId, managerId);
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UPDATE_MANAGER_SQL)) {
+            if (managerId != null) {
+                ps.setLong(1, managerId);
+            } else {
+                ps.setNull(1, Types.NUMERIC);
+            }
+            execute(ps, employeeId, modifiedBy);
+        }
+        apply(c -> c.withManager(employeeId, managerId));
+    }
+    
+    /**
+     * @throws NoSuchElementException   if the employee does not exist
+     * @throws IllegalArgumentException if the status is not ACTIVE, INACTIVE or TERMINATED
+     */
+    public synchronized void changeStatus(long employeeId, String status, String modifiedBy) throws SQLException {
+        if (!OrgChart.isKnownStatus(status)) {
+            throw new IllegalArgumentException("status must be ACTIVE, INACTIVE or TERMINATED");
+        }
+        loadIfMissing(employeeId);
+        if (!chart.contains(employeeId)) {
+            throw new NoSuchElementException("Unknown employee " + employeeId);
+        }
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+            ps.setString(1, status);
+            execute(ps, employeeId, modifiedBy);
+        }
+        apply(c -> c.withStatus(employeeId, status));
+    }
+    
+    /**
+     * Adds an employee inserted since the last reload from their EMPLOYEES row, if there is one. A manager the chart
+     * does not have either is left out, making the employee top level until the next reload, as a reload would
+     */
+    private void loadIfMissing(long employeeId) throws SQLException {
+        if (chart.contains(employeeId)) {
+            return;
+        }
+        Long managerId;
+        String status;
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_ONE_SQL)) {
+            ps.setLong(1, employeeId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                long manager = rs.getLong(1);
+                managerId = rs.wasNull() || manager == employeeId || !chart.contains(manager) ? null : manager;
+                status = rs.getString(2);
+            }
+        }
+        // A reload that already has the row read it later than this did
+        apply(c -> c.contains(employeeId) ? c : c.withEmployee(employeeId, managerId, status));
+    }
+    
+    private static void execute(PreparedStatement ps, long employeeId, String modifiedBy) throws SQLException {
+        ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+        ps.setString(3, modifiedBy);
+        ps.setLong(4, employeeId);
+        if (ps.executeUpdate() == 0) {
+            throw new NoSuchElementException("Unknown employee " + employeeId);
+        }
+    }
+    
+    private void apply(UnaryOperator<OrgChart> change) {
+        chart = change.apply(chart);
+        if (sinceReload != null) {
+            sinceReload.add(change);
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.erp.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row. Quoted fields may contain commas, doubled quotes and line breaks, so records are
+ * split by a character-level scanner rather than by lines
+ */
+public final class CsvRecordReader implements RecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private final List<String> values = new ArrayList<>();
+    private final String[] header;
+    private int position;
+    private int limit;
+    private long rowNumber;
+    private boolean unterminated;
+    
+    public CsvRecordReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> names = readRow();
+        if (names == null) {
+            throw new IOException("CSV input is empty; a header row is required");
+        }
+        this.header = new String[names.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = SourceRecord.columnName(names.get(i));
+        }
+    }
+    
+    @Override
+    public SourceRecord next() throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isEmpty() && !unterminated);
+        if (unterminated) {
+            return SourceRecord.malformed(++rowNumber, "has a quoted field that is never closed");
+        }
+        if (row.size() != header.length) {
+            return SourceRecord.malformed(++rowNumber,
+                    "has " + row.size() + " fields, header has " + header.length);
+        }
+        Map<String, String> fields = new HashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) {
+            fields.put(header[i], row.get(i));
+        }
+        return new SourceRecord(++rowNumber, fields);
+    }
+    
+    /**
+     * Reads one physical record, or returns null at end of input
+     */
+    private List<String> readRow() throws IOException {
+        values.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean any = false;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (!any) {
+                    return null;
+                }
+                unterminated = quoted;
+                values.add(field.toString());
+                return new ArrayList<>(values);
+            }
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    int nextChar = peek();
+                    if (nextChar == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                values.add(field.toString());
+                return new ArrayList<>(values);
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+    
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+    
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+    
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
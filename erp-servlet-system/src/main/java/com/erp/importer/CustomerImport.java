@@ -0,0 +1,153 @@
+package com.erp.importer;
+
+import com.erp.model.Customer;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * CUSTOMERS import. GST and PAN numbers are checked for format, the GSTIN check character is verified, and a
+ * customer with both must carry its PAN inside its GSTIN
+ */
+public final class CustomerImport implements ImportTarget<Customer> {
+    private static final Pattern PAN = Pattern.compile("[A-Z]{5}[0-9]{4}[A-Z]");
+    private static final Pattern GSTIN = Pattern.compile("[0-9]{2}[A-Z]{5}[0-9]{4}[A-Z][1-9A-Z]Z[0-9A-Z]");
+    private static final String GSTIN_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final Set<String> TYPES = Set.of("INDIVIDUAL", "CORPORATE", "DEALER", "DISTRIBUTOR");
+    private static final Set<String> STATUSES = Set.of("ACTIVE", "INACTIVE", "BLOCKED");
+    private static final List<String> COLUMNS = List.of(
+            "CUSTOMER_CODE", "COMPANY_NAME", "CONTACT_PERSON", "EMAIL", "PHONE", "MOBILE", "ADDRESS", "CITY",
+            "STATE", "COUNTRY", "PINCODE", "GST_NUMBER", "PAN_NUMBER", "CUSTOMER_TYPE", "CREDIT_LIMIT",
+            "CREDIT_DAYS", "STATUS", "CREATED_DATE", "CREATED_BY");
+    
+    private final String createdBy;
+    
+    public CustomerImport(String createdBy) {
+        this.createdBy = createdBy;
+    }
+    
+    @Override
+    public String getTable() {
+        return "CUSTOMERS";
+    }
+    
+    @Override
+    public String getIdColumn() {
+        return "CUSTOMER_ID";
+    }
+    
+    @Override
+    public List<String> getColumns() {
+        return COLUMNS;
+    }
+    
+    @Override
+    public Customer parse(SourceRecord r) {
+        Customer customer = new Customer();
+        customer.setCustomerId(r.getLong("CUSTOMER_ID"));
+        customer.setCustomerCode(r.getString("CUSTOMER_CODE"));
+        customer.setCompanyName(r.getString("COMPANY_NAME"));
+        customer.setContactPerson(r.getString("CONTACT_PERSON"));
+        customer.setEmail(r.getString("EMAIL"));
+        customer.setPhone(r.getString("PHONE"));
+        customer.setMobile(r.getString("MOBILE"));
+        customer.setAddress(r.getString("ADDRESS"));
+        customer.setCity(r.getString("CITY"));
+        customer.setState(r.getString("STATE"));
+        customer.setCountry(r.getString("COUNTRY"));
+        customer.setPincode(r.getString("PINCODE"));
+        customer.setGstNumber(r.getUpperCase("GST_NUMBER"));
+        customer.setPanNumber(r.getUpperCase("PAN_NUMBER"));
+        customer.setCustomerType(r.getUpperCase("CUSTOMER_TYPE"));
+        customer.setCreditLimit(r.getBigDecimal("CREDIT_LIMIT"));
+        customer.setCreditDays(r.getInteger("CREDIT_DAYS"));
+        String status = r.getUpperCase("STATUS");
+        customer.setStatus(status != null ? status : "ACTIVE");
+        LocalDateTime created = r.getLocalDateTime("CREATED_DATE");
+        customer.setCreatedDate(created != null ? created : LocalDateTime.now());
+        customer.setCreatedBy(createdBy);
+        return customer;
+    }
+    
+    @Override
+    public void validate(Customer c, SourceRecord record, List<String> errors) {
+        if (c.getCustomerCode() == null) {
+            errors.add("CUSTOMER_CODE is required");
+        }
+        if (c.getCompanyName() == null) {
+            errors.add("COMPANY_NAME is required");
+        }
+        String pan = c.getPanNumber();
+        if (pan != null && !PAN.matcher(pan).matches()) {
+            errors.add("PAN_NUMBER '" + pan + "' is not a valid PAN");
+        }
+        String gstin = c.getGstNumber();
+        if (gstin != null) {
+            if (!GSTIN.matcher(gstin).matches()) {
+                errors.add("GST_NUMBER '" + gstin + "' is not a valid GSTIN");
+            } else if (gstin.charAt(14) != gstinCheckChar(gstin)) {
+                errors.add("GST_NUMBER '" + gstin + "' has a wrong check character");
+            } else if (pan != null && !gstin.regionMatches(2, pan, 0, 10)) {
+                errors.add("GST_NUMBER '" + gstin + "' does not contain PAN_NUMBER '" + pan + "'");
+            }
+        }
+        if (c.getCustomerType() != null && !TYPES.contains(c.getCustomerType())) {
+            errors.add("CUSTOMER_TYPE must be one of " + TYPES);
+        }
+        if (!STATUSES.contains(c.getStatus())) {
+            errors.add("STATUS must be one of " + STATUSES);
+        }
+        if (c.getCreditLimit() != null && c.getCreditLimit().compareTo(BigDecimal.ZERO) < 0) {
+            errors.add("CREDIT_LIMIT must not be negative");
+        }
+        if (c.getCreditDays() != null && c.getCreditDays() < 0) {
+            errors.add("CREDIT_DAYS must not be negative");
+        }
+    }
+    
+    /**
+     * GSTIN check character: base-36 digits of the first 14 characters weighted alternately by 1 and 2, with each
+     * product's base-36 digits summed
+     */
+    static char gstinCheckChar(String gstin) {
+        int sum = 0;
+        for (int i = 0; i < 14; i++) {
+            int product = GSTIN_CHARS.indexOf(gstin.charAt(i)) * (i % 2 == 0 ? 1 : 2);
+            sum += product / 36 + product % 36;
+        }
+        return GSTIN_CHARS.charAt((36 - sum % 36) % 36);
+    }
+    
+    @Override
+    public Long getId(Customer entity) {
+        return entity.getCustomerId();
+    }
+    
+    @Override
+    public void bind(PreparedStatement ps, int i, Customer c) throws SQLException {
+        Params.setString(ps, i++, c.getCustomerCode());
+        Params.setString(ps, i++, c.getCompanyName());
+        Params.setString(ps, i++, c.getContactPerson());
+        Params.setString(ps, i++, c.getEmail());
+        Params.setString(ps, i++, c.getPhone());
+        Params.setString(ps, i++, c.getMobile());
+        Params.setString(ps, i++, c.getAddress());
+        Params.setString(ps, i++, c.getCity());
+        Params.setString(ps, i++, c.getState());
+        Params.setString(ps, i++, c.getCountry());
+        Params.setString(ps, i++, c.getPincode());
+        Params.setString(ps, i++, c.getGstNumber());
+        Params.setString(ps, i++, c.getPanNumber());
+        Params.setString(ps, i++, c.getCustomerType());
+        Params.setBigDecimal(ps, i++, c.getCreditLimit());
+        Params.setInteger(ps, i++, c.getCreditDays());
+        Params.setString(ps, i++, c.getStatus());
+        Params.setLocalDateTime(ps, i++, c.getCreatedDate());
+        Params.setString(ps, i, c.getCreatedBy());
+    }
+}
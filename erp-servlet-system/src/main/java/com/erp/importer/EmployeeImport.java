@@ -0,0 +1,164 @@
+package com.erp.importer;
+
+import com.erp.model.Employee;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * EMPLOYEES import. A MANAGER_ID must name an employee already in the database or one given earlier in the same
+ * file, so that managers are always inserted before their reports
+ */
+public final class EmployeeImport implements ImportTarget<Employee> {
+    private static final Set<String> STATUSES = Set.of("ACTIVE", "INACTIVE", "TERMINATED");
+    private static final List<String> COLUMNS = List.of(
+            "EMPLOYEE_CODE", "FIRST_NAME", "LAST_NAME", "EMAIL", "PHONE", "DEPARTMENT", "DESIGNATION", "SALARY",
+            "JOINING_DATE", "STATUS", "MANAGER_ID", "ADDRESS", "CREATED_DATE", "CREATED_BY");
+    
+    private final String createdBy;
+    private Set<Long> existingIds = Set.of();
+    // EMPLOYEE_ID -> first row giving it, filled by the reader ahead of validation
+    private final ConcurrentMap<Long, Long> fileIds = new ConcurrentHashMap<>();
+    
+    public EmployeeImport(String createdBy) {
+        this.createdBy = createdBy;
+    }
+    
+    @Override
+    public String getTable() {
+        return "EMPLOYEES";
+    }
+    
+    @Override
+    public String getIdColumn() {
+        return "EMPLOYEE_ID";
+    }
+    
+    @Override
+    public List<String> getColumns() {
+        return COLUMNS;
+    }
+    
+    @Override
+    public void prepare(Connection connection) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT EMPLOYEE_ID FROM EMPLOYEES")) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        existingIds = ids;
+    }
+    
+    @Override
+    public void onRead(SourceRecord record) {
+        if (record.getMalformedReason() != null) {
+            return;
+        }
+        try {
+            Long id = record.getLong("EMPLOYEE_ID");
+            if (id != null) {
+                fileIds.putIfAbsent(id, record.getRowNumber());
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported when the record is parsed
+        }
+    }
+    
+    @Override
+    public Employee parse(SourceRecord r) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(r.getLong("EMPLOYEE_ID"));
+        employee.setEmployeeCode(r.getUpperCase("EMPLOYEE_CODE"));
+        employee.setFirstName(r.getString("FIRST_NAME"));
+        employee.setLastName(r.getString("LAST_NAME"));
+        employee.setEmail(r.getString("EMAIL"));
+        employee.setPhone(r.getString("PHONE"));
+        employee.setDepartment(r.getString("DEPARTMENT"));
+        employee.setDesignation(r.getString("DESIGNATION"));
+        employee.setSalary(r.getBigDecimal("SALARY"));
+        employee.setJoiningDate(r.getLocalDate("JOINING_DATE"));
+        String status = r.getUpperCase("STATUS");
+        employee.setStatus(status != null ? status : "ACTIVE");
+        employee.setManagerId(r.getLong("MANAGER_ID"));
+        employee.setAddress(r.getString("ADDRESS"));
+        LocalDateTime created = r.getLocalDateTime("CREATED_DATE");
+        employee.setCreatedDate(created != null ? created : LocalDateTime.now());
+        employee.setCreatedBy(createdBy);
+        return employee;
+    }
+    
+    @Override
+    public void validate(Employee e, SourceRecord record, List<String> errors) {
+        if (e.getEmployeeCode() == null) {
+            errors.add("EMPLOYEE_CODE is required");
+        }
+        if (e.getFirstName() == null) {
+            errors.add("FIRST_NAME is required");
+        }
+        if (e.getSalary() != null && e.getSalary().compareTo(BigDecimal.ZERO) < 0) {
+            errors.add("SALARY must not be negative");
+        }
+        if (!STATUSES.contains(e.getStatus())) {
+            errors.add("STATUS must be one of " + STATUSES);
+        }
+        
+        Long id = e.getEmployeeId();
+        long row = record.getRowNumber();
+        if (id != null) {
+            if (existingIds.contains(id)) {
+                errors.add("EMPLOYEE_ID " + id + " already exists");
+            }
+            Long firstRow = fileIds.get(id);
+            if (firstRow != null && firstRow != row) {
+                errors.add("EMPLOYEE_ID " + id + " is already given in row " + firstRow);
+            }
+        }
+        Long managerId = e.getManagerId();
+        if (managerId != null && !existingIds.contains(managerId)) {
+            Long managerRow = fileIds.get(managerId);
+            if (managerId.equals(id)) {
+                errors.add("MANAGER_ID must not be the employee's own id");
+            } else if (managerRow == null) {
+                errors.add("MANAGER_ID " + managerId + " does not exist");
+            } else if (managerRow > row) {
+                errors.add("MANAGER_ID " + managerId + " is given later, in row " + managerRow);
+            }
+        }
+    }
+    
+    @Override
+    public Long getId(Employee entity) {
+        return entity.getEmployeeId();
+    }
+    
+    @Override
+    public void bind(PreparedStatement ps, int i, Employee e) throws SQLException {
+        Params.setString(ps, i++, e.getEmployeeCode());
+        Params.setString(ps, i++, e.getFirstName());
+        Params.setString(ps, i++, e.getLastName());
+        Params.setString(ps, i++, e.getEmail());
+        Params.setString(ps, i++, e.getPhone());
+        Params.setString(ps, i++, e.getDepartment());
+        Params.setString(ps, i++, e.getDesignation());
+        Params.setBigDecimal(ps, i++, e.getSalary());
+        Params.setLocalDate(ps, i++, e.getJoiningDate());
+        Params.setString(ps, i++, e.getStatus());
+        Params.setLong(ps, i++, e.getManagerId());
+        Params.setString(ps, i++, e.getAddress());
+        Params.setLocalDateTime(ps, i++, e.getCreatedDate());
+        Params.setString(ps, i, e.getCreatedBy());
+    }
+}
@@ -0,0 +1,114 @@
+package com.erp.importer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Progress of one import, keyed by the absolute path of its input file, kept in
+ * <pre>
+ * CREATE TABLE IMPORT_CHECKPOINT (SOURCE VARCHAR2(1000) PRIMARY KEY, ENTITY VARCHAR2(30) NOT NULL,
+ *     LAST_ROW NUMBER NOT NULL, INSERTED NUMBER NOT NULL, REJECTED NUMBER NOT NULL)
+ * </pre>
+ * Each chunk's rows and its checkpoint update commit in one transaction, so everything up to {@link #getRow()} is
+ * in the database or in the rejects file and a restarted import skips exactly those records.
+ * <p>
+ * Rejects are written before that commit, so a crash between the two can leave a chunk's rejects in the file twice
+ * rather than lose them
+ */
+final class ImportCheckpoint {
+    private static final String READ_SQL =
+            "SELECT ENTITY, LAST_ROW, INSERTED, REJECTED FROM IMPORT_CHECKPOINT WHERE SOURCE = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO IMPORT_CHECKPOINT (SOURCE, ENTITY, LAST_ROW, INSERTED, REJECTED) VALUES (?, ?, 0, 0, 0)";
+    private static final String UPDATE_SQL =
+            "UPDATE IMPORT_CHECKPOINT SET LAST_ROW = ?, INSERTED = ?, REJECTED = ? WHERE SOURCE = ?";
+    private static final String DELETE_SQL = "DELETE FROM IMPORT_CHECKPOINT WHERE SOURCE = ?";
+    
+    private final String source;
+    private long row;
+    private long inserted;
+    private long rejected;
+    
+    private ImportCheckpoint(String source) {
+        this.source = source;
+    }
+    
+    /**
+     * Loads the checkpoint for {@code input}, or starts a new one if there is none, and commits
+     *
+     * @throws IOException if the checkpoint belongs to a different entity
+     */
+    static ImportCheckpoint open(Connection connection, Path input, String entity) throws SQLException, IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(source(input));
+        try (PreparedStatement ps = connection.prepareStatement(READ_SQL)) {
+            ps.setString(1, checkpoint.source);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    if (!entity.equals(rs.getString(1))) {
+                        throw new IOException("Checkpoint for " + checkpoint.source + " is for " + rs.getString(1)
+                                + "; pass --restart to discard it");
+                    }
+                    checkpoint.row = rs.getLong(2);
+                    checkpoint.inserted = rs.getLong(3);
+                    checkpoint.rejected = rs.getLong(4);
+                    return checkpoint;
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            ps.setString(1, checkpoint.source);
+            ps.setString(2, entity);
+            ps.executeUpdate();
+        }
+        connection.commit();
+        return checkpoint;
+    }
+    
+    /**
+     * Removes any checkpoint for {@code input} and commits
+     */
+    static void delete(Connection connection, Path input) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(DELETE_SQL)) {
+            ps.setString(1, source(input));
+            ps.executeUpdate();
+        }
+        connection.commit();
+    }
+    
+    /**
+     * Records progress through {@code row} in the connection's current transaction; the caller commits it with the
+     * chunk it covers
+     */
+    void advance(Connection connection, long row, long inserted, long rejected) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_SQL)) {
+            ps.setLong(1, row);
+            ps.setLong(2, this.inserted + inserted);
+            ps.setLong(3, this.rejected + rejected);
+            ps.setString(4, source);
+            ps.executeUpdate();
+        }
+        this.row = row;
+        this.inserted += inserted;
+        this.rejected += rejected;
+    }
+    
+    long getRow() {
+        return row;
+    }
+    
+    long getInserted() {
+        return inserted;
+    }
+    
+    long getRejected() {
+        return rejected;
+    }
+    
+    private static String source(Path input) {
+        return input.toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,464 @@
+package com.erp.importer;
+
+import com.erp.config.DatabaseConfig;
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk import of customer, employee or product master data from CSV or NDJSON.
+ * <p>
+ * Three stages run concurrently, connected by bounded queues:
+ * <ol>
+ * <li>one reader streams records from the file and groups them into chunks of {@code batchSize}</li>
+ * <li>{@code validators} threads parse and validate chunks in parallel</li>
+ * <li>the calling thread inserts each chunk as one JDBC batch, in file order, and commits it in one transaction with
+ * the {@link ImportCheckpoint}</li>
+ * </ol>
+ * At most {@code 4 * validators} chunks are in flight at once, so a slow database stalls the reader instead of
+ * filling the heap. Rejected records go to the rejects file with their row number and reasons. If a batch fails,
+ * its rows are retried one by one so only the offending rows are rejected.
+ * <pre>
+ * java -cp erp-servlet-system.jar com.erp.importer.ImportPipeline --entity customer --file customers.csv
+ * </pre>
+ */
+public final class ImportPipeline<T> {
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+    private static final long PROGRESS_INTERVAL_SECONDS = 10;
+    
+    private final ImportTarget<T> target;
+    private final String entity;
+    private final Path input;
+    private final boolean ndjson;
+    private final Path rejectsFile;
+    private final int batchSize;
+    private final int validators;
+    
+    private final StageStats readStats = new StageStats("read", 1);
+    private final StageStats validateStats;
+    private final StageStats writeStats = new StageStats("write", 1);
+    private final AtomicReference<Throwable> readFailure = new AtomicReference<>();
+    
+    public ImportPipeline(ImportTarget<T> target, String entity, Path input, boolean ndjson, int batchSize,
+                          int validators) {
+        this.target = target;
+        this.entity = entity;
+        this.input = input;
+        this.ndjson = ndjson;
+        this.rejectsFile = input.resolveSibling(input.getFileName() + ".rejects");
+        this.batchSize = batchSize;
+        this.validators = validators;
+        this.validateStats = new StageStats("validate", validators);
+    }
+    
+    /**
+     * Records read from the file, in file order, numbered so the writer can restore that order
+     */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1, List.of());
+        
+        final long seq;
+        final List<SourceRecord> records;
+        
+        Chunk(long seq, List<SourceRecord> records) {
+            this.seq = seq;
+            this.records = records;
+        }
+    }
+    
+    private static final class ValidatedChunk<T> {
+        final long seq;
+        final long lastRow;
+        final List<T> rows = new ArrayList<>();
+        final List<Long> rowNumbers = new ArrayList<>();
+        final List<String> rejects = new ArrayList<>();
+        
+        ValidatedChunk(long seq, long lastRow) {
+            this.seq = seq;
+            this.lastRow = lastRow;
+        }
+    }
+    
+    /**
+     * Totals for the whole import, including rows handled by earlier runs that this one resumed from
+     */
+    public static final class Result {
+        private final long lastRow;
+        private final long inserted;
+        private final long rejected;
+        
+        Result(long lastRow, long inserted, long rejected) {
+            this.lastRow = lastRow;
+            this.inserted = inserted;
+            this.rejected = rejected;
+        }
+        
+        public long getLastRow() { return lastRow; }
+        public long getInserted() { return inserted; }
+        public long getRejected() { return rejected; }
+    }
+    
+    /**
+     * Runs the import to the end of the file, resuming after the last checkpointed row if there is one
+     *
+     * @param restart discard any existing checkpoint and rejects file and start from the first record
+     */
+    public Result run(boolean restart) throws IOException, SQLException, InterruptedException {
+        long start = System.nanoTime();
+        Connection connection = DatabaseUtil.getConnection();
+        ExecutorService workers = Executors.newFixedThreadPool(validators + 1, namedThreads("import-"));
+        ScheduledExecutorService progress =
+                Executors.newSingleThreadScheduledExecutor(namedThreads("import-progress-"));
+        ImportCheckpoint checkpoint;
+        try {
+            connection.setAutoCommit(false);
+            if (restart) {
+                ImportCheckpoint.delete(connection, input);
+                Files.deleteIfExists(rejectsFile);
+            }
+            checkpoint = ImportCheckpoint.open(connection, input, entity);
+            if (checkpoint.getRow() > 0) {
+                logger.info("Resuming {} import of {} after row {}", entity, input, checkpoint.getRow());
+            }
+            target.prepare(connection);
+            
+            try (BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(validators * 2);
+                BlockingQueue<ValidatedChunk<T>> validated = new LinkedBlockingQueue<>();
+                Semaphore inFlight = new Semaphore(validators * 4);
+                long resumeAfter = checkpoint.getRow();
+                workers.execute(() -> read(resumeAfter, parsed, inFlight));
+                for (int i = 0; i < validators; i++) {
+                    workers.execute(() -> validate(parsed, validated));
+                }
+                progress.scheduleAtFixedRate(() -> logProgress(start), PROGRESS_INTERVAL_SECONDS,
+                        PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                
+                write(connection, validated, inFlight, rejects, checkpoint);
+            }
+        } catch (IOException | SQLException | InterruptedException | RuntimeException e) {
+            // Oracle commits an open transaction on close, which would keep a chunk its checkpoint does not cover
+            DatabaseUtil.rollbackTransaction(connection);
+            throw e;
+        } finally {
+            progress.shutdownNow();
+            workers.shutdownNow();
+            DatabaseUtil.closeConnection(connection);
+        }
+        
+        logProgress(start);
+        Throwable failure = readFailure.get();
+        if (failure != null) {
+            throw new IOException("Import stopped after row " + checkpoint.getRow() + ": " + failure.getMessage(),
+                    failure);
+        }
+        logger.info("Imported {} {} rows from {}, {} rejected (see {})", checkpoint.getInserted(), entity, input,
+                checkpoint.getRejected(), rejectsFile);
+        return new Result(checkpoint.getRow(), checkpoint.getInserted(), checkpoint.getRejected());
+    }
+    
+    private void read(long skipThrough, BlockingQueue<Chunk> parsed, Semaphore inFlight) {
+        try (Reader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             RecordReader reader = ndjson ? new NdjsonRecordReader(in) : new CsvRecordReader(in)) {
+            long seq = 0;
+            List<SourceRecord> records = new ArrayList<>(batchSize);
+            long busyStart = System.nanoTime();
+            SourceRecord record;
+            while ((record = reader.next()) != null) {
+                target.onRead(record);
+                if (record.getRowNumber() <= skipThrough) {
+                    continue;
+                }
+                records.add(record);
+                if (records.size() == batchSize) {
+                    readStats.record(records.size(), System.nanoTime() - busyStart);
+                    inFlight.acquire();
+                    parsed.put(new Chunk(seq++, records));
+                    records = new ArrayList<>(batchSize);
+                    busyStart = System.nanoTime();
+                }
+            }
+            readStats.record(records.size(), System.nanoTime() - busyStart);
+            if (!records.isEmpty()) {
+                inFlight.acquire();
+                parsed.put(new Chunk(seq, records));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            readFailure.set(e);
+            logger.error("Reading {} failed", input, e);
+        }
+        try {
+            for (int i = 0; i < validators; i++) {
+                parsed.put(Chunk.END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void validate(BlockingQueue<Chunk> parsed, BlockingQueue<ValidatedChunk<T>> validated) {
+        try {
+            while (true) {
+                Chunk chunk = parsed.take();
+                if (chunk == Chunk.END) {
+                    validated.put(new ValidatedChunk<>(-1, -1));
+                    return;
+                }
+                long busyStart = System.nanoTime();
+                List<SourceRecord> records = chunk.records;
+                ValidatedChunk<T> result = new ValidatedChunk<>(chunk.seq,
+                        records.get(records.size() - 1).getRowNumber());
+                List<String> errors = new ArrayList<>();
+                for (SourceRecord record : records) {
+                    errors.clear();
+                    T entityRow = null;
+                    if (record.getMalformedReason() != null) {
+                        errors.add("record " + record.getMalformedReason());
+                    } else {
+                        try {
+                            entityRow = target.parse(record);
+                            target.validate(entityRow, record, errors);
+                        } catch (RuntimeException e) {
+                            errors.add(String.valueOf(e.getMessage()));
+                        }
+                    }
+                    if (errors.isEmpty()) {
+                        result.rows.add(entityRow);
+                        result.rowNumbers.add(record.getRowNumber());
+                    } else {
+                        result.rejects.add(rejectLine(record.getRowNumber(), String.join("; ", errors)));
+                    }
+                }
+                validateStats.record(records.size(), System.nanoTime() - busyStart);
+                validated.put(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Commits chunks strictly in file order, each with its checkpoint; chunks validated early wait in
+     * {@code pending} for their turn. A chunk's rejects are flushed before its commit, so they are never lost to a
+     * crash after it
+     */
+    private void write(Connection connection, BlockingQueue<ValidatedChunk<T>> validated, Semaphore inFlight,
+                       BufferedWriter rejects, ImportCheckpoint checkpoint)
+            throws SQLException, IOException, InterruptedException {
+        Map<Long, ValidatedChunk<T>> pending = new HashMap<>();
+        long nextSeq = 0;
+        int finishedValidators = 0;
+        try (PreparedStatement withId = connection.prepareStatement(insertSql(true));
+             PreparedStatement withoutId = connection.prepareStatement(insertSql(false))) {
+            while (finishedValidators < validators) {
+                ValidatedChunk<T> chunk = validated.take();
+                if (chunk.seq < 0) {
+                    finishedValidators++;
+                    continue;
+                }
+                pending.put(chunk.seq, chunk);
+                ValidatedChunk<T> next;
+                while ((next = pending.remove(nextSeq)) != null) {
+                    long busyStart = System.nanoTime();
+                    int total = next.rows.size() + next.rejects.size();
+                    long inserted = insert(connection, withId, withoutId, next);
+                    for (String reject : next.rejects) {
+                        rejects.write(reject);
+                        rejects.newLine();
+                    }
+                    rejects.flush();
+                    checkpoint.advance(connection, next.lastRow, inserted, total - inserted);
+                    connection.commit();
+                    writeStats.record(total, System.nanoTime() - busyStart);
+                    inFlight.release();
+                    nextSeq++;
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException("Chunks " + pending.keySet() + " validated but never written");
+        }
+    }
+    
+    /**
+     * Inserts a chunk in the connection's transaction without committing it, adding the rows the database refused to
+     * {@code chunk.rejects}
+     *
+     * @return rows inserted
+     */
+    private long insert(Connection connection, PreparedStatement withId, PreparedStatement withoutId,
+                        ValidatedChunk<T> chunk) throws SQLException {
+        if (chunk.rows.isEmpty()) {
+            return 0;
+        }
+        try {
+            for (T row : chunk.rows) {
+                addBatch(row, withId, withoutId);
+            }
+            withId.executeBatch();
+            withoutId.executeBatch();
+            return chunk.rows.size();
+        } catch (BatchUpdateException e) {
+            DatabaseUtil.rollbackTransaction(connection);
+            withId.clearBatch();
+            withoutId.clearBatch();
+            logger.debug("Batch ending at row {} failed, retrying row by row", chunk.lastRow, e);
+        }
+        long inserted = 0;
+        for (int i = 0; i < chunk.rows.size(); i++) {
+            T row = chunk.rows.get(i);
+            PreparedStatement statement = target.getId(row) != null ? withId : withoutId;
+            try {
+                bind(row, statement);
+                statement.executeUpdate();
+                inserted++;
+            } catch (SQLException e) {
+                // The failed statement alone is rolled back; earlier rows in the transaction stay
+                chunk.rejects.add(rejectLine(chunk.rowNumbers.get(i), e.getMessage()));
+            }
+        }
+        return inserted;
+    }
+    
+    private void addBatch(T row, PreparedStatement withId, PreparedStatement withoutId) throws SQLException {
+        PreparedStatement statement = target.getId(row) != null ? withId : withoutId;
+        bind(row, statement);
+        statement.addBatch();
+    }
+    
+    private void bind(T row, PreparedStatement statement) throws SQLException {
+        Long id = target.getId(row);
+        if (id != null) {
+            statement.setLong(1, id);
+            target.bind(statement, 2, row);
+        } else {
+            target.bind(statement, 1, row);
+        }
+    }
+    
+    private String insertSql(boolean withId) {
+        List<String> columns = new ArrayList<>(target.getColumns());
+        if (withId) {
+            columns.add(0, target.getIdColumn());
+        }
+        return "INSERT INTO " + target.getTable() + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+    
+    private static String rejectLine(long row, String reason) {
+        return row + "\t" + (reason != null ? reason.replace('\n', ' ') : "unknown error");
+    }
+    
+    private void logProgress(long start) {
+        long elapsed = System.nanoTime() - start;
+        logger.info("{} import: {} | {} | {}", entity, readStats.format(elapsed), validateStats.format(elapsed),
+                writeStats.format(elapsed));
+    }
+    
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Command line entry point:
+     * {@code --entity customer|employee|product --file <path> [--format csv|ndjson] [--batch-size 1000]
+     * [--validators <n>] [--created-by IMPORT] [--restart]}. The format defaults from the file extension
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        boolean restart = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--restart".equals(args[i])) {
+                restart = true;
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                usage("Unexpected argument " + args[i]);
+            }
+        }
+        String entity = options.getOrDefault("entity", "").toLowerCase(Locale.ROOT);
+        String file = options.get("file");
+        if (file == null) {
+            usage("--file is required");
+        }
+        String createdBy = options.getOrDefault("created-by", "IMPORT");
+        ImportTarget<?> target;
+        switch (entity) {
+            case "customer":
+                target = new CustomerImport(createdBy);
+                break;
+            case "employee":
+                target = new EmployeeImport(createdBy);
+                break;
+            case "product":
+                target = new ProductImport(createdBy);
+                break;
+            default:
+                usage("--entity must be customer, employee or product");
+                return;
+        }
+        Path input = Paths.get(file);
+        String format = options.getOrDefault("format",
+                file.endsWith(".ndjson") || file.endsWith(".jsonl") ? "ndjson" : "csv");
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "1000"));
+        int validators = Integer.parseInt(options.getOrDefault("validators",
+                Integer.toString(Math.max(1, Runtime.getRuntime().availableProcessors() - 2))));
+        
+        int status = 0;
+        try {
+            new ImportPipeline<>(target, entity, input, "ndjson".equals(format), batchSize, validators).run(restart);
+        } catch (Exception e) {
+            logger.error("Import failed", e);
+            status = 1;
+        } finally {
+            DatabaseConfig.getInstance().shutdown();
+        }
+        System.exit(status);
+    }
+    
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: ImportPipeline --entity customer|employee|product --file <path>"
+                + " [--format csv|ndjson] [--batch-size 1000] [--validators n] [--created-by IMPORT] [--restart]");
+        System.exit(2);
+    }
+}
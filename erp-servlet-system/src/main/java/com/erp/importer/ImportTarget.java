@@ -0,0 +1,56 @@
+package com.erp.importer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * How one entity type is parsed, validated and inserted by the {@link ImportPipeline}.
+ * <p>
+ * {@link #parse} and {@link #validate} run concurrently on the validation threads and must not share mutable state
+ * except through thread-safe structures; {@link #onRead} runs on the reader thread in file order
+ */
+public interface ImportTarget<T> {
+    
+    String getTable();
+    
+    String getIdColumn();
+    
+    /**
+     * Insert columns other than the id, in the order {@link #bind} sets them
+     */
+    List<String> getColumns();
+    
+    /**
+     * @throws IllegalArgumentException if a field does not parse
+     */
+    T parse(SourceRecord record);
+    
+    /**
+     * Adds a message to {@code errors} for every rule {@code entity} breaks
+     */
+    void validate(T entity, SourceRecord record, List<String> errors);
+    
+    /**
+     * @return the id given in the file, or null to let the database assign one
+     */
+    Long getId(T entity);
+    
+    /**
+     * Binds {@link #getColumns()} starting at parameter {@code firstIndex}
+     */
+    void bind(PreparedStatement statement, int firstIndex, T entity) throws SQLException;
+    
+    /**
+     * Loads whatever validation needs from the database before the first record is read
+     */
+    default void prepare(Connection connection) throws SQLException {
+    }
+    
+    /**
+     * Sees every record in file order, including ones skipped when resuming, before it is validated
+     */
+    default void onRead(SourceRecord record) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.erp.importer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Newline-delimited JSON: one flat object per line. Scalar values are kept as their text, nulls are dropped
+ */
+public final class NdjsonRecordReader implements RecordReader {
+    private final BufferedReader reader;
+    private long rowNumber;
+    
+    public NdjsonRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader
+                ? (BufferedReader) reader
+                : new BufferedReader(reader, 64 * 1024);
+    }
+    
+    @Override
+    public SourceRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        
+        long row = ++rowNumber;
+        JsonElement element;
+        try {
+            element = JsonParser.parseString(line);
+        } catch (JsonSyntaxException e) {
+            return SourceRecord.malformed(row, "is not valid JSON");
+        }
+        if (!element.isJsonObject()) {
+            return SourceRecord.malformed(row, "is not a JSON object");
+        }
+        JsonObject object = element.getAsJsonObject();
+        Map<String, String> fields = new HashMap<>(object.size() * 2);
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonElement value = entry.getValue();
+            if (value.isJsonPrimitive()) {
+                fields.put(SourceRecord.columnName(entry.getKey()), value.getAsString());
+            }
+        }
+        return new SourceRecord(row, fields);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,137 @@
+package com.erp.importer;
+
+import com.erp.model.Product;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PRODUCTS import. Stock quantity and levels must be non-negative, the minimum level may not exceed the maximum,
+ * and opening stock may not exceed the maximum level
+ */
+public final class ProductImport implements ImportTarget<Product> {
+    private static final Set<String> STATUSES = Set.of("ACTIVE", "INACTIVE", "DISCONTINUED");
+    private static final List<String> COLUMNS = List.of(
+            "PRODUCT_CODE", "PRODUCT_NAME", "DESCRIPTION", "CATEGORY", "BRAND", "UNIT_PRICE", "COST_PRICE",
+            "STOCK_QUANTITY", "MIN_STOCK_LEVEL", "MAX_STOCK_LEVEL", "UNIT", "STATUS", "BARCODE", "HSN", "TAX_RATE",
+            "CREATED_DATE", "CREATED_BY");
+    
+    private final String createdBy;
+    
+    public ProductImport(String createdBy) {
+        this.createdBy = createdBy;
+    }
+    
+    @Override
+    public String getTable() {
+        return "PRODUCTS";
+    }
+    
+    @Override
+    public String getIdColumn() {
+        return "PRODUCT_ID";
+    }
+    
+    @Override
+    public List<String> getColumns() {
+        return COLUMNS;
+    }
+    
+    @Override
+    public Product parse(SourceRecord r) {
+        Product product = new Product();
+        product.setProductId(r.getLong("PRODUCT_ID"));
+        product.setProductCode(r.getUpperCase("PRODUCT_CODE"));
+        product.setProductName(r.getString("PRODUCT_NAME"));
+        product.setDescription(r.getString("DESCRIPTION"));
+        product.setCategory(r.getString("CATEGORY"));
+        product.setBrand(r.getString("BRAND"));
+        product.setUnitPrice(r.getBigDecimal("UNIT_PRICE"));
+        product.setCostPrice(r.getBigDecimal("COST_PRICE"));
+        Integer stock = r.getInteger("STOCK_QUANTITY");
+        product.setStockQuantity(stock != null ? stock : 0);
+        product.setMinStockLevel(r.getInteger("MIN_STOCK_LEVEL"));
+        product.setMaxStockLevel(r.getInteger("MAX_STOCK_LEVEL"));
+        product.setUnit(r.getUpperCase("UNIT"));
+        String status = r.getUpperCase("STATUS");
+        product.setStatus(status != null ? status : "ACTIVE");
+        product.setBarcode(r.getString("BARCODE"));
+        product.setHsn(r.getString("HSN"));
+        product.setTaxRate(r.getBigDecimal("TAX_RATE"));
+        LocalDateTime created = r.getLocalDateTime("CREATED_DATE");
+        product.setCreatedDate(created != null ? created : LocalDateTime.now());
+        product.setCreatedBy(createdBy);
+        return product;
+    }
+    
+    @Override
+    public void validate(Product p, SourceRecord record, List<String> errors) {
+        if (p.getProductCode() == null) {
+            errors.add("PRODUCT_CODE is required");
+        }
+        if (p.getProductName() == null) {
+            errors.add("PRODUCT_NAME is required");
+        }
+        if (p.getUnitPrice() == null || p.getUnitPrice().compareTo(BigDecimal.ZERO) < 0) {
+            errors.add("UNIT_PRICE is required and must not be negative");
+        }
+        if (p.getCostPrice() != null && p.getCostPrice().compareTo(BigDecimal.ZERO) < 0) {
+            errors.add("COST_PRICE must not be negative");
+        }
+        int stock = p.getStockQuantity();
+        Integer min = p.getMinStockLevel();
+        Integer max = p.getMaxStockLevel();
+        if (stock < 0) {
+            errors.add("STOCK_QUANTITY must not be negative");
+        }
+        if (min != null && min < 0) {
+            errors.add("MIN_STOCK_LEVEL must not be negative");
+        }
+        if (max != null && max < 0) {
+            errors.add("MAX_STOCK_LEVEL must not be negative");
+        }
+        if (min != null && max != null && min > max) {
+            errors.add("MIN_STOCK_LEVEL " + min + " is above MAX_STOCK_LEVEL " + max);
+        }
+        if (max != null && stock > max) {
+            errors.add("STOCK_QUANTITY " + stock + " is above MAX_STOCK_LEVEL " + max);
+        }
+        if (p.getTaxRate() != null
+                && (p.getTaxRate().signum() < 0 || p.getTaxRate().compareTo(BigDecimal.valueOf(100)) > 0)) {
+            errors.add("TAX_RATE must be between 0 and 100");
+        }
+        if (!STATUSES.contains(p.getStatus())) {
+            errors.add("STATUS must be one of " + STATUSES);
+        }
+    }
+    
+    @Override
+    public Long getId(Product entity) {
+        return entity.getProductId();
+    }
+    
+    @Override
+    public void bind(PreparedStatement ps, int i, Product p) throws SQLException {
+        Params.setString(ps, i++, p.getProductCode());
+        Params.setString(ps, i++, p.getProductName());
+        Params.setString(ps, i++, p.getDescription());
+        Params.setString(ps, i++, p.getCategory());
+        Params.setString(ps, i++, p.getBrand());
+        Params.setBigDecimal(ps, i++, p.getUnitPrice());
+        Params.setBigDecimal(ps, i++, p.getCostPrice());
+        Params.setInteger(ps, i++, p.getStockQuantity());
+        Params.setInteger(ps, i++, p.getMinStockLevel());
+        Params.setInteger(ps, i++, p.getMaxStockLevel());
+        Params.setString(ps, i++, p.getUnit());
+        Params.setString(ps, i++, p.getStatus());
+        Params.setString(ps, i++, p.getBarcode());
+        Params.setString(ps, i++, p.getHsn());
+        Params.setBigDecimal(ps, i++, p.getTaxRate());
+        Params.setLocalDateTime(ps, i++, p.getCreatedDate());
+        Params.setString(ps, i, p.getCreatedBy());
+    }
+}
@@ -0,0 +1,15 @@
+package com.erp.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams records out of an import file one at a time; nothing beyond the current record is held in memory
+ */
+public interface RecordReader extends Closeable {
+    
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    SourceRecord next() throws IOException;
+}
@@ -0,0 +1,130 @@
+package com.erp.importer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One input record: its 1-based position in the file and its fields keyed by column name (e.g. {@code GST_NUMBER}).
+ * Typed getters return null for missing or blank fields and throw {@link IllegalArgumentException} naming the
+ * field when a value does not parse
+ */
+public final class SourceRecord {
+    private final long rowNumber;
+    private final Map<String, String> fields;
+    private final String malformed;
+    
+    SourceRecord(long rowNumber, Map<String, String> fields) {
+        this(rowNumber, fields, null);
+    }
+    
+    private SourceRecord(long rowNumber, Map<String, String> fields, String malformed) {
+        this.rowNumber = rowNumber;
+        this.fields = fields;
+        this.malformed = malformed;
+    }
+    
+    /**
+     * A record that could not be split into fields; it is rejected with {@code reason} instead of stopping the import
+     */
+    static SourceRecord malformed(long rowNumber, String reason) {
+        return new SourceRecord(rowNumber, Map.of(), reason);
+    }
+    
+    public long getRowNumber() {
+        return rowNumber;
+    }
+    
+    /**
+     * @return why the record could not be parsed, or null for a well-formed record
+     */
+    public String getMalformedReason() {
+        return malformed;
+    }
+    
+    public String getString(String column) {
+        String value = fields.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    /**
+     * For codes and enumerated values, which are compared in upper case
+     */
+    public String getUpperCase(String column) {
+        String value = getString(column);
+        return value != null ? value.toUpperCase(Locale.ROOT) : null;
+    }
+    
+    public Long getLong(String column) {
+        String value = getString(column);
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value);
+        }
+    }
+    
+    public Integer getInteger(String column) {
+        String value = getString(column);
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value);
+        }
+    }
+    
+    public BigDecimal getBigDecimal(String column) {
+        String value = getString(column);
+        try {
+            return value != null ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value);
+        }
+    }
+    
+    public LocalDate getLocalDate(String column) {
+        String value = getString(column);
+        try {
+            return value != null ? LocalDate.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(column, value);
+        }
+    }
+    
+    public LocalDateTime getLocalDateTime(String column) {
+        String value = getString(column);
+        try {
+            return value != null ? LocalDateTime.parse(value.replace(' ', 'T')) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(column, value);
+        }
+    }
+    
+    private static IllegalArgumentException invalid(String column, String value) {
+        return new IllegalArgumentException(column + ": cannot parse '" + value + "'");
+    }
+    
+    /**
+     * Normalizes a header or JSON key to the table's column name: {@code gstNumber}, {@code gst_number} and
+     * {@code GST_NUMBER} all become {@code GST_NUMBER}
+     */
+    static String columnName(String key) {
+        StringBuilder name = new StringBuilder(key.length() + 4);
+        String trimmed = key.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(trimmed.charAt(i - 1))) {
+                name.append('_');
+            }
+            name.append(c == ' ' || c == '-' ? '_' : Character.toUpperCase(c));
+        }
+        return name.toString();
+    }
+}
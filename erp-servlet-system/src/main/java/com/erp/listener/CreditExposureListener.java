@@ -0,0 +1,46 @@
+package com.erp.listener;
+
+import com.erp.credit.CreditExposureEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.sql.SQLException;
+import java.time.Clock;
+
+/**
+ * Loads the {@link CreditExposureEngine} and publishes it as a context attribute, so order entry and the credit
+ * endpoints share one set of balances.
+ * <p>
+ * {@code erp.credit.exposure.query} supplies the outstanding-balance query and {@code erp.credit.reconcile.minutes}
+ * (default 5) how often it runs
+ */
+@WebListener
+public class CreditExposureListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(CreditExposureListener.class);
+    public static final String ATTRIBUTE = CreditExposureEngine.class.getName();
+    
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        String exposureQuery = System.getProperty("erp.credit.exposure.query");
+        if (exposureQuery == null) {
+            logger.error("erp.credit.exposure.query is not set; every credit check answers BALANCE_UNAVAILABLE");
+        }
+        CreditExposureEngine engine = new CreditExposureEngine(exposureQuery, Clock.systemDefaultZone());
+        try {
+            engine.reconcile();
+        } catch (SQLException e) {
+            // Every check answers BALANCE_UNAVAILABLE until the next scheduled run succeeds
+            logger.error("Initial credit load failed", e);
+        }
+        engine.startReconcile(Long.getLong("erp.credit.reconcile.minutes", 5));
+        sce.getServletContext().setAttribute(ATTRIBUTE, engine);
+    }
+    
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        DatabaseLifecycleListener.closeAttribute(sce.getServletContext(), ATTRIBUTE);
+    }
+}
@@ -0,0 +1,52 @@
+package com.erp.listener;
+
+import com.erp.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Warms up the connection pool before the application takes traffic and drains it on undeploy.
+ * <p>
+ * Annotated listeners are destroyed in no particular order, so before draining the pool this closes the services
+ * that still write through it: the stock ledger flushes its journal to PRODUCTS on close. Each is removed from the
+ * context as it is closed, and its own listener skips whatever is already gone
+ */
+@WebListener
+public class DatabaseLifecycleListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseLifecycleListener.class);
+    
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        DatabaseConfig.getInstance().warmUp();
+    }
+    
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ServletContext context = sce.getServletContext();
+        closeAttribute(context, StockLedgerListener.LOW_STOCK_ATTRIBUTE);
+        closeAttribute(context, StockLedgerListener.ATTRIBUTE);
+        closeAttribute(context, ProductLookupListener.ATTRIBUTE);
+        closeAttribute(context, CreditExposureListener.ATTRIBUTE);
+        DatabaseConfig.getInstance().shutdown();
+    }
+    
+    /**
+     * Removes a context attribute and closes it, once, whichever listener gets there first
+     */
+    static void closeAttribute(ServletContext context, String name) {
+        Object service = context.getAttribute(name);
+        if (service != null) {
+            context.removeAttribute(name);
+            try {
+                ((AutoCloseable) service).close();
+            } catch (Exception e) {
+                logger.error("Error closing {}", name, e);
+            }
+        }
+    }
+}
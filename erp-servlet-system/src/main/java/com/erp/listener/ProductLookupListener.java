@@ -0,0 +1,38 @@
+package com.erp.listener;
+
+import com.erp.lookup.ProductLookup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.sql.SQLException;
+
+/**
+ * Loads the point-of-sale {@link ProductLookup} and publishes it as a context attribute; it is rebuilt from the
+ * PRODUCTS table every {@code erp.lookup.refresh.minutes} (default 60)
+ */
+@WebListener
+public class ProductLookupListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductLookupListener.class);
+    public static final String ATTRIBUTE = ProductLookup.class.getName();
+    
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        ProductLookup lookup = new ProductLookup();
+        try {
+            lookup.reload();
+        } catch (SQLException e) {
+            // Lookups miss until the next scheduled reload succeeds
+            logger.error("Initial product lookup load failed", e);
+        }
+        lookup.startRefresh(Long.getLong("erp.lookup.refresh.minutes", 60));
+        sce.getServletContext().setAttribute(ATTRIBUTE, lookup);
+    }
+    
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        DatabaseLifecycleListener.closeAttribute(sce.getServletContext(), ATTRIBUTE);
+    }
+}
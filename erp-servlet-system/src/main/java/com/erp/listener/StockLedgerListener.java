@@ -0,0 +1,51 @@
+package com.erp.listener;
+
+import com.erp.stock.LowStockMonitor;
+import com.erp.stock.StockLedger;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Opens the {@link StockLedger}, replaying its journal, and publishes it and its {@link LowStockMonitor} as context
+ * attributes. Deployment fails if the journal cannot be replayed, since taking orders on stale stock would
+ * oversell.
+ * <p>
+ * System properties: {@code erp.stock.journal.dir} (default {@code ~/erp-stock-journal}),
+ * {@code erp.stock.reservation.ttl.seconds} (default 900), {@code erp.stock.flush.millis} (default 1000) and
+ * {@code erp.stock.lowstock.debounce.seconds} (default 30)
+ */
+@WebListener
+public class StockLedgerListener implements ServletContextListener {
+    public static final String ATTRIBUTE = StockLedger.class.getName();
+    public static final String LOW_STOCK_ATTRIBUTE = LowStockMonitor.class.getName();
+    
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        String directory = System.getProperty("erp.stock.journal.dir",
+                Paths.get(System.getProperty("user.home"), "erp-stock-journal").toString());
+        Duration ttl = Duration.ofSeconds(Long.getLong("erp.stock.reservation.ttl.seconds", 900));
+        long flushMillis = Long.getLong("erp.stock.flush.millis", 1000);
+        Duration debounce = Duration.ofSeconds(Long.getLong("erp.stock.lowstock.debounce.seconds", 30));
+        try {
+            StockLedger ledger = StockLedger.open(Paths.get(directory), ttl, flushMillis, Clock.systemUTC());
+            sce.getServletContext().setAttribute(ATTRIBUTE, ledger);
+            sce.getServletContext().setAttribute(LOW_STOCK_ATTRIBUTE, new LowStockMonitor(ledger, debounce,
+                    Clock.systemUTC()));
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Cannot open the stock ledger in " + directory, e);
+        }
+    }
+    
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        DatabaseLifecycleListener.closeAttribute(sce.getServletContext(), LOW_STOCK_ATTRIBUTE);
+        DatabaseLifecycleListener.closeAttribute(sce.getServletContext(), ATTRIBUTE);
+    }
+}
@@ -0,0 +1,443 @@
+package com.erp.lookup;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Product price and tax fields in direct memory, found by barcode, product code or id through open-addressing hash
+ * tables, so millions of products cost the heap a few objects and the collector nothing to trace.
+ * <p>
+ * Layout:
+ * <ul>
+ *     <li>records: 40 bytes per product - version, tax rate in basis points, product id, unit price in paise,
+ *     references to the barcode, product code and HSN in the key area, and a live flag</li>
+ *     <li>keys: append-only UTF-8 strings, each prefixed with its 2-byte length; a string is never changed once
+ *     written, so a reference read from a record always points at complete bytes</li>
+ *     <li>three tables of 8-byte slots (record reference, key hash) probed linearly; a removed key leaves a
+ *     tombstone so lookups keep probing past it</li>
+ * </ul>
+ * One writer at a time (the caller serializes {@link #upsert} and {@link #remove}); any number of lock-free
+ * readers. A slot's record reference is published with a release store after the hash and the record are written.
+ * An updated record is guarded by a sequence lock: the writer makes its version odd while writing, and a reader
+ * that sees an odd or changed version reads it again.
+ * <p>
+ * Capacity is fixed when the index is created; when {@link #upsert} reports it is full, build a larger one with
+ * {@link #copy}
+ */
+final class OffHeapProductIndex {
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    
+    private static final int RECORD_BYTES = 40;
+    private static final int VERSION = 0;
+    private static final int TAX_RATE = 4;
+    private static final int PRODUCT_ID = 8;
+    private static final int UNIT_PRICE = 16;
+    private static final int BARCODE = 24;
+    private static final int PRODUCT_CODE = 28;
+    private static final int HSN = 32;
+    private static final int LIVE = 36;
+    
+    private static final int SLOT_BYTES = 8;
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    private static final double MAX_LOAD = 0.7;
+    
+    private static final int NO_KEY = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_TAX_RATE = Integer.MIN_VALUE;
+    
+    private final ByteBuffer records;
+    private final int recordCapacity;
+    private final ByteBuffer keys;
+    private final Table byId;
+    private final Table byBarcode;
+    private final Table byProductCode;
+    // Writer-only state
+    private int recordCount;
+    private int keyTop;
+    private int liveCount;
+    
+    /**
+     * @param recordCapacity distinct product ids the index can hold; upserting or removing a product again reuses
+     *                       its record
+     * @param keyBytes       bytes for barcode, product code and HSN strings, including two per string
+     */
+    OffHeapProductIndex(int recordCapacity, int keyBytes) {
+        this.recordCapacity = recordCapacity;
+        this.records = ByteBuffer.allocateDirect(Math.multiplyExact(recordCapacity, RECORD_BYTES))
+                .order(ByteOrder.nativeOrder());
+        this.keys = ByteBuffer.allocateDirect(keyBytes).order(ByteOrder.nativeOrder());
+        int slots = tableSize(recordCapacity);
+        this.byId = new Table(slots);
+        this.byBarcode = new Table(slots);
+        this.byProductCode = new Table(slots);
+    }
+    
+    private static int tableSize(int entries) {
+        long wanted = (long) Math.ceil(Math.max(entries, 16) / MAX_LOAD);
+        if (wanted > 1 << 30) {
+            throw new IllegalArgumentException("Too many products for one index: " + entries);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+    
+    int size() {
+        return liveCount;
+    }
+    
+    long offHeapBytes() {
+        return records.capacity() + (long) keys.capacity() + 3L * byId.slots.capacity();
+    }
+    
+    // ---- reads, any thread ----
+    
+    PriceRecord findByBarcode(String barcode) {
+        return findByKey(byBarcode, BARCODE, barcode);
+    }
+    
+    PriceRecord findByProductCode(String productCode) {
+        return findByKey(byProductCode, PRODUCT_CODE, productCode);
+    }
+    
+    PriceRecord findById(long productId) {
+        int record = findRecord(productId);
+        return record < 0 ? null : read(record, NO_KEY, null);
+    }
+    
+    private PriceRecord findByKey(Table table, int field, String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mask = table.mask;
+        for (int probe = 0, slot = hash & mask; probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int offset = slot * SLOT_BYTES;
+            int ref = (int) INT.getAcquire(table.slots, offset);
+            if (ref == EMPTY) {
+                return null;
+            }
+            if (ref != TOMBSTONE && table.slots.getInt(offset + 4) == hash) {
+                // The record is re-checked against the key: it may have been given a different key since
+                PriceRecord found = read(ref - 1, field, bytes);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private int findRecord(long productId) {
+        int hash = hash(productId);
+        int mask = byId.mask;
+        for (int probe = 0, slot = hash & mask; probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int offset = slot * SLOT_BYTES;
+            int ref = (int) INT.getAcquire(byId.slots, offset);
+            if (ref == EMPTY) {
+                return -1;
+            }
+            if (ref != TOMBSTONE && byId.slots.getInt(offset + 4) == hash
+                    && records.getLong((ref - 1) * RECORD_BYTES + PRODUCT_ID) == productId) {
+                return ref - 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Reads a consistent copy of a record
+     *
+     * @return the record, or null if it is not live or, when {@code field} is given, its key there is not
+     * {@code expected}
+     */
+    private PriceRecord read(int record, int field, byte[] expected) {
+        int base = record * RECORD_BYTES;
+        while (true) {
+            int version = (int) INT.getAcquire(records, base + VERSION);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int live = records.getInt(base + LIVE);
+            int taxRate = records.getInt(base + TAX_RATE);
+            long productId = records.getLong(base + PRODUCT_ID);
+            long unitPrice = records.getLong(base + UNIT_PRICE);
+            int barcode = records.getInt(base + BARCODE);
+            int productCode = records.getInt(base + PRODUCT_CODE);
+            int hsn = records.getInt(base + HSN);
+            VarHandle.loadLoadFence();
+            if (records.getInt(base + VERSION) != version) {
+                continue;
+            }
+            if (live == 0 || expected != null && !keyEquals(field == BARCODE ? barcode : productCode, expected)) {
+                return null;
+            }
+            return new PriceRecord(productId, key(productCode), key(barcode), key(hsn),
+                    unitPrice == NO_PRICE ? null : BigDecimal.valueOf(unitPrice, 2),
+                    taxRate == NO_TAX_RATE ? null : BigDecimal.valueOf(taxRate, 2));
+        }
+    }
+    
+    private boolean keyEquals(int ref, byte[] expected) {
+        if (ref == NO_KEY || (keys.getShort(ref) & 0xFFFF) != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (keys.get(ref + 2 + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String key(int ref) {
+        if (ref == NO_KEY) {
+            return null;
+        }
+        byte[] bytes = new byte[keys.getShort(ref) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = keys.get(ref + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // ---- writes, one thread at a time ----
+    
+    /**
+     * Adds or replaces a product
+     *
+     * @return false, changing nothing, if the index has no room; build a larger one with {@link #copy}
+     */
+    boolean upsert(long productId, String productCode, String barcode, String hsn, BigDecimal unitPrice,
+                   BigDecimal taxRate) {
+        byte[] code = bytes(productCode);
+        byte[] bar = bytes(barcode);
+        byte[] hsnBytes = bytes(hsn);
+        int record = findRecord(productId);
+        int base = record * RECORD_BYTES;
+        boolean codeChanged = record < 0 || !sameKey(records.getInt(base + PRODUCT_CODE), code);
+        boolean barcodeChanged = record < 0 || !sameKey(records.getInt(base + BARCODE), bar);
+        boolean hsnChanged = record < 0 || !sameKey(records.getInt(base + HSN), hsnBytes);
+        // remove() unlinked a dead record's keys, so they are filed again even when unchanged
+        boolean wasLive = record >= 0 && records.getInt(base + LIVE) != 0;
+        boolean linkCode = (codeChanged || !wasLive) && code != null;
+        boolean linkBarcode = (barcodeChanged || !wasLive) && bar != null;
+        int keyBytesNeeded = (codeChanged ? size(code) : 0) + (barcodeChanged ? size(bar) : 0)
+                + (hsnChanged ? size(hsnBytes) : 0);
+        if (keyTop + keyBytesNeeded > keys.capacity()
+                || record < 0 && (recordCount == recordCapacity || !byId.hasRoom())
+                || linkCode && !byProductCode.hasRoom()
+                || linkBarcode && !byBarcode.hasRoom()) {
+            return false;
+        }
+        
+        int codeRef = codeChanged ? appendKey(code) : records.getInt(base + PRODUCT_CODE);
+        int barcodeRef = barcodeChanged ? appendKey(bar) : records.getInt(base + BARCODE);
+        int hsnRef = hsnChanged ? appendKey(hsnBytes) : records.getInt(base + HSN);
+        long price = unitPrice == null ? NO_PRICE
+                : unitPrice.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        int tax = taxRate == null ? NO_TAX_RATE
+                : taxRate.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+        
+        if (record < 0) {
+            record = recordCount++;
+            base = record * RECORD_BYTES;
+            writeRecord(base, productId, price, tax, barcodeRef, codeRef, hsnRef);
+            insert(byId, hash(productId), record);
+        } else {
+            int oldCode = records.getInt(base + PRODUCT_CODE);
+            int oldBarcode = records.getInt(base + BARCODE);
+            writeRecord(base, productId, price, tax, barcodeRef, codeRef, hsnRef);
+            if (wasLive && codeChanged) {
+                unlink(byProductCode, oldCode, record);
+            }
+            if (wasLive && barcodeChanged) {
+                unlink(byBarcode, oldBarcode, record);
+            }
+        }
+        if (!wasLive) {
+            liveCount++;
+        }
+        if (linkCode) {
+            insert(byProductCode, hash(code), record);
+        }
+        if (linkBarcode) {
+            insert(byBarcode, hash(bar), record);
+        }
+        return true;
+    }
+    
+    /**
+     * @return false if the product was not in the index
+     */
+    boolean remove(long productId) {
+        int record = findRecord(productId);
+        if (record < 0) {
+            return false;
+        }
+        int base = record * RECORD_BYTES;
+        if (records.getInt(base + LIVE) == 0) {
+            return false;
+        }
+        int version = records.getInt(base + VERSION);
+        INT.setOpaque(records, base + VERSION, version + 1);
+        VarHandle.storeStoreFence();
+        records.putInt(base + LIVE, 0);
+        INT.setRelease(records, base + VERSION, version + 2);
+        unlink(byProductCode, records.getInt(base + PRODUCT_CODE), record);
+        unlink(byBarcode, records.getInt(base + BARCODE), record);
+        liveCount--;
+        // The id slot stays, so a later upsert of the same product reuses the record
+        return true;
+    }
+    
+    private void writeRecord(int base, long productId, long price, int tax, int barcodeRef, int codeRef,
+                             int hsnRef) {
+        int version = records.getInt(base + VERSION);
+        INT.setOpaque(records, base + VERSION, version + 1);
+        VarHandle.storeStoreFence();
+        records.putInt(base + TAX_RATE, tax);
+        records.putLong(base + PRODUCT_ID, productId);
+        records.putLong(base + UNIT_PRICE, price);
+        records.putInt(base + BARCODE, barcodeRef);
+        records.putInt(base + PRODUCT_CODE, codeRef);
+        records.putInt(base + HSN, hsnRef);
+        records.putInt(base + LIVE, 1);
+        INT.setRelease(records, base + VERSION, version + 2);
+    }
+    
+    private void insert(Table table, int hash, int record) {
+        int mask = table.mask;
+        int slot = hash & mask;
+        while ((int) INT.getAcquire(table.slots, slot * SLOT_BYTES) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        int offset = slot * SLOT_BYTES;
+        table.slots.putInt(offset + 4, hash);
+        INT.setRelease(table.slots, offset, record + 1);
+        table.used++;
+    }
+    
+    /**
+     * Tombstones the slot under which {@code record} is filed for the key at {@code keyRef}
+     */
+    private void unlink(Table table, int keyRef, int record) {
+        if (keyRef == NO_KEY) {
+            return;
+        }
+        byte[] key = new byte[keys.getShort(keyRef) & 0xFFFF];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = keys.get(keyRef + 2 + i);
+        }
+        int hash = hash(key);
+        int mask = table.mask;
+        for (int probe = 0, slot = hash & mask; probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int offset = slot * SLOT_BYTES;
+            int ref = table.slots.getInt(offset);
+            if (ref == EMPTY) {
+                return;
+            }
+            if (ref == record + 1 && table.slots.getInt(offset + 4) == hash) {
+                INT.setRelease(table.slots, offset, TOMBSTONE);
+                return;
+            }
+        }
+    }
+    
+    private int appendKey(byte[] bytes) {
+        if (bytes == null) {
+            return NO_KEY;
+        }
+        int ref = keyTop;
+        keys.putShort(ref, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            keys.put(ref + 2 + i, bytes[i]);
+        }
+        keyTop += 2 + bytes.length;
+        return ref;
+    }
+    
+    private boolean sameKey(int ref, byte[] bytes) {
+        return bytes == null ? ref == NO_KEY : keyEquals(ref, bytes);
+    }
+    
+    private static int size(byte[] bytes) {
+        return bytes == null ? 0 : 2 + bytes.length;
+    }
+    
+    private static byte[] bytes(String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key longer than 65535 bytes");
+        }
+        return bytes;
+    }
+    
+    /**
+     * Builds an index with room for {@code recordCapacity} products holding this one's live products
+     */
+    OffHeapProductIndex copy(int recordCapacity, int keyBytes) {
+        OffHeapProductIndex copy = new OffHeapProductIndex(recordCapacity, keyBytes);
+        for (int record = 0; record < recordCount; record++) {
+            PriceRecord live = read(record, NO_KEY, null);
+            if (live != null && !copy.upsert(live.getProductId(), live.getProductCode(), live.getBarcode(),
+                    live.getHsn(), live.getUnitPrice(), live.getTaxRate())) {
+                throw new IllegalArgumentException("Copy is smaller than the index");
+            }
+        }
+        return copy;
+    }
+    
+    /**
+     * @return bytes of key area used, for sizing a copy
+     */
+    int keyBytesUsed() {
+        return keyTop;
+    }
+    
+    // FNV-1a with a murmur3 finalizer, so sequential codes spread over the table
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ b) * 0x01000193;
+        }
+        return mix(h);
+    }
+    
+    private static int hash(long productId) {
+        return mix((int) (productId ^ (productId >>> 32)));
+    }
+    
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+    
+    private static final class Table {
+        final ByteBuffer slots;
+        final int mask;
+        // Occupied slots including tombstones; writer-only
+        int used;
+        
+        Table(int size) {
+            this.slots = ByteBuffer.allocateDirect(size * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.mask = size - 1;
+        }
+        
+        boolean hasRoom() {
+            return used + 1 <= (mask + 1) * MAX_LOAD;
+        }
+    }
+}
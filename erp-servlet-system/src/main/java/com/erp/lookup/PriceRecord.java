@@ -0,0 +1,37 @@
+package com.erp.lookup;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields a point of sale needs for one product, decoded from the off-heap index
+ */
+public final class PriceRecord {
+    private final long productId;
+    private final String productCode;
+    private final String barcode;
+    private final String hsn;
+    private final BigDecimal unitPrice;
+    private final BigDecimal taxRate;
+    
+    PriceRecord(long productId, String productCode, String barcode, String hsn, BigDecimal unitPrice,
+                BigDecimal taxRate) {
+        this.productId = productId;
+        this.productCode = productCode;
+        this.barcode = barcode;
+        this.hsn = hsn;
+        this.unitPrice = unitPrice;
+        this.taxRate = taxRate;
+    }
+    
+    public long getProductId() { return productId; }
+    
+    public String getProductCode() { return productCode; }
+    
+    public String getBarcode() { return barcode; }
+    
+    public String getHsn() { return hsn; }
+    
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    
+    public BigDecimal getTaxRate() { return taxRate; }
+}
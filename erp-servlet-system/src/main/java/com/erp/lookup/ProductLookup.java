@@ -0,0 +1,220 @@
+package com.erp.lookup;
+
+import com.erp.model.Product;
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-of-sale price lookups by barcode or product code, answered from an {@link OffHeapProductIndex} of the
+ * ACTIVE products. Lookups never lock. A reload builds a new index beside the live one and swaps it in; single
+ * products are upserted into the live index, which is copied into a larger one when it fills up.
+ * <p>
+ * A replaced index's memory is released when the collector finds its buffers unreachable, so a lookup still
+ * reading it finishes safely
+ */
+public final class ProductLookup implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ProductLookup.class);
+    private static final String COLUMNS = "SELECT PRODUCT_ID, PRODUCT_CODE, BARCODE, HSN, UNIT_PRICE, TAX_RATE, STATUS"
+            + " FROM PRODUCTS";
+    private static final String LOAD_SQL = COLUMNS + " WHERE STATUS = 'ACTIVE'";
+    private static final String LOAD_ONE_SQL = COLUMNS + " WHERE PRODUCT_ID = ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM PRODUCTS WHERE STATUS = 'ACTIVE'";
+    private static final int FETCH_SIZE = 5000;
+    // Room left for upserts after a load, and the key bytes assumed per product before any are known
+    private static final double HEADROOM = 1.25;
+    private static final int KEY_BYTES_PER_PRODUCT = 40;
+    
+    private volatile OffHeapProductIndex index = new OffHeapProductIndex(1024, 1024 * KEY_BYTES_PER_PRODUCT);
+    // Changes made while a reload is reading the table, replayed onto the reloaded index; guarded by this
+    private List<Change> sinceReload;
+    // Held for a whole reload, so overlapping reloads run one after the other
+    private final Object reloadLock = new Object();
+    private ScheduledExecutorService refresher;
+    
+    public PriceRecord findByBarcode(String barcode) {
+        return index.findByBarcode(barcode);
+    }
+    
+    public PriceRecord findByProductCode(String productCode) {
+        return index.findByProductCode(productCode);
+    }
+    
+    public PriceRecord findById(long productId) {
+        return index.findById(productId);
+    }
+    
+    public int size() {
+        return index.size();
+    }
+    
+    public long offHeapBytes() {
+        return index.offHeapBytes();
+    }
+    
+    /**
+     * Rebuilds the index from the PRODUCTS table and swaps it in
+     */
+    public void reload() throws SQLException {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                sinceReload = new ArrayList<>();
+            }
+            long start = System.nanoTime();
+            OffHeapProductIndex loaded;
+            try {
+                loaded = load();
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    sinceReload = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (Change change : sinceReload) {
+                    loaded = apply(loaded, change);
+                }
+                sinceReload = null;
+                index = loaded;
+            }
+            logger.info("Product lookup loaded: {} products, {} MB off heap, in {} ms", loaded.size(),
+                    loaded.offHeapBytes() >> 20, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    private static OffHeapProductIndex load() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection()) {
+            int expected;
+            try (PreparedStatement ps = connection.prepareStatement(COUNT_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                expected = rs.getInt(1);
+            }
+            int capacity = (int) Math.min(Integer.MAX_VALUE / 64, (long) (expected * HEADROOM) + 1024);
+            OffHeapProductIndex loaded = new OffHeapProductIndex(capacity, capacity * KEY_BYTES_PER_PRODUCT);
+            try (PreparedStatement ps = connection.prepareStatement(LOAD_SQL)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        loaded = apply(loaded, upsert(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getBigDecimal(5), rs.getBigDecimal(6)));
+                    }
+                }
+            }
+            return loaded;
+        }
+    }
+    
+    /**
+     * Reloads every {@code minutes} on a daemon thread
+     */
+    public synchronized void startRefresh(long minutes) {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-lookup-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Product lookup reload failed; keeping the previous index", e);
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Records a product saved elsewhere in this process, without waiting for the next reload. Products that are not
+     * ACTIVE are removed from the index
+     */
+    public void productSaved(Product product) {
+        if ("ACTIVE".equals(product.getStatus())) {
+            change(upsert(product.getProductId(), product.getProductCode(), product.getBarcode(), product.getHsn(),
+                    product.getUnitPrice(), product.getTaxRate()));
+        } else {
+            change(remove(product.getProductId()));
+        }
+    }
+    
+    /**
+     * Re-reads one product from the PRODUCTS table into the index
+     *
+     * @return the product as now indexed, or null if it is missing or not ACTIVE
+     */
+    public PriceRecord refresh(long productId) throws SQLException {
+        Change change = remove(productId);
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_ONE_SQL)) {
+            ps.setLong(1, productId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && "ACTIVE".equals(rs.getString(7))) {
+                    change = upsert(productId, rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getBigDecimal(5), rs.getBigDecimal(6));
+                }
+            }
+        }
+        change(change);
+        return index.findById(productId);
+    }
+    
+    private synchronized void change(Change change) {
+        index = apply(index, change);
+        if (sinceReload != null) {
+            sinceReload.add(change);
+        }
+    }
+    
+    /**
+     * @return {@code target}, or a larger copy of it if the change did not fit
+     */
+    private static OffHeapProductIndex apply(OffHeapProductIndex target, Change change) {
+        while (!change.applyTo(target)) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE / 64, Math.max(1024L, target.size() * 2L));
+            int keyBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(target.keyBytesUsed() * 2L,
+                    (long) capacity * KEY_BYTES_PER_PRODUCT));
+            target = target.copy(capacity, keyBytes);
+        }
+        return target;
+    }
+    
+    private static Change upsert(long productId, String productCode, String barcode, String hsn,
+                                 BigDecimal unitPrice, BigDecimal taxRate) {
+        return index -> index.upsert(productId, productCode, barcode, hsn, unitPrice, taxRate);
+    }
+    
+    private static Change remove(long productId) {
+        return index -> {
+            index.remove(productId);
+            return true;
+        };
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+    
+    /**
+     * One upsert or removal
+     */
+    private interface Change {
+        
+        /**
+         * @return false, leaving the index unchanged, if it has no room
+         */
+        boolean applyTo(OffHeapProductIndex index);
+    }
+}
@@ -0,0 +1,37 @@
+package com.erp.mapping;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column label to JDBC index lookup, resolved once from ResultSetMetaData
+ */
+public final class ColumnIndex {
+    private final Map<String, Integer> indexes;
+    
+    private ColumnIndex(Map<String, Integer> indexes) {
+        this.indexes = indexes;
+    }
+    
+    public static ColumnIndex of(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        Map<String, Integer> indexes = new HashMap<>(columnCount * 2);
+        for (int i = 1; i <= columnCount; i++) {
+            indexes.putIfAbsent(metaData.getColumnLabel(i).toUpperCase(Locale.ROOT), i);
+        }
+        return new ColumnIndex(indexes);
+    }
+    
+    /**
+     * @return the 1-based index of the column, or 0 if the query does not select it
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column);
+        return index != null ? index : 0;
+    }
+}
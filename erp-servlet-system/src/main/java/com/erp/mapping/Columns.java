@@ -0,0 +1,48 @@
+package com.erp.mapping;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Null-aware typed reads by column index. An index of 0 means the column is not selected and reads as null.
+ * Dates use JDBC 4.2 getObject(int, Class) so no intermediate Timestamp/Date objects are created.
+ */
+final class Columns {
+    
+    private Columns() {}
+    
+    static String getString(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getString(index) : null;
+    }
+    
+    static Long getLong(ResultSet rs, int index) throws SQLException {
+        if (index == 0) {
+            return null;
+        }
+        long value = rs.getLong(index);
+        return rs.wasNull() ? null : value;
+    }
+    
+    static Integer getInteger(ResultSet rs, int index) throws SQLException {
+        if (index == 0) {
+            return null;
+        }
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+    }
+    
+    static BigDecimal getBigDecimal(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getBigDecimal(index) : null;
+    }
+    
+    static LocalDateTime getLocalDateTime(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getObject(index, LocalDateTime.class) : null;
+    }
+    
+    static LocalDate getLocalDate(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getObject(index, LocalDate.class) : null;
+    }
+}
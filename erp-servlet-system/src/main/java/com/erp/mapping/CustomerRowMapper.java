@@ -0,0 +1,97 @@
+package com.erp.mapping;
+
+import com.erp.model.Customer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Index-based mapper for CUSTOMERS rows. Column positions are resolved once per query shape;
+ * columns missing from the query leave the field null.
+ */
+public final class CustomerRowMapper implements RowMapper<Customer> {
+    
+    /** CUSTOMERS columns in table order */
+    public static final String[] COLUMNS = {
+            "CUSTOMER_ID", "CUSTOMER_CODE", "COMPANY_NAME", "CONTACT_PERSON", "EMAIL", "PHONE", "MOBILE",
+            "ADDRESS", "CITY", "STATE", "COUNTRY", "PINCODE", "GST_NUMBER", "PAN_NUMBER", "CUSTOMER_TYPE",
+            "CREDIT_LIMIT", "CREDIT_DAYS", "STATUS", "CREATED_DATE", "MODIFIED_DATE", "CREATED_BY",
+            "MODIFIED_BY"
+    };
+    
+    private final int customerId;
+    private final int customerCode;
+    private final int companyName;
+    private final int contactPerson;
+    private final int email;
+    private final int phone;
+    private final int mobile;
+    private final int address;
+    private final int city;
+    private final int state;
+    private final int country;
+    private final int pincode;
+    private final int gstNumber;
+    private final int panNumber;
+    private final int customerType;
+    private final int creditLimit;
+    private final int creditDays;
+    private final int status;
+    private final int createdDate;
+    private final int modifiedDate;
+    private final int createdBy;
+    private final int modifiedBy;
+    
+    public CustomerRowMapper(ColumnIndex columns) {
+        this.customerId = columns.indexOf("CUSTOMER_ID");
+        this.customerCode = columns.indexOf("CUSTOMER_CODE");
+        this.companyName = columns.indexOf("COMPANY_NAME");
+        this.contactPerson = columns.indexOf("CONTACT_PERSON");
+        this.email = columns.indexOf("EMAIL");
+        this.phone = columns.indexOf("PHONE");
+        this.mobile = columns.indexOf("MOBILE");
+        this.address = columns.indexOf("ADDRESS");
+        this.city = columns.indexOf("CITY");
+        this.state = columns.indexOf("STATE");
+        this.country = columns.indexOf("COUNTRY");
+        this.pincode = columns.indexOf("PINCODE");
+        this.gstNumber = columns.indexOf("GST_NUMBER");
+        this.panNumber = columns.indexOf("PAN_NUMBER");
+        this.customerType = columns.indexOf("CUSTOMER_TYPE");
+        this.creditLimit = columns.indexOf("CREDIT_LIMIT");
+        this.creditDays = columns.indexOf("CREDIT_DAYS");
+        this.status = columns.indexOf("STATUS");
+        this.createdDate = columns.indexOf("CREATED_DATE");
+        this.modifiedDate = columns.indexOf("MODIFIED_DATE");
+        this.createdBy = columns.indexOf("CREATED_BY");
+        this.modifiedBy = columns.indexOf("MODIFIED_BY");
+    }
+    
+    @Override
+    public Customer mapRow(ResultSet rs) throws SQLException {
+        Customer customer = new Customer();
+        customer.setCustomerId(Columns.getLong(rs, customerId));
+        customer.setCustomerCode(Columns.getString(rs, customerCode));
+        customer.setCompanyName(Columns.getString(rs, companyName));
+        customer.setContactPerson(Columns.getString(rs, contactPerson));
+        customer.setEmail(Columns.getString(rs, email));
+        customer.setPhone(Columns.getString(rs, phone));
+        customer.setMobile(Columns.getString(rs, mobile));
+        customer.setAddress(Columns.getString(rs, address));
+        customer.setCity(Columns.getString(rs, city));
+        customer.setState(Columns.getString(rs, state));
+        customer.setCountry(Columns.getString(rs, country));
+        customer.setPincode(Columns.getString(rs, pincode));
+        customer.setGstNumber(Columns.getString(rs, gstNumber));
+        customer.setPanNumber(Columns.getString(rs, panNumber));
+        customer.setCustomerType(Columns.getString(rs, customerType));
+        customer.setCreditLimit(Columns.getBigDecimal(rs, creditLimit));
+        customer.setCreditDays(Columns.getInteger(rs, creditDays));
+        customer.setStatus(Columns.getString(rs, status));
+        customer.setCreatedDate(Columns.getLocalDateTime(rs, createdDate));
+        customer.setModifiedDate(Columns.getLocalDateTime(rs, modifiedDate));
+        customer.setCreatedBy(Columns.getString(rs, createdBy));
+        customer.setModifiedBy(Columns.getString(rs, modifiedBy));
+        return customer;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.erp.mapping;
+
+import com.erp.model.Employee;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Index-based mapper for EMPLOYEES rows. Column positions are resolved once per query shape;
+ * columns missing from the query leave the field null.
+ */
+public final class EmployeeRowMapper implements RowMapper<Employee> {
+    
+    /** EMPLOYEES columns in table order */
+    public static final String[] COLUMNS = {
+            "EMPLOYEE_ID", "EMPLOYEE_CODE", "FIRST_NAME", "LAST_NAME", "EMAIL", "PHONE", "DEPARTMENT",
+            "DESIGNATION", "SALARY", "JOINING_DATE", "STATUS", "MANAGER_ID", "ADDRESS", "CREATED_DATE",
+            "MODIFIED_DATE", "CREATED_BY", "MODIFIED_BY"
+    };
+    
+    private final int employeeId;
+    private final int employeeCode;
+    private final int firstName;
+    private final int lastName;
+    private final int email;
+    private final int phone;
+    private final int department;
+    private final int designation;
+    private final int salary;
+    private final int joiningDate;
+    private final int status;
+    private final int managerId;
+    private final int address;
+    private final int createdDate;
+    private final int modifiedDate;
+    private final int createdBy;
+    private final int modifiedBy;
+    
+    public EmployeeRowMapper(ColumnIndex columns) {
+        this.employeeId = columns.indexOf("EMPLOYEE_ID");
+        this.employeeCode = columns.indexOf("EMPLOYEE_CODE");
+        this.firstName = columns.indexOf("FIRST_NAME");
+        this.lastName = columns.indexOf("LAST_NAME");
+        this.email = columns.indexOf("EMAIL");
+        this.phone = columns.indexOf("PHONE");
+        this.department = columns.indexOf("DEPARTMENT");
+        this.designation = columns.indexOf("DESIGNATION");
+        this.salary = columns.indexOf("SALARY");
+        this.joiningDate = columns.indexOf("JOINING_DATE");
+        this.status = columns.indexOf("STATUS");
+        this.managerId = columns.indexOf("MANAGER_ID");
+        this.address = columns.indexOf("ADDRESS");
+        this.createdDate = columns.indexOf("CREATED_DATE");
+        this.modifiedDate = columns.indexOf("MODIFIED_DATE");
+        this.createdBy = columns.indexOf("CREATED_BY");
+        this.modifiedBy = columns.indexOf("MODIFIED_BY");
+    }
+    
+    @Override
+    public Employee mapRow(ResultSet rs) throws SQLException {
+        Employee employee = new Employee();
+        employee.setEmployeeId(Columns.getLong(rs, employeeId));
+        employee.setEmployeeCode(Columns.getString(rs, employeeCode));
+        employee.setFirstName(Columns.getString(rs, firstName));
+        employee.setLastName(Columns.getString(rs, lastName));
+        employee.setEmail(Columns.getString(rs, email));
+        employee.setPhone(Columns.getString(rs, phone));
+        employee.setDepartment(Columns.getString(rs, department));
+        employee.setDesignation(Columns.getString(rs, designation));
+        employee.setSalary(Columns.getBigDecimal(rs, salary));
+        employee.setJoiningDate(Columns.getLocalDate(rs, joiningDate));
+        employee.setStatus(Columns.getString(rs, status));
+        employee.setManagerId(Columns.getLong(rs, managerId));
+        employee.setAddress(Columns.getString(rs, address));
+        employee.setCreatedDate(Columns.getLocalDateTime(rs, createdDate));
+        employee.setModifiedDate(Columns.getLocalDateTime(rs, modifiedDate));
+        employee.setCreatedBy(Columns.getString(rs, createdBy));
+        employee.setModifiedBy(Columns.getString(rs, modifiedBy));
+        return employee;
+    }
+}
\ No newline at end of file
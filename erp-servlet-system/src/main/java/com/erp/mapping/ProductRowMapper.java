@@ -0,0 +1,90 @@
+package com.erp.mapping;
+
+import com.erp.model.Product;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Index-based mapper for PRODUCTS rows. Column positions are resolved once per query shape;
+ * columns missing from the query leave the field null.
+ */
+public final class ProductRowMapper implements RowMapper<Product> {
+    
+    /** PRODUCTS columns in table order */
+    public static final String[] COLUMNS = {
+            "PRODUCT_ID", "PRODUCT_CODE", "PRODUCT_NAME", "DESCRIPTION", "CATEGORY", "BRAND", "UNIT_PRICE",
+            "COST_PRICE", "STOCK_QUANTITY", "MIN_STOCK_LEVEL", "MAX_STOCK_LEVEL", "UNIT", "STATUS",
+            "BARCODE", "HSN", "TAX_RATE", "CREATED_DATE", "MODIFIED_DATE", "CREATED_BY", "MODIFIED_BY"
+    };
+    
+    private final int productId;
+    private final int productCode;
+    private final int productName;
+    private final int description;
+    private final int category;
+    private final int brand;
+    private final int unitPrice;
+    private final int costPrice;
+    private final int stockQuantity;
+    private final int minStockLevel;
+    private final int maxStockLevel;
+    private final int unit;
+    private final int status;
+    private final int barcode;
+    private final int hsn;
+    private final int taxRate;
+    private final int createdDate;
+    private final int modifiedDate;
+    private final int createdBy;
+    private final int modifiedBy;
+    
+    public ProductRowMapper(ColumnIndex columns) {
+        this.productId = columns.indexOf("PRODUCT_ID");
+        this.productCode = columns.indexOf("PRODUCT_CODE");
+        this.productName = columns.indexOf("PRODUCT_NAME");
+        this.description = columns.indexOf("DESCRIPTION");
+        this.category = columns.indexOf("CATEGORY");
+        this.brand = columns.indexOf("BRAND");
+        this.unitPrice = columns.indexOf("UNIT_PRICE");
+        this.costPrice = columns.indexOf("COST_PRICE");
+        this.stockQuantity = columns.indexOf("STOCK_QUANTITY");
+        this.minStockLevel = columns.indexOf("MIN_STOCK_LEVEL");
+        this.maxStockLevel = columns.indexOf("MAX_STOCK_LEVEL");
+        this.unit = columns.indexOf("UNIT");
+        this.status = columns.indexOf("STATUS");
+        this.barcode = columns.indexOf("BARCODE");
+        this.hsn = columns.indexOf("HSN");
+        this.taxRate = columns.indexOf("TAX_RATE");
+        this.createdDate = columns.indexOf("CREATED_DATE");
+        this.modifiedDate = columns.indexOf("MODIFIED_DATE");
+        this.createdBy = columns.indexOf("CREATED_BY");
+        this.modifiedBy = columns.indexOf("MODIFIED_BY");
+    }
+    
+    @Override
+    public Product mapRow(ResultSet rs) throws SQLException {
+        Product product = new Product();
+        product.setProductId(Columns.getLong(rs, productId));
+        product.setProductCode(Columns.getString(rs, productCode));
+        product.setProductName(Columns.getString(rs, productName));
+        product.setDescription(Columns.getString(rs, description));
+        product.setCategory(Columns.getString(rs, category));
+        product.setBrand(Columns.getString(rs, brand));
+        product.setUnitPrice(Columns.getBigDecimal(rs, unitPrice));
+        product.setCostPrice(Columns.getBigDecimal(rs, costPrice));
+        product.setStockQuantity(Columns.getInteger(rs, stockQuantity));
+        product.setMinStockLevel(Columns.getInteger(rs, minStockLevel));
+        product.setMaxStockLevel(Columns.getInteger(rs, maxStockLevel));
+        product.setUnit(Columns.getString(rs, unit));
+        product.setStatus(Columns.getString(rs, status));
+        product.setBarcode(Columns.getString(rs, barcode));
+        product.setHsn(Columns.getString(rs, hsn));
+        product.setTaxRate(Columns.getBigDecimal(rs, taxRate));
+        product.setCreatedDate(Columns.getLocalDateTime(rs, createdDate));
+        product.setModifiedDate(Columns.getLocalDateTime(rs, modifiedDate));
+        product.setCreatedBy(Columns.getString(rs, createdBy));
+        product.setModifiedBy(Columns.getString(rs, modifiedBy));
+        return product;
+    }
+}
\ No newline at end of file
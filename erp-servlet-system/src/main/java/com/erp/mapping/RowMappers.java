@@ -0,0 +1,65 @@
+package com.erp.mapping;
+
+import com.erp.model.Customer;
+import com.erp.model.Employee;
+import com.erp.model.Product;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of compiled row mappers, one per query shape.
+ * <p>
+ * The shape key is normally the SQL text (or procedure call) that produced the ResultSet. The first ResultSet
+ * seen for a key has its metadata resolved into column indexes; later queries with the same key reuse the
+ * compiled mapper and skip metadata entirely.
+ * <pre>
+ * RowMapper&lt;Customer&gt; mapper = RowMappers.customers(sql, rs);
+ * while (rs.next()) {
+ *     customers.add(mapper.mapRow(rs));
+ * }
+ * </pre>
+ */
+public final class RowMappers {
+    
+    private static final ConcurrentMap<String, RowMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+    
+    private RowMappers() {}
+    
+    public static RowMapper<Customer> customers(String shapeKey, ResultSet resultSet) throws SQLException {
+        return forShape("customer:" + shapeKey, resultSet, CustomerRowMapper::new);
+    }
+    
+    public static RowMapper<Employee> employees(String shapeKey, ResultSet resultSet) throws SQLException {
+        return forShape("employee:" + shapeKey, resultSet, EmployeeRowMapper::new);
+    }
+    
+    public static RowMapper<Product> products(String shapeKey, ResultSet resultSet) throws SQLException {
+        return forShape("product:" + shapeKey, resultSet, ProductRowMapper::new);
+    }
+    
+    /**
+     * Returns the mapper cached under {@code shapeKey}, compiling it from {@code resultSet}'s metadata on first use
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forShape(String shapeKey, ResultSet resultSet, Compiler<T> compiler)
+            throws SQLException {
+        RowMapper<?> mapper = MAPPERS.get(shapeKey);
+        if (mapper == null) {
+            // Racing threads may both compile; the mappers are equivalent and one wins
+            RowMapper<T> compiled = compiler.compile(ColumnIndex.of(resultSet));
+            mapper = MAPPERS.putIfAbsent(shapeKey, compiled);
+            if (mapper == null) {
+                mapper = compiled;
+            }
+        }
+        return (RowMapper<T>) mapper;
+    }
+    
+    @FunctionalInterface
+    public interface Compiler<T> {
+        RowMapper<T> compile(ColumnIndex columns);
+    }
+}
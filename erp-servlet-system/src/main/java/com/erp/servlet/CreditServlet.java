@@ -0,0 +1,197 @@
+package com.erp.servlet;
+
+import com.erp.credit.CreditDecision;
+import com.erp.credit.CreditExposureEngine;
+import com.erp.credit.ReconcileReport;
+import com.erp.listener.CreditExposureListener;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Credit checks against the in-memory {@link CreditExposureEngine}:
+ * <ul>
+ *     <li>{@code GET /api/credit/{customerId}?amount=1500.00} - balance, limit and, with an amount, the decision</li>
+ *     <li>{@code POST /api/credit/{customerId}/reserve} with {@code {"amount": 1500.00}} - 409 when refused, 503
+ *     until balances have loaded</li>
+ *     <li>{@code POST /api/credit/{customerId}/commit} with {@code {"amount": 1500.00}} - once the order is saved; it
+ *     stays in the exposure until reconciliation counts it in the balance</li>
+ *     <li>{@code POST /api/credit/{customerId}/release} with {@code {"amount": 1500.00}} - if the order is
+ *     abandoned</li>
+ *     <li>{@code GET /api/credit/reconciliation} - the last reconciliation and its drift</li>
+ * </ul>
+ */
+@WebServlet("/api/credit/*")
+public class CreditServlet extends HttpServlet {
+    
+    private CreditExposureEngine engine;
+    
+    @Override
+    public void init() throws ServletException {
+        engine = (CreditExposureEngine) getServletContext().getAttribute(CreditExposureListener.ATTRIBUTE);
+        if (engine == null) {
+            throw new ServletException("CreditExposureListener has not run");
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        try {
+            if (path.length == 1 && "reconciliation".equals(path[0])) {
+                ReconcileReport report = engine.getLastReport();
+                if (report == null) {
+                    sendError(resp, HttpServletResponse.SC_NOT_FOUND, "No reconciliation has completed yet");
+                } else {
+                    sendJson(resp, HttpServletResponse.SC_OK, toJson(report));
+                }
+            } else if (path.length == 1) {
+                long customerId = parseId(path[0]);
+                CreditExposureEngine.Exposure exposure = engine.getExposure(customerId);
+                if (exposure == null) {
+                    sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown customer " + customerId);
+                    return;
+                }
+                JsonObject body = toJson(exposure);
+                String amount = req.getParameter("amount");
+                if (amount != null) {
+                    CreditDecision decision = engine.canAccept(customerId, parseAmount(amount));
+                    body.addProperty("decision", decision.name());
+                    body.addProperty("accepted", decision.isAccepted());
+                }
+                sendJson(resp, HttpServletResponse.SC_OK, body);
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        if (path.length != 2
+                || !("reserve".equals(path[1]) || "commit".equals(path[1]) || "release".equals(path[1]))) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return;
+        }
+        try {
+            long customerId = parseId(path[0]);
+            JsonElement element = JsonParser.parseReader(req.getReader());
+            JsonElement amount = element.isJsonObject() ? element.getAsJsonObject().get("amount") : null;
+            if (amount == null || !amount.isJsonPrimitive()) {
+                throw new IllegalArgumentException("amount is required");
+            }
+            long paise = parseAmount(amount.getAsString());
+            if ("reserve".equals(path[1])) {
+                CreditDecision decision = engine.reserve(customerId, paise);
+                JsonObject body = new JsonObject();
+                body.addProperty("customerId", customerId);
+                body.addProperty("decision", decision.name());
+                body.addProperty("accepted", decision.isAccepted());
+                int status = decision.isAccepted() ? HttpServletResponse.SC_OK
+                        : decision == CreditDecision.UNKNOWN_CUSTOMER ? HttpServletResponse.SC_NOT_FOUND
+                        : decision == CreditDecision.BALANCE_UNAVAILABLE ? HttpServletResponse.SC_SERVICE_UNAVAILABLE
+                        : HttpServletResponse.SC_CONFLICT;
+                sendJson(resp, status, body);
+            } else if ("commit".equals(path[1]) ? engine.commit(customerId, paise)
+                    : engine.release(customerId, paise)) {
+                sendJson(resp, HttpServletResponse.SC_OK, toJson(engine.getExposure(customerId)));
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown customer " + customerId);
+            }
+        } catch (IllegalArgumentException | ArithmeticException | JsonParseException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private static JsonObject toJson(CreditExposureEngine.Exposure exposure) {
+        JsonObject body = new JsonObject();
+        body.addProperty("customerId", exposure.getCustomerId());
+        body.addProperty("outstanding", CreditExposureEngine.toAmount(exposure.getBalance()));
+        body.addProperty("reserved", CreditExposureEngine.toAmount(exposure.getReserved()));
+        body.addProperty("committed", CreditExposureEngine.toAmount(exposure.getCommitted()));
+        body.addProperty("creditLimit", CreditExposureEngine.toAmount(exposure.getLimit()));
+        body.addProperty("available", CreditExposureEngine.toAmount(exposure.getAvailable()));
+        if (exposure.getCreditDays() >= 0) {
+            body.addProperty("creditDays", exposure.getCreditDays());
+        }
+        if (exposure.getOldestOpen() != null) {
+            body.addProperty("oldestOpen", exposure.getOldestOpen().toString());
+        }
+        return body;
+    }
+    
+    private static JsonObject toJson(ReconcileReport report) {
+        JsonObject body = new JsonObject();
+        body.addProperty("completedAt", report.getCompletedAt().toString());
+        body.addProperty("durationMillis", report.getDurationMillis());
+        body.addProperty("customers", report.getCustomers());
+        body.addProperty("balancesChecked", report.isBalancesChecked());
+        body.addProperty("driftedCustomers", report.getDriftedCustomers());
+        body.addProperty("totalAbsoluteDrift", CreditExposureEngine.toAmount(report.getTotalAbsoluteDrift()));
+        JsonArray largest = new JsonArray();
+        for (ReconcileReport.Drift drift : report.getLargestDrifts()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("customerId", drift.getCustomerId());
+            entry.addProperty("memory", CreditExposureEngine.toAmount(drift.getMemoryBalance()));
+            entry.addProperty("database", CreditExposureEngine.toAmount(drift.getDatabaseBalance()));
+            largest.add(entry);
+        }
+        body.add("largestDrifts", largest);
+        return body;
+    }
+    
+    private static long parseAmount(String value) {
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + value);
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("amount must be positive");
+        }
+        return CreditExposureEngine.toPaise(amount);
+    }
+    
+    private static String[] split(String pathInfo) {
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+    
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid customer id: " + value);
+        }
+    }
+    
+    private static void sendJson(HttpServletResponse resp, int status, JsonObject body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        sendJson(resp, status, body);
+    }
+}
@@ -0,0 +1,218 @@
+package com.erp.servlet;
+
+import com.erp.hierarchy.OrgChart;
+import com.erp.hierarchy.OrgChartIndex;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reporting hierarchy queries answered from the in-memory {@link OrgChartIndex}:
+ * <ul>
+ *     <li>{@code GET /api/employees/{id}/reports?maxDepth=&status=&offset=&limit=} - everyone under an employee,
+ *     each listed after their manager</li>
+ *     <li>{@code GET /api/employees/{id}/chain?activeOnly=true} - the managers above an employee, nearest first</li>
+ *     <li>{@code GET /api/employees/{id}/manages/{otherId}} - whether {@code otherId} reports to {@code id}</li>
+ *     <li>{@code PUT /api/employees/{id}/manager} with {@code {"managerId": 42}} or {@code null}</li>
+ *     <li>{@code PUT /api/employees/{id}/status} with {@code {"status": "INACTIVE"}}</li>
+ * </ul>
+ * The chart is reloaded from the table every {@code erp.orgchart.refresh.minutes} (default 15, 0 to disable)
+ */
+@WebServlet("/api/employees/*")
+public class EmployeeHierarchyServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeHierarchyServlet.class);
+    private static final String REFRESH_MINUTES_PROPERTY = "erp.orgchart.refresh.minutes";
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    
+    private final Gson gson = new Gson();
+    private OrgChartIndex index;
+    
+    @Override
+    public void init() throws ServletException {
+        try {
+            index = new OrgChartIndex();
+        } catch (SQLException e) {
+            throw new ServletException("Cannot load the org chart", e);
+        }
+        long minutes = Long.getLong(REFRESH_MINUTES_PROPERTY, 15);
+        if (minutes > 0) {
+            index.startRefresh(minutes);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        if (index != null) {
+            index.close();
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        OrgChart chart = index.get();
+        try {
+            if (path.length == 2 && "reports".equals(path[1])) {
+                sendReports(req, resp, chart, parseId(path[0]));
+            } else if (path.length == 2 && "chain".equals(path[1])) {
+                long employeeId = parseId(path[0]);
+                List<OrgChart.Member> chain = chart.getChain(employeeId,
+                        Boolean.parseBoolean(req.getParameter("activeOnly")));
+                JsonObject body = new JsonObject();
+                body.addProperty("employeeId", employeeId);
+                body.add("chain", gson.toJsonTree(chain));
+                sendJson(resp, HttpServletResponse.SC_OK, body);
+            } else if (path.length == 3 && "manages".equals(path[1])) {
+                long managerId = parseId(path[0]);
+                long employeeId = parseId(path[2]);
+                for (long id : new long[] {managerId, employeeId}) {
+                    if (!chart.contains(id)) {
+                        throw new NoSuchElementException("Unknown employee " + id);
+                    }
+                }
+                JsonObject body = new JsonObject();
+                body.addProperty("managerId", managerId);
+                body.addProperty("employeeId", employeeId);
+                body.addProperty("manages", chart.isUnder(employeeId, managerId));
+                sendJson(resp, HttpServletResponse.SC_OK, body);
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            }
+        } catch (NoSuchElementException e) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void sendReports(HttpServletRequest req, HttpServletResponse resp, OrgChart chart, long managerId)
+            throws IOException {
+        int maxDepth = intParameter(req, "maxDepth", Integer.MAX_VALUE, 1);
+        int offset = intParameter(req, "offset", 0, 0);
+        int limit = Math.min(intParameter(req, "limit", DEFAULT_LIMIT, 1), MAX_LIMIT);
+        String status = req.getParameter("status");
+        // One extra tells whether there is another page
+        List<OrgChart.Member> reports = chart.getReports(managerId, maxDepth, status, offset, limit + 1);
+        boolean hasMore = reports.size() > limit;
+        JsonObject body = new JsonObject();
+        body.addProperty("employeeId", managerId);
+        body.addProperty("totalReports", chart.countReports(managerId));
+        body.addProperty("offset", offset);
+        body.addProperty("limit", limit);
+        body.addProperty("hasMore", hasMore);
+        body.add("reports", gson.toJsonTree(hasMore ? reports.subList(0, limit) : reports));
+        sendJson(resp, HttpServletResponse.SC_OK, body);
+    }
+    
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        String modifiedBy = req.getRemoteUser() != null ? req.getRemoteUser() : "API";
+        try {
+            if (path.length != 2 || !("manager".equals(path[1]) || "status".equals(path[1]))) {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+                return;
+            }
+            long employeeId = parseId(path[0]);
+            JsonObject request = readObject(req);
+            if ("manager".equals(path[1])) {
+                if (!request.has("managerId")) {
+                    throw new IllegalArgumentException("managerId is required (null for none)");
+                }
+                JsonElement manager = request.get("managerId");
+                if (!manager.isJsonNull() && !manager.isJsonPrimitive()) {
+                    throw new IllegalArgumentException("managerId must be a number or null");
+                }
+                index.changeManager(employeeId, manager.isJsonNull() ? null : manager.getAsLong(), modifiedBy);
+            } else {
+                JsonElement status = request.get("status");
+                index.changeStatus(employeeId, status == null || status.isJsonNull() ? null : status.getAsString(),
+                        modifiedBy);
+            }
+            OrgChart chart = index.get();
+            JsonObject body = new JsonObject();
+            body.addProperty("employeeId", employeeId);
+            body.addProperty("managerId", chart.getManagerId(employeeId));
+            body.addProperty("status", chart.getStatus(employeeId));
+            body.addProperty("totalReports", chart.countReports(employeeId));
+            sendJson(resp, HttpServletResponse.SC_OK, body);
+        } catch (NoSuchElementException e) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(resp, HttpServletResponse.SC_CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException | JsonParseException | UnsupportedOperationException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Failed to update employee {}", req.getPathInfo(), e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Update failed");
+        }
+    }
+    
+    private static JsonObject readObject(HttpServletRequest req) throws IOException {
+        JsonElement element = JsonParser.parseReader(req.getReader());
+        if (!element.isJsonObject()) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        return element.getAsJsonObject();
+    }
+    
+    private static String[] split(String pathInfo) {
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+    
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid employee id: " + value);
+        }
+    }
+    
+    private static int intParameter(HttpServletRequest req, String name, int defaultValue, int min) {
+        String value = req.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min) {
+                throw new IllegalArgumentException(name + " must be at least " + min);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+    
+    private static void sendJson(HttpServletResponse resp, int status, JsonObject body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        sendJson(resp, status, body);
+    }
+}
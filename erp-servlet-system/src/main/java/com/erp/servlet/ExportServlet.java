@@ -0,0 +1,154 @@
+package com.erp.servlet;
+
+import com.erp.export.ExportCache;
+import com.erp.export.ExportEntity;
+import com.erp.export.ExportFormat;
+import com.erp.export.ExportService;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * {@code GET /api/export/{products|customers|employees}?format=ndjson|csv}
+ * <p>
+ * Streams the whole table in id order. The response ETag is the table's watermark, so clients can revalidate with
+ * If-None-Match; repeat requests for an unchanged table are served from the on-disk copy of the last export.
+ * <p>
+ * {@code erp.export.watermark.ttl.seconds} (default 5) is how long a watermark is trusted before the table is
+ * checked again
+ */
+@WebServlet("/api/export/*")
+public class ExportServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ExportServlet.class);
+    private static final String EXPORT_DIR_PROPERTY = "erp.export.dir";
+    private static final String WATERMARK_TTL_PROPERTY = "erp.export.watermark.ttl.seconds";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    private ExportService exportService;
+    
+    @Override
+    public void init() throws ServletException {
+        Path directory = Paths.get(System.getProperty(EXPORT_DIR_PROPERTY,
+                Paths.get(System.getProperty("java.io.tmpdir"), "erp-export").toString()));
+        try {
+            exportService = new ExportService(new ExportCache(directory),
+                    Duration.ofSeconds(Long.getLong(WATERMARK_TTL_PROPERTY, 5)));
+        } catch (IOException e) {
+            throw new ServletException("Cannot use export directory " + directory, e);
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        ExportEntity entity = ExportEntity.fromPath(req.getPathInfo());
+        if (entity == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown export " + req.getPathInfo());
+            return;
+        }
+        ExportFormat format = ExportFormat.fromParameter(req.getParameter("format"));
+        if (format == null) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "format must be ndjson or csv");
+            return;
+        }
+        
+        String watermark;
+        try {
+            watermark = exportService.watermark(entity);
+        } catch (SQLException e) {
+            logger.error("Failed to read the {} watermark", entity, e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Export failed");
+            return;
+        }
+        String etag = "\"" + watermark + "-" + format.getExtension() + "\"";
+        resp.setHeader("ETag", etag);
+        if (etag.equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        resp.setContentType(format.getContentType());
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setHeader("Content-Disposition", "attachment; filename=\"" + entity.getTable().toLowerCase(Locale.ROOT)
+                + "." + format.getExtension() + "\"");
+        
+        Path cached = exportService.findCached(entity, format, watermark);
+        if (cached == null) {
+            cached = exportService.awaitInFlight(entity, format, watermark);
+        }
+        if (cached != null && sendFile(req, resp, cached)) {
+            return;
+        }
+        
+        resp.setHeader("X-Export-Cache", "MISS");
+        try {
+            exportService.stream(entity, format, watermark, resp.getOutputStream());
+        } catch (SQLException e) {
+            // Headers are usually committed by now, so the client sees a truncated body rather than a 500
+            logger.error("Export of {} failed", entity, e);
+            if (!resp.isCommitted()) {
+                resp.reset();
+                sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Export failed");
+            }
+        }
+    }
+    
+    /**
+     * Hands the file to the container's sendfile support when it has it (Tomcat NIO/NIO2/APR), otherwise copies it
+     * to the response stream. A servlet output stream is neither a file nor a socket channel, so outside sendfile
+     * every byte passes through a heap buffer whichever way the file is read
+     *
+     * @return false if a newer export removed the file before it could be opened
+     */
+    private static boolean sendFile(HttpServletRequest req, HttpServletResponse resp, Path file) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            logger.debug("Cached export {} was replaced before it could be sent", file);
+            return false;
+        }
+        try (channel) {
+            long size = channel.size();
+            resp.setHeader("X-Export-Cache", "HIT");
+            resp.setContentLengthLong(size);
+            if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+                // The container opens the file by name once we return; ExportCache keeps the previous version
+                req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                req.setAttribute(SENDFILE_START, 0L);
+                req.setAttribute(SENDFILE_END, size);
+            } else {
+                Channels.newInputStream(channel).transferTo(resp.getOutputStream());
+            }
+            return true;
+        }
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+}
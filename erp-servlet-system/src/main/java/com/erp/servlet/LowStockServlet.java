@@ -0,0 +1,275 @@
+package com.erp.servlet;
+
+import com.erp.listener.StockLedgerListener;
+import com.erp.stock.LowStockEntry;
+import com.erp.stock.LowStockEvent;
+import com.erp.stock.LowStockMonitor;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Products at or below their minimum stock level, from the {@link LowStockMonitor}:
+ * <ul>
+ *     <li>{@code GET /api/stock/low-stock?after=&limit=} - the current list in product id order; pass the returned
+ *     {@code nextAfter} to get the next page</li>
+ *     <li>{@code GET /api/stock/low-stock/stream} - Server-Sent Events, {@code low-stock} and {@code restocked}, one
+ *     per product per debounce window at most. Reconnecting with Last-Event-ID resumes the stream; a {@code reset}
+ *     event means events were missed, or the server restarted, and the list should be reloaded</li>
+ * </ul>
+ */
+@WebServlet(urlPatterns = "/api/stock/low-stock/*", asyncSupported = true)
+public class LowStockServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(LowStockServlet.class);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    // A client this far behind is disconnected; it resumes from its Last-Event-ID when it reconnects
+    private static final int CLIENT_QUEUE = 256;
+    // More missed events than this get a reset rather than a replay, leaving room in the queue for new events
+    private static final int MAX_REPLAY = CLIENT_QUEUE / 2;
+    private static final long HEARTBEAT_SECONDS = 15;
+    
+    private LowStockMonitor monitor;
+    private final Set<SseClient> clients = new CopyOnWriteArraySet<>();
+    private ExecutorService writers;
+    private ScheduledExecutorService heartbeat;
+    
+    @Override
+    public void init() throws ServletException {
+        monitor = (LowStockMonitor) getServletContext().getAttribute(StockLedgerListener.LOW_STOCK_ATTRIBUTE);
+        if (monitor == null) {
+            throw new ServletException("StockLedgerListener has not run");
+        }
+        // Writes block on slow clients, so each client drains on its own pooled thread rather than the publisher's
+        writers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "low-stock-sse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "low-stock-sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(() -> clients.forEach(client -> client.send(": keepalive\n\n")),
+                HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        clients.forEach(SseClient::close);
+        writers.shutdown();
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String path = req.getPathInfo();
+        if (path == null || "/".equals(path)) {
+            sendPage(req, resp);
+        } else if ("/stream".equals(path)) {
+            stream(req, resp);
+        } else {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+        }
+    }
+    
+    private void sendPage(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        long after;
+        int limit;
+        try {
+            String afterParam = req.getParameter("after");
+            after = afterParam == null || afterParam.isEmpty() ? Long.MIN_VALUE : Long.parseLong(afterParam);
+            String limitParam = req.getParameter("limit");
+            limit = limitParam == null || limitParam.isEmpty() ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+        } catch (NumberFormatException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "after and limit must be numbers");
+            return;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+            return;
+        }
+        List<LowStockEntry> page = monitor.getPage(after, limit);
+        JsonArray items = new JsonArray();
+        for (LowStockEntry entry : page) {
+            JsonObject item = new JsonObject();
+            item.addProperty("productId", entry.getProductId());
+            item.addProperty("onHand", entry.getOnHand());
+            item.addProperty("minStockLevel", entry.getMinLevel());
+            item.addProperty("since", entry.getSince().toString());
+            items.add(item);
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("total", monitor.getLowCount());
+        body.add("items", items);
+        if (page.size() == limit) {
+            body.addProperty("nextAfter", page.get(page.size() - 1).getProductId());
+        }
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    private void stream(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // Ids are <epoch>-<event id>; an id in any other form cannot be resumed from, so it gets a reset
+        long epoch = -1;
+        long lastEventId = -1;
+        String header = req.getHeader("Last-Event-ID");
+        if (header != null) {
+            lastEventId = 0;
+            int dash = header.indexOf('-');
+            if (dash > 0) {
+                try {
+                    epoch = Long.parseLong(header.substring(0, dash).trim());
+                    lastEventId = Long.parseLong(header.substring(dash + 1).trim());
+                } catch (NumberFormatException e) {
+                    epoch = -1;
+                    logger.debug("Cannot resume from Last-Event-ID {}", header);
+                }
+            }
+        }
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setHeader("Cache-Control", "no-cache");
+        // Stops nginx from buffering the stream
+        resp.setHeader("X-Accel-Buffering", "no");
+        AsyncContext async = req.startAsync();
+        async.setTimeout(0);
+        SseClient client = new SseClient(async);
+        async.addListener(client);
+        clients.add(client);
+        client.send("retry: 5000\n\n");
+        if (!monitor.subscribe(client, epoch, lastEventId, MAX_REPLAY)) {
+            client.send("event: reset\ndata: {}\n\n");
+        }
+    }
+    
+    private String format(LowStockEvent event) {
+        JsonObject data = new JsonObject();
+        data.addProperty("productId", event.getProductId());
+        data.addProperty("onHand", event.getOnHand());
+        data.addProperty("minStockLevel", event.getMinLevel());
+        data.addProperty("at", event.getAt().toString());
+        return "id: " + monitor.getEpoch() + "-" + event.getId() + "\nevent: "
+                + (event.isLow() ? "low-stock" : "restocked") + "\ndata: " + data + "\n\n";
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    /**
+     * One open stream. Events are queued by the publisher and written by at most one pooled thread at a time
+     */
+    private final class SseClient implements Consumer<LowStockEvent>, AsyncListener {
+        private final AsyncContext async;
+        private final Queue<String> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        SseClient(AsyncContext async) {
+            this.async = async;
+        }
+        
+        @Override
+        public void accept(LowStockEvent event) {
+            send(format(event));
+        }
+        
+        void send(String message) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                logger.info("Disconnecting a low stock stream that fell {} events behind", CLIENT_QUEUE);
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                PrintWriter writer = async.getResponse().getWriter();
+                do {
+                    String message;
+                    while ((message = queue.poll()) != null) {
+                        writer.write(message);
+                    }
+                    writer.flush();
+                    if (writer.checkError()) {
+                        close();
+                        return;
+                    }
+                    draining.set(false);
+                    // Something queued after the last poll but before draining was cleared
+                } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+        
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                monitor.unsubscribe(this);
+                clients.remove(this);
+                try {
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed by the container
+                }
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.erp.servlet;
+
+import com.erp.listener.ProductLookupListener;
+import com.erp.lookup.PriceRecord;
+import com.erp.lookup.ProductLookup;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Point-of-sale price lookups from the in-memory {@link ProductLookup}:
+ * <ul>
+ *     <li>{@code GET /api/pos/lookup?barcode=8901234567890} or {@code ?productCode=P-1001}</li>
+ *     <li>{@code GET /api/pos/lookup/{productId}}</li>
+ *     <li>{@code POST /api/pos/lookup/{productId}/refresh} - re-read one product after it was changed elsewhere</li>
+ *     <li>{@code POST /api/pos/lookup/reload} - rebuild the whole index</li>
+ * </ul>
+ * Only ACTIVE products are found
+ */
+@WebServlet("/api/pos/lookup/*")
+public class ProductLookupServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ProductLookupServlet.class);
+    
+    private ProductLookup lookup;
+    
+    @Override
+    public void init() throws ServletException {
+        lookup = (ProductLookup) getServletContext().getAttribute(ProductLookupListener.ATTRIBUTE);
+        if (lookup == null) {
+            throw new ServletException("ProductLookupListener has not run");
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        try {
+            PriceRecord found;
+            String key;
+            if (path.length == 1) {
+                key = path[0];
+                found = lookup.findById(parseId(key));
+            } else if (path.length == 0 && req.getParameter("barcode") != null) {
+                key = req.getParameter("barcode");
+                found = lookup.findByBarcode(key);
+            } else if (path.length == 0 && req.getParameter("productCode") != null) {
+                key = req.getParameter("productCode");
+                found = lookup.findByProductCode(key);
+            } else {
+                sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "barcode or productCode is required");
+                return;
+            }
+            if (found == null) {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "No active product " + key);
+            } else {
+                sendJson(resp, HttpServletResponse.SC_OK, toJson(found));
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        try {
+            if (path.length == 1 && "reload".equals(path[0])) {
+                lookup.reload();
+                JsonObject body = new JsonObject();
+                body.addProperty("products", lookup.size());
+                body.addProperty("offHeapBytes", lookup.offHeapBytes());
+                sendJson(resp, HttpServletResponse.SC_OK, body);
+            } else if (path.length == 2 && "refresh".equals(path[1])) {
+                long productId = parseId(path[0]);
+                PriceRecord found = lookup.refresh(productId);
+                if (found == null) {
+                    sendError(resp, HttpServletResponse.SC_NOT_FOUND, "No active product " + productId);
+                } else {
+                    sendJson(resp, HttpServletResponse.SC_OK, toJson(found));
+                }
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Product lookup request {} failed", req.getPathInfo(), e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Product lookup request failed");
+        }
+    }
+    
+    private static JsonObject toJson(PriceRecord record) {
+        JsonObject body = new JsonObject();
+        body.addProperty("productId", record.getProductId());
+        body.addProperty("productCode", record.getProductCode());
+        body.addProperty("barcode", record.getBarcode());
+        body.addProperty("hsn", record.getHsn());
+        body.addProperty("unitPrice", record.getUnitPrice());
+        body.addProperty("taxRate", record.getTaxRate());
+        return body;
+    }
+    
+    private static String[] split(String pathInfo) {
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+    
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid product id: " + value);
+        }
+    }
+    
+    private static void sendJson(HttpServletResponse resp, int status, JsonObject body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        sendJson(resp, status, body);
+    }
+}
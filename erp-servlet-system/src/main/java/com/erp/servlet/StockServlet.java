@@ -0,0 +1,206 @@
+package com.erp.servlet;
+
+import com.erp.listener.StockLedgerListener;
+import com.erp.stock.Reservation;
+import com.erp.stock.ReserveResult;
+import com.erp.stock.StockLedger;
+import com.erp.stock.StockLevel;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Stock reservations against the in-memory {@link StockLedger}:
+ * <ul>
+ *     <li>{@code GET /api/stock/{productId}} - on hand, reserved and available</li>
+ *     <li>{@code POST /api/stock/{productId}/reservations} with {@code {"quantity": 2}} - 201, or 409 with the
+ *     reason</li>
+ *     <li>{@code POST /api/stock/reservations/{reservationId}/commit} - 404 once released or expired</li>
+ *     <li>{@code DELETE /api/stock/reservations/{reservationId}}</li>
+ *     <li>{@code POST /api/stock/{productId}/receipts} with {@code {"quantity": 100}} - 409 above the maximum
+ *     stock level</li>
+ * </ul>
+ */
+@WebServlet("/api/stock/*")
+public class StockServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(StockServlet.class);
+    private static final String RESERVATIONS = "reservations";
+    
+    private StockLedger ledger;
+    
+    @Override
+    public void init() throws ServletException {
+        ledger = (StockLedger) getServletContext().getAttribute(StockLedgerListener.ATTRIBUTE);
+        if (ledger == null) {
+            throw new ServletException("StockLedgerListener has not run");
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        if (path.length != 1) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return;
+        }
+        try {
+            long productId = parseId(path[0]);
+            StockLevel level = ledger.getLevel(productId);
+            if (level == null) {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown product " + productId);
+                return;
+            }
+            sendJson(resp, HttpServletResponse.SC_OK, toJson(level));
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Failed to load stock for {}", req.getPathInfo(), e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Stock lookup failed");
+        }
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        try {
+            if (path.length == 3 && RESERVATIONS.equals(path[0]) && "commit".equals(path[2])) {
+                long reservationId = parseId(path[1]);
+                if (ledger.commit(reservationId)) {
+                    JsonObject body = new JsonObject();
+                    body.addProperty("reservationId", reservationId);
+                    body.addProperty("committed", true);
+                    sendJson(resp, HttpServletResponse.SC_OK, body);
+                } else {
+                    sendError(resp, HttpServletResponse.SC_NOT_FOUND,
+                            "Reservation " + reservationId + " is unknown, settled or expired");
+                }
+            } else if (path.length == 2 && RESERVATIONS.equals(path[1])) {
+                reserve(resp, parseId(path[0]), readQuantity(req));
+            } else if (path.length == 2 && "receipts".equals(path[1])) {
+                long productId = parseId(path[0]);
+                if (ledger.receive(productId, readQuantity(req))) {
+                    sendJson(resp, HttpServletResponse.SC_OK, toJson(ledger.getLevel(productId)));
+                } else {
+                    sendError(resp, HttpServletResponse.SC_CONFLICT, "Receipt would exceed the maximum stock level");
+                }
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            }
+        } catch (NoSuchElementException e) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException | JsonParseException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Stock request {} failed", req.getPathInfo(), e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Stock request failed");
+        } catch (IOException e) {
+            // Journal unavailable: nothing was changed, the client can retry once it is back
+            logger.error("Stock journal unavailable for {}", req.getPathInfo(), e);
+            sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Stock journal unavailable");
+        }
+    }
+    
+    private void reserve(HttpServletResponse resp, long productId, int quantity) throws IOException, SQLException {
+        ReserveResult result = ledger.reserve(productId, quantity);
+        JsonObject body = new JsonObject();
+        body.addProperty("productId", productId);
+        body.addProperty("outcome", result.getOutcome().name());
+        Reservation reservation = result.getReservation();
+        if (reservation != null) {
+            body.addProperty("reservationId", reservation.getReservationId());
+            body.addProperty("quantity", reservation.getQuantity());
+            body.addProperty("expiresAt", reservation.getExpiresAt().toString());
+            sendJson(resp, HttpServletResponse.SC_CREATED, body);
+        } else {
+            sendJson(resp, result.getOutcome() == ReserveResult.Outcome.UNKNOWN_PRODUCT
+                    ? HttpServletResponse.SC_NOT_FOUND : HttpServletResponse.SC_CONFLICT, body);
+        }
+    }
+    
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String[] path = split(req.getPathInfo());
+        if (path.length != 2 || !RESERVATIONS.equals(path[0])) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Not found");
+            return;
+        }
+        try {
+            long reservationId = parseId(path[1]);
+            if (ledger.release(reservationId)) {
+                resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            } else {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND,
+                        "Reservation " + reservationId + " is unknown, settled or expired");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private static int readQuantity(HttpServletRequest req) throws IOException {
+        JsonElement element = JsonParser.parseReader(req.getReader());
+        JsonElement quantity = element.isJsonObject() ? element.getAsJsonObject().get("quantity") : null;
+        if (quantity == null || !quantity.isJsonPrimitive()) {
+            throw new IllegalArgumentException("quantity is required");
+        }
+        try {
+            return quantity.getAsInt();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity must be a whole number");
+        }
+    }
+    
+    private static JsonObject toJson(StockLevel level) {
+        JsonObject body = new JsonObject();
+        body.addProperty("productId", level.getProductId());
+        body.addProperty("onHand", level.getOnHand());
+        body.addProperty("reserved", level.getReserved());
+        body.addProperty("available", level.getAvailable());
+        body.addProperty("minStockLevel", level.getMinLevel());
+        if (level.getMaxLevel() != Integer.MAX_VALUE) {
+            body.addProperty("maxStockLevel", level.getMaxLevel());
+        }
+        return body;
+    }
+    
+    private static String[] split(String pathInfo) {
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+    
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + value);
+        }
+    }
+    
+    private static void sendJson(HttpServletResponse resp, int status, JsonObject body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(body.toString());
+    }
+    
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        sendJson(resp, status, body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.erp.stock;
+
+import java.time.Instant;
+
+/**
+ * A product currently at or below its minimum stock level
+ */
+public final class LowStockEntry {
+    private final long productId;
+    private final int onHand;
+    private final int minLevel;
+    private final Instant since;
+    
+    LowStockEntry(long productId, int onHand, int minLevel, Instant since) {
+        this.productId = productId;
+        this.onHand = onHand;
+        this.minLevel = minLevel;
+        this.since = since;
+    }
+    
+    public long getProductId() { return productId; }
+    
+    public int getOnHand() { return onHand; }
+    
+    public int getMinLevel() { return minLevel; }
+    
+    /**
+     * @return when the product last went low, or when monitoring started if it already was
+     */
+    public Instant getSince() { return since; }
+}
@@ -0,0 +1,40 @@
+package com.erp.stock;
+
+import java.time.Instant;
+
+/**
+ * A product that settled on the other side of its minimum stock level; {@code low} is the side it settled on
+ */
+public final class LowStockEvent {
+    private final long id;
+    private final long productId;
+    private final boolean low;
+    private final int onHand;
+    private final int minLevel;
+    private final Instant at;
+    
+    LowStockEvent(long id, long productId, boolean low, int onHand, int minLevel, Instant at) {
+        this.id = id;
+        this.productId = productId;
+        this.low = low;
+        this.onHand = onHand;
+        this.minLevel = minLevel;
+        this.at = at;
+    }
+    
+    /**
+     * @return increases by one per event within a {@link LowStockMonitor#getEpoch() monitor epoch}, for resuming a
+     * stream
+     */
+    public long getId() { return id; }
+    
+    public long getProductId() { return productId; }
+    
+    public boolean isLow() { return low; }
+    
+    public int getOnHand() { return onHand; }
+    
+    public int getMinLevel() { return minLevel; }
+    
+    public Instant getAt() { return at; }
+}
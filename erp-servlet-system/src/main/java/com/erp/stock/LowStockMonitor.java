@@ -0,0 +1,204 @@
+package com.erp.stock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the set of products at or below their minimum stock level current as the {@link StockLedger} changes stock,
+ * instead of scanning PRODUCTS for them. The ledger never sells into the minimum, so reaching it is the crossing.
+ * <p>
+ * Crossings are published as {@link LowStockEvent}s with a trailing debounce: the first crossing of a product opens
+ * a window, and when it closes one event is sent only if the product ended on the other side from its last event.
+ * A product that flaps around its minimum therefore produces at most one event per window. The most recent events
+ * are kept so a reconnecting subscriber can resume where it left off. Event ids restart at one on every start, so
+ * they are only comparable within one {@link #getEpoch() epoch}
+ */
+public final class LowStockMonitor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LowStockMonitor.class);
+    private static final int RETAINED_EVENTS = 1024;
+    
+    private final StockLedger ledger;
+    private final Duration debounce;
+    private final Clock clock;
+    private final long epoch;
+    private final ConcurrentHashMap<Long, LowStockEntry> low = new ConcurrentHashMap<>();
+    // Same keys as low, sorted for paging
+    private final ConcurrentSkipListSet<Long> lowIds = new ConcurrentSkipListSet<>();
+    // Product -> end of its debounce window, in epoch millis
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final List<Consumer<LowStockEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService publisher;
+    // The rest is only touched under this
+    private final Set<Long> publishedLow = new HashSet<>();
+    private final LowStockEvent[] retained = new LowStockEvent[RETAINED_EVENTS];
+    private long lastEventId;
+    
+    /**
+     * Starts watching every product the ledger has loaded; products already low are listed but not announced
+     */
+    public LowStockMonitor(StockLedger ledger, Duration debounce, Clock clock) {
+        this.ledger = ledger;
+        this.debounce = debounce;
+        this.clock = clock;
+        this.epoch = clock.millis();
+        // Listen first so a change made during the scan is not missed; re-checking a product is harmless
+        ledger.addListener(this::check);
+        for (Long productId : ledger.loadedProductIds()) {
+            check(productId);
+        }
+        synchronized (this) {
+            publishedLow.addAll(low.keySet());
+        }
+        pending.clear();
+        logger.info("{} products at or below their minimum stock level", low.size());
+        
+        long tickMillis = Math.max(100, debounce.toMillis() / 4);
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "low-stock-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publishSettled, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    private void check(long productId) {
+        // compute runs one call per product at a time, and reads the level inside it, so the last change wins
+        low.compute(productId, (id, entry) -> {
+            StockLevel level = ledger.peekLevel(id);
+            boolean isLow = level != null && level.getOnHand() <= level.getMinLevel();
+            if (!isLow) {
+                if (entry != null) {
+                    lowIds.remove(id);
+                    crossed(id);
+                }
+                return null;
+            }
+            if (entry == null) {
+                lowIds.add(id);
+                crossed(id);
+                return new LowStockEntry(id, level.getOnHand(), level.getMinLevel(), clock.instant());
+            }
+            return entry.getOnHand() == level.getOnHand() ? entry
+                    : new LowStockEntry(id, level.getOnHand(), level.getMinLevel(), entry.getSince());
+        });
+    }
+    
+    private void crossed(long productId) {
+        pending.putIfAbsent(productId, clock.millis() + debounce.toMillis());
+    }
+    
+    private void publishSettled() {
+        try {
+            long now = clock.millis();
+            for (Map.Entry<Long, Long> window : pending.entrySet()) {
+                if (window.getValue() <= now && pending.remove(window.getKey(), window.getValue())) {
+                    publishIfChanged(window.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Low stock alert publishing failed", e);
+        }
+    }
+    
+    private synchronized void publishIfChanged(long productId) {
+        LowStockEntry entry = low.get(productId);
+        boolean isLow = entry != null;
+        if (isLow == publishedLow.contains(productId)) {
+            return;
+        }
+        if (isLow) {
+            publishedLow.add(productId);
+        } else {
+            publishedLow.remove(productId);
+        }
+        StockLevel level = entry == null ? ledger.peekLevel(productId) : null;
+        int onHand = entry != null ? entry.getOnHand() : level != null ? level.getOnHand() : 0;
+        int minLevel = entry != null ? entry.getMinLevel() : level != null ? level.getMinLevel() : 0;
+        LowStockEvent event = new LowStockEvent(++lastEventId, productId, isLow, onHand, minLevel, clock.instant());
+        retained[(int) (event.getId() % RETAINED_EVENTS)] = event;
+        for (Consumer<LowStockEvent> subscriber : subscribers) {
+            subscriber.accept(event);
+        }
+    }
+    
+    /**
+     * Low products with an id greater than {@code afterProductId}, in id order
+     */
+    public List<LowStockEntry> getPage(long afterProductId, int limit) {
+        List<LowStockEntry> page = new ArrayList<>(Math.min(limit, 256));
+        for (Long productId : lowIds.tailSet(afterProductId, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            // Can have gone back up between reading the id and the entry
+            LowStockEntry entry = low.get(productId);
+            if (entry != null) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+    
+    public int getLowCount() {
+        return low.size();
+    }
+    
+    /**
+     * Identifies this start; event ids from another epoch were numbered by an earlier start and mean nothing here
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+    
+    /**
+     * Sends the events after {@code lastEventId}, then every new event, to {@code subscriber} on the publishing
+     * thread; it must not block. Nothing is replayed unless every missed event can be: the subscriber is told to
+     * reload instead when the events are no longer retained, are more than {@code maxReplay}, or come from another
+     * epoch
+     *
+     * @param epoch the epoch {@code lastEventId} came from
+     * @param lastEventId the last event the subscriber saw, or -1 for new events only
+     * @param maxReplay the most events the subscriber can take at once
+     * @return false if the subscriber should reload the low stock list; the subscription is made either way
+     */
+    public synchronized boolean subscribe(Consumer<LowStockEvent> subscriber, long epoch, long lastEventId,
+                                          int maxReplay) {
+        boolean complete = true;
+        if (lastEventId >= 0) {
+            long missed = this.lastEventId - lastEventId;
+            complete = epoch == this.epoch && missed >= 0 && missed <= Math.min(maxReplay, RETAINED_EVENTS);
+            if (complete) {
+                for (long id = lastEventId + 1; id <= this.lastEventId; id++) {
+                    subscriber.accept(retained[(int) (id % RETAINED_EVENTS)]);
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        return complete;
+    }
+    
+    public void unsubscribe(Consumer<LowStockEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+    
+    @Override
+    public void close() {
+        publisher.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package com.erp.stock;
+
+import java.time.Instant;
+
+/**
+ * Stock held for one order until it is committed, released or expires
+ */
+public final class Reservation {
+    private final long reservationId;
+    private final long productId;
+    private final int quantity;
+    private final Instant expiresAt;
+    
+    Reservation(long reservationId, long productId, int quantity, Instant expiresAt) {
+        this.reservationId = reservationId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+    
+    public long getReservationId() { return reservationId; }
+    
+    public long getProductId() { return productId; }
+    
+    public int getQuantity() { return quantity; }
+    
+    public Instant getExpiresAt() { return expiresAt; }
+}
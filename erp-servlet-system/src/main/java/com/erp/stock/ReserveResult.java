@@ -0,0 +1,35 @@
+package com.erp.stock;
+
+/**
+ * Outcome of {@link StockLedger#reserve}; carries the reservation only when the stock was held
+ */
+public final class ReserveResult {
+    
+    public enum Outcome {
+        RESERVED,
+        /** Holding the quantity would take available stock below the product's minimum stock level */
+        INSUFFICIENT_STOCK,
+        INACTIVE,
+        UNKNOWN_PRODUCT
+    }
+    
+    private final Outcome outcome;
+    private final Reservation reservation;
+    
+    private ReserveResult(Outcome outcome, Reservation reservation) {
+        this.outcome = outcome;
+        this.reservation = reservation;
+    }
+    
+    static ReserveResult reserved(Reservation reservation) {
+        return new ReserveResult(Outcome.RESERVED, reservation);
+    }
+    
+    static ReserveResult refused(Outcome outcome) {
+        return new ReserveResult(outcome, null);
+    }
+    
+    public Outcome getOutcome() { return outcome; }
+    
+    public Reservation getReservation() { return reservation; }
+}
@@ -0,0 +1,328 @@
+package com.erp.stock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of stock deltas. A delta is durable on disk before {@link #append} completes, so a
+ * committed stock movement survives a crash even if it never reached the PRODUCTS table.
+ * <p>
+ * One writer thread takes everything queued since its last write, writes it and forces it to disk in one go, so
+ * concurrent commits share a single fsync. Records are fixed 24 bytes (sequence, product id, delta, CRC-32) in
+ * segment files named after their first sequence number; a torn record at the end of the last segment is cut off
+ * on recovery
+ */
+final class StockJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(StockJournal.class);
+    private static final int RECORD_BYTES = 24;
+    private static final int MAX_BATCH = 4096;
+    private static final long SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    
+    private final Path directory;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Queue<Entry> durable = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    private final Entry shutdownMarker = new Entry(0, 0);
+    private FileChannel segment;
+    private long nextSeq;
+    private volatile IOException failure;
+    // Guarded by this, so nothing is queued behind the shutdown marker
+    private boolean closed;
+    
+    private StockJournal(Path directory, long nextSeq) throws IOException {
+        this.directory = directory;
+        this.nextSeq = nextSeq;
+        this.segment = openSegment(nextSeq);
+        this.writer = new Thread(this::writeLoop, "stock-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    /**
+     * Reads every intact record after {@code checkpoint}, then opens a new segment for appends
+     *
+     * @param unapplied receives the records that have not reached the database
+     */
+    static StockJournal open(Path directory, long checkpoint, List<Record> unapplied) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        long lastSeq = checkpoint;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (true) {
+                    record.clear();
+                    while (record.hasRemaining() && channel.read(record, position + record.position()) > 0) {
+                        // keep reading until the record is complete or the file ends
+                    }
+                    if (record.position() == 0) {
+                        break;
+                    }
+                    record.flip();
+                    Record decoded = record.remaining() == RECORD_BYTES ? decode(record) : null;
+                    if (decoded == null) {
+                        if (!last) {
+                            throw new IOException("Corrupt stock journal record in " + path + " at " + position);
+                        }
+                        logger.warn("Truncating torn stock journal record in {} at {}", path, position);
+                        channel.truncate(position);
+                        channel.force(true);
+                        break;
+                    }
+                    if (decoded.seq > checkpoint) {
+                        unapplied.add(decoded);
+                    }
+                    lastSeq = Math.max(lastSeq, decoded.seq);
+                    position += RECORD_BYTES;
+                }
+            }
+        }
+        return new StockJournal(directory, lastSeq + 1);
+    }
+    
+    /**
+     * Queues a delta; the future completes once it is on disk, or exceptionally if the journal cannot be written
+     */
+    synchronized CompletableFuture<Void> append(long productId, int delta) {
+        Entry entry = new Entry(productId, delta);
+        IOException failed = failure;
+        if (failed != null) {
+            entry.done.completeExceptionally(failed);
+        } else if (closed) {
+            entry.done.completeExceptionally(new IOException("Stock journal is closed"));
+        } else {
+            queue.add(entry);
+        }
+        return entry.done;
+    }
+    
+    /**
+     * Removes and returns the records written since the last call, in sequence order
+     */
+    List<Record> drainDurable() {
+        List<Record> records = new ArrayList<>();
+        Entry entry;
+        while ((entry = durable.poll()) != null) {
+            records.add(new Record(entry.seq, entry.productId, entry.delta));
+        }
+        return records;
+    }
+    
+    /**
+     * Deletes segments whose records all have a sequence number of at most {@code checkpoint}
+     */
+    void deleteApplied(long checkpoint) throws IOException {
+        List<Path> segments = segments(directory);
+        // A segment's records end where the next segment's begin; the newest is still being written
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSeq(segments.get(i + 1)) - 1 <= checkpoint) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+    
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_BYTES);
+        boolean running = true;
+        while (running) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            if (batch.remove(shutdownMarker)) {
+                running = false;
+                // Appends that raced with close still get written
+                queue.drainTo(batch);
+            }
+            try {
+                write(batch, buffer);
+            } catch (IOException e) {
+                logger.error("Stock journal write failed; further stock commits are refused", e);
+                failure = e;
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(e);
+                }
+                List<Entry> refused = new ArrayList<>();
+                queue.drainTo(refused);
+                for (Entry entry : refused) {
+                    // A close that raced with the failure still has to stop the thread it waits for
+                    if (entry == shutdownMarker) {
+                        running = false;
+                    } else {
+                        entry.done.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.error("Error closing stock journal segment", e);
+        }
+    }
+    
+    private void write(List<Entry> batch, ByteBuffer buffer) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (segment.size() >= SEGMENT_BYTES) {
+            segment.close();
+            segment = openSegment(nextSeq);
+        }
+        long position = segment.size();
+        long firstSeq = nextSeq;
+        try {
+            for (int start = 0; start < batch.size(); start += MAX_BATCH) {
+                buffer.clear();
+                for (Entry entry : batch.subList(start, Math.min(batch.size(), start + MAX_BATCH))) {
+                    entry.seq = nextSeq++;
+                    encode(buffer, entry);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    segment.write(buffer);
+                }
+            }
+            segment.force(false);
+        } catch (IOException e) {
+            nextSeq = firstSeq;
+            discard(position, e);
+            throw e;
+        }
+        for (Entry entry : batch) {
+            durable.add(entry);
+            entry.done.complete(null);
+        }
+    }
+    
+    /**
+     * Cuts a failed batch off the segment. Its commits are rolled back in memory, so any of its records left on
+     * disk would be replayed into the database on the next start
+     */
+    private void discard(long position, IOException failed) {
+        try {
+            segment.truncate(position);
+            segment.force(true);
+        } catch (IOException e) {
+            failed.addSuppressed(e);
+            logger.error("Could not durably cut the failed batch off the stock journal; any records after byte {} of "
+                    + "the current segment were rolled back and must not be replayed", position, e);
+        }
+    }
+    
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        // Makes the new file's directory entry durable along with its first records
+        channel.force(true);
+        return channel;
+    }
+    
+    private static void encode(ByteBuffer buffer, Entry entry) {
+        int start = buffer.position();
+        buffer.putLong(entry.seq).putLong(entry.productId).putInt(entry.delta);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + 20));
+        buffer.putInt((int) crc.getValue());
+    }
+    
+    /**
+     * @return the record, or null if its checksum does not match
+     */
+    private static Record decode(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(20));
+        long seq = buffer.getLong();
+        long productId = buffer.getLong();
+        int delta = buffer.getInt();
+        return buffer.getInt() == (int) crc.getValue() ? new Record(seq, productId, delta) : null;
+    }
+    
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        // Zero-padded sequence numbers sort by name
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    
+    /**
+     * Writes what is already queued and stops the writer thread
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(shutdownMarker);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    static final class Record {
+        final long seq;
+        final long productId;
+        final int delta;
+        
+        Record(long seq, long productId, int delta) {
+            this.seq = seq;
+            this.productId = productId;
+            this.delta = delta;
+        }
+    }
+    
+    private static final class Entry {
+        final long productId;
+        final int delta;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Assigned by the writer thread
+        long seq;
+        
+        Entry(long productId, int delta) {
+            this.productId = productId;
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.erp.stock;
+
+import com.erp.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stock for order entry, so concurrent orders on a hot product do not queue on its PRODUCTS row lock.
+ * <p>
+ * Each product's on-hand and reserved quantities share one {@code long} updated by compare-and-set, so a
+ * reservation sees both consistently without a lock. A reservation may not take stock that is neither on hand nor
+ * already held below the product's MIN_STOCK_LEVEL, and a receipt may not take on-hand stock above
+ * MAX_STOCK_LEVEL. Reservations not committed or released within their TTL are released automatically.
+ * <p>
+ * Committed movements go to the {@link StockJournal} and are durable before {@link #commit} returns. A background
+ * task adds their net per-product deltas to PRODUCTS.STOCK_QUANTITY in one transaction together with the last
+ * journal sequence it applied, kept in
+ * <pre>
+ * CREATE TABLE STOCK_JOURNAL_CHECKPOINT (ID NUMBER PRIMARY KEY, LAST_SEQ NUMBER NOT NULL)
+ * </pre>
+ * so replaying the journal after a crash never applies a delta twice. Reservations themselves are not journaled;
+ * a crash releases them. While the ledger runs, stock changes must go through it rather than straight to the table
+ */
+public final class StockLedger implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+    private static final String LOAD_SQL =
+            "SELECT PRODUCT_ID, STOCK_QUANTITY, MIN_STOCK_LEVEL, MAX_STOCK_LEVEL, STATUS FROM PRODUCTS";
+    private static final String LOAD_ONE_SQL = LOAD_SQL + " WHERE PRODUCT_ID = ?";
+    private static final String APPLY_SQL = "UPDATE PRODUCTS SET STOCK_QUANTITY = COALESCE(STOCK_QUANTITY, 0) + ?,"
+            + " MODIFIED_DATE = ? WHERE PRODUCT_ID = ?";
+    private static final String READ_CHECKPOINT_SQL = "SELECT LAST_SEQ FROM STOCK_JOURNAL_CHECKPOINT WHERE ID = 1";
+    private static final String INSERT_CHECKPOINT_SQL =
+            "INSERT INTO STOCK_JOURNAL_CHECKPOINT (ID, LAST_SEQ) VALUES (1, 0)";
+    private static final String UPDATE_CHECKPOINT_SQL = "UPDATE STOCK_JOURNAL_CHECKPOINT SET LAST_SEQ = ? WHERE ID = 1";
+    private static final int FETCH_SIZE = 5000;
+    private static final long EXPIRY_PERIOD_MILLIS = 1000;
+    
+    private final ConcurrentHashMap<Long, ProductStock> products = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final List<StockListener> listeners = new CopyOnWriteArrayList<>();
+    // Time-based seed so ids handed out before a restart are not reused after it
+    private final AtomicLong reservationIds = new AtomicLong(System.currentTimeMillis() << 16);
+    private final StockJournal journal;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    // Only touched by the scheduler thread: deltas drained from the journal but not yet in the database
+    private final Map<Long, Long> pendingDeltas = new HashMap<>();
+    private long pendingSeq;
+    
+    private StockLedger(StockJournal journal, Duration ttl, Clock clock) {
+        this.journal = journal;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Replays whatever the journal holds beyond the database checkpoint, loads every product and starts expiring
+     * reservations and flushing deltas every {@code flushMillis}
+     */
+    public static StockLedger open(Path journalDirectory, Duration ttl, long flushMillis, Clock clock)
+            throws SQLException, IOException {
+        long checkpoint = readCheckpoint();
+        List<StockJournal.Record> unapplied = new ArrayList<>();
+        StockJournal journal = StockJournal.open(journalDirectory, checkpoint, unapplied);
+        StockLedger ledger = new StockLedger(journal, ttl, clock);
+        try {
+            if (!unapplied.isEmpty()) {
+                long lastSeq = ledger.collect(unapplied);
+                applyToDatabase(ledger.pendingDeltas, lastSeq);
+                logger.info("Replayed {} stock journal records up to sequence {}", unapplied.size(), lastSeq);
+                ledger.pendingDeltas.clear();
+                journal.deleteApplied(lastSeq);
+            }
+            ledger.loadAll();
+        } catch (SQLException | IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        ledger.scheduler.scheduleWithFixedDelay(ledger::expire, EXPIRY_PERIOD_MILLIS, EXPIRY_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+        ledger.scheduler.scheduleWithFixedDelay(ledger::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        return ledger;
+    }
+    
+    /**
+     * Holds {@code quantity} of a product for the ledger's TTL
+     */
+    public ReserveResult reserve(long productId, int quantity) throws SQLException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        ProductStock stock = stock(productId);
+        if (stock == null) {
+            return ReserveResult.refused(ReserveResult.Outcome.UNKNOWN_PRODUCT);
+        }
+        if (!stock.active) {
+            return ReserveResult.refused(ReserveResult.Outcome.INACTIVE);
+        }
+        if (!stock.tryReserve(quantity)) {
+            return ReserveResult.refused(ReserveResult.Outcome.INSUFFICIENT_STOCK);
+        }
+        Reservation reservation = new Reservation(reservationIds.incrementAndGet(), productId, quantity,
+                clock.instant().plus(ttl));
+        reservations.put(reservation.getReservationId(), reservation);
+        return ReserveResult.reserved(reservation);
+    }
+    
+    /**
+     * Gives held stock back
+     *
+     * @return false if the reservation is unknown, already settled or expired
+     */
+    public boolean release(long reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        products.get(reservation.getProductId()).update(0, -reservation.getQuantity());
+        return true;
+    }
+    
+    /**
+     * Turns held stock into a durable stock decrease
+     *
+     * @return false if the reservation is unknown, already settled or expired
+     * @throws IOException if the journal cannot be written; the reservation is then still held
+     */
+    public boolean commit(long reservationId) throws IOException {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        ProductStock stock = products.get(reservation.getProductId());
+        int quantity = reservation.getQuantity();
+        stock.update(-quantity, -quantity);
+        try {
+            await(journal.append(reservation.getProductId(), -quantity));
+        } catch (IOException e) {
+            stock.update(quantity, quantity);
+            reservations.put(reservationId, reservation);
+            throw e;
+        } finally {
+            stockChanged(reservation.getProductId());
+        }
+        return true;
+    }
+    
+    /**
+     * Adds received stock
+     *
+     * @return false if it would take on-hand stock above the product's maximum stock level
+     * @throws NoSuchElementException if the product does not exist
+     * @throws IOException            if the journal cannot be written; nothing is added then
+     */
+    public boolean receive(long productId, int quantity) throws SQLException, IOException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        ProductStock stock = stock(productId);
+        if (stock == null) {
+            throw new NoSuchElementException("Unknown product " + productId);
+        }
+        if (!stock.tryReceive(quantity)) {
+            return false;
+        }
+        try {
+            await(journal.append(productId, quantity));
+        } catch (IOException e) {
+            stock.update(-quantity, 0);
+            throw e;
+        } finally {
+            stockChanged(productId);
+        }
+        return true;
+    }
+    
+    /**
+     * Registers a listener told about every on-hand change, on the thread that made it
+     */
+    void addListener(StockListener listener) {
+        listeners.add(listener);
+    }
+    
+    private void stockChanged(long productId) {
+        for (StockListener listener : listeners) {
+            listener.onStockChanged(productId);
+        }
+    }
+    
+    /**
+     * @return the product's current figures if it is loaded, without going to the database
+     */
+    StockLevel peekLevel(long productId) {
+        ProductStock stock = products.get(productId);
+        return stock == null ? null : level(stock);
+    }
+    
+    Set<Long> loadedProductIds() {
+        return products.keySet();
+    }
+    
+    /**
+     * @return on hand, reserved, min and max for the product, or null if it does not exist
+     */
+    public StockLevel getLevel(long productId) throws SQLException {
+        ProductStock stock = stock(productId);
+        return stock == null ? null : level(stock);
+    }
+    
+    private static StockLevel level(ProductStock stock) {
+        long state = stock.state;
+        return new StockLevel(stock.productId, onHand(state), reserved(state), stock.minLevel, stock.maxLevel);
+    }
+    
+    private static void await(CompletableFuture<Void> durable) throws IOException {
+        try {
+            durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the stock journal", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException("Stock journal write failed", e.getCause());
+        }
+    }
+    
+    private ProductStock stock(long productId) throws SQLException {
+        ProductStock stock = products.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        // Created after startup; everything it has is in the table because nothing has journaled it yet
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_ONE_SQL)) {
+            ps.setLong(1, productId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                ProductStock loaded = read(rs);
+                ProductStock raced = products.putIfAbsent(productId, loaded);
+                if (raced != null) {
+                    return raced;
+                }
+                stockChanged(productId);
+                return loaded;
+            }
+        }
+    }
+    
+    private void loadAll() throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DatabaseUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_SQL)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ProductStock stock = read(rs);
+                    products.put(stock.productId, stock);
+                }
+            }
+        }
+        logger.info("Stock ledger loaded {} products in {} ms", products.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private static ProductStock read(ResultSet rs) throws SQLException {
+        long productId = rs.getLong(1);
+        int onHand = rs.getInt(2);
+        int min = rs.getInt(3);
+        int max = rs.getInt(4);
+        if (rs.wasNull()) {
+            max = Integer.MAX_VALUE;
+        }
+        return new ProductStock(productId, onHand, min, max, "ACTIVE".equals(rs.getString(5)));
+    }
+    
+    private void expire() {
+        Instant now = clock.instant();
+        int expired = 0;
+        for (Reservation reservation : reservations.values()) {
+            if (!reservation.getExpiresAt().isAfter(now)
+                    && reservations.remove(reservation.getReservationId(), reservation)) {
+                products.get(reservation.getProductId()).update(0, -reservation.getQuantity());
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            logger.debug("Released {} expired stock reservations", expired);
+        }
+    }
+    
+    private void flush() {
+        List<StockJournal.Record> records = journal.drainDurable();
+        if (!records.isEmpty()) {
+            pendingSeq = Math.max(pendingSeq, collect(records));
+        }
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+        try {
+            applyToDatabase(pendingDeltas, pendingSeq);
+            logger.debug("Flushed stock deltas for {} products up to sequence {}", pendingDeltas.size(), pendingSeq);
+            pendingDeltas.clear();
+            journal.deleteApplied(pendingSeq);
+        } catch (SQLException e) {
+            // The deltas stay pending and are retried with the next ones; the journal still has them
+            logger.error("Stock flush failed; {} products pending", pendingDeltas.size(), e);
+        } catch (IOException e) {
+            logger.warn("Could not delete applied stock journal segments", e);
+        }
+    }
+    
+    /**
+     * Adds records to the pending deltas
+     *
+     * @return the highest sequence number among them
+     */
+    private long collect(List<StockJournal.Record> records) {
+        long lastSeq = 0;
+        for (StockJournal.Record record : records) {
+            pendingDeltas.merge(record.productId, (long) record.delta, Long::sum);
+            lastSeq = Math.max(lastSeq, record.seq);
+        }
+        return lastSeq;
+    }
+    
+    private static void applyToDatabase(Map<Long, Long> deltas, long lastSeq) throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement apply = connection.prepareStatement(APPLY_SQL);
+                 PreparedStatement checkpoint = connection.prepareStatement(UPDATE_CHECKPOINT_SQL)) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                    if (delta.getValue() != 0) {
+                        apply.setLong(1, delta.getValue());
+                        apply.setTimestamp(2, now);
+                        apply.setLong(3, delta.getKey());
+                        apply.addBatch();
+                    }
+                }
+                apply.executeBatch();
+                checkpoint.setLong(1, lastSeq);
+                checkpoint.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                DatabaseUtil.rollbackTransaction(connection);
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    
+    private static long readCheckpoint() throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(READ_CHECKPOINT_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_CHECKPOINT_SQL)) {
+                ps.executeUpdate();
+            }
+            return 0;
+        }
+    }
+    
+    /**
+     * Stops expiry, writes queued journal records and flushes everything durable to the database
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        flush();
+    }
+    
+    private static int onHand(long state) {
+        return (int) (state >> 32);
+    }
+    
+    private static int reserved(long state) {
+        return (int) state;
+    }
+    
+    private static long pack(int onHand, int reserved) {
+        return (long) onHand << 32 | (reserved & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * One product's stock: on hand in the high 32 bits of {@code state}, reserved in the low 32
+     */
+    private static final class ProductStock {
+        private static final VarHandle STATE;
+        
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(ProductStock.class, "state", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
+        final long productId;
+        final int minLevel;
+        final int maxLevel;
+        final boolean active;
+        volatile long state;
+        
+        ProductStock(long productId, int onHand, int minLevel, int maxLevel, boolean active) {
+            this.productId = productId;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+            this.active = active;
+            this.state = pack(onHand, 0);
+        }
+        
+        boolean tryReserve(int quantity) {
+            while (true) {
+                long current = state;
+                int reserved = reserved(current);
+                if ((long) onHand(current) - reserved - minLevel < quantity) {
+                    return false;
+                }
+                if (STATE.compareAndSet(this, current, pack(onHand(current), reserved + quantity))) {
+                    return true;
+                }
+            }
+        }
+        
+        boolean tryReceive(int quantity) {
+            while (true) {
+                long current = state;
+                int onHand = onHand(current);
+                if ((long) onHand + quantity > maxLevel) {
+                    return false;
+                }
+                if (STATE.compareAndSet(this, current, pack(onHand + quantity, reserved(current)))) {
+                    return true;
+                }
+            }
+        }
+        
+        void update(int onHandDelta, int reservedDelta) {
+            while (true) {
+                long current = state;
+                long next = pack(onHand(current) + onHandDelta, reserved(current) + reservedDelta);
+                if (STATE.compareAndSet(this, current, next)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.erp.stock;
+
+/**
+ * A product's stock figures at one moment
+ */
+public final class StockLevel {
+    private final long productId;
+    private final int onHand;
+    private final int reserved;
+    private final int minLevel;
+    private final int maxLevel;
+    
+    StockLevel(long productId, int onHand, int reserved, int minLevel, int maxLevel) {
+        this.productId = productId;
+        this.onHand = onHand;
+        this.reserved = reserved;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+    }
+    
+    public long getProductId() { return productId; }
+    
+    public int getOnHand() { return onHand; }
+    
+    public int getReserved() { return reserved; }
+    
+    /**
+     * @return what can still be reserved without going below the minimum stock level
+     */
+    public int getAvailable() { return Math.max(0, onHand - reserved - minLevel); }
+    
+    public int getMinLevel() { return minLevel; }
+    
+    /**
+     * @return {@link Integer#MAX_VALUE} if the product has no maximum stock level
+     */
+    public int getMaxLevel() { return maxLevel; }
+}
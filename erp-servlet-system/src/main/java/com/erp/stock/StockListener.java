@@ -0,0 +1,10 @@
+package com.erp.stock;
+
+/**
+ * Told after a product's on-hand quantity changes. Called on the thread that changed it, possibly concurrently for
+ * the same product, so implementations read the current level rather than trusting the order of calls
+ */
+interface StockListener {
+    
+    void onStockChanged(long productId);
+}
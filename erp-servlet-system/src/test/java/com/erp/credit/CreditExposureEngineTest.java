@@ -0,0 +1,123 @@
+package com.erp.credit;
+
+import com.erp.util.DatabaseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CreditExposureEngineTest {
+    
+    // Calls HOOK() in the WHERE clause, so a test can act while the query runs
+    private static final String EXPOSURE_QUERY = "SELECT CUSTOMER_ID, SUM(AMOUNT), MIN(BOOKED_ON) FROM OPEN_ITEMS"
+            + " WHERE HOOK() = 1 GROUP BY CUSTOMER_ID";
+    private static volatile Runnable duringQuery;
+    
+    private CreditExposureEngine engine;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("DROP TABLE IF EXISTS CUSTOMERS",
+                "DROP TABLE IF EXISTS OPEN_ITEMS",
+                "CREATE TABLE CUSTOMERS (CUSTOMER_ID NUMBER PRIMARY KEY, CREDIT_LIMIT NUMBER(15,2), CREDIT_DAYS NUMBER,"
+                        + " STATUS VARCHAR2(20))",
+                "CREATE TABLE OPEN_ITEMS (CUSTOMER_ID NUMBER, AMOUNT NUMBER(15,2), BOOKED_ON DATE)",
+                "CREATE ALIAS IF NOT EXISTS HOOK FOR \"" + QueryHook.class.getName() + ".hook\"",
+                "INSERT INTO CUSTOMERS VALUES (1, 1000.00, NULL, 'ACTIVE')",
+                // A row that is not 1's, so the query always calls HOOK() at least once
+                "INSERT INTO OPEN_ITEMS VALUES (2, 1.00, CURRENT_DATE)");
+        duringQuery = null;
+        engine = new CreditExposureEngine(EXPOSURE_QUERY, Clock.systemDefaultZone());
+        engine.reconcile();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+    
+    // Public so H2 can call it
+    public static final class QueryHook {
+        public static int hook() {
+            Runnable action = duringQuery;
+            duringQuery = null;
+            if (action != null) {
+                action.run();
+            }
+            return 1;
+        }
+    }
+    
+    @Test
+    void committedOrderStaysInTheExposureUntilReconciled() {
+        assertEquals(CreditDecision.ACCEPTED, engine.reserve(1, 90_000));
+        assertEquals(CreditDecision.OVER_LIMIT, engine.reserve(1, 90_000));
+        
+        assertTrue(engine.commit(1, 90_000));
+        
+        assertEquals(CreditDecision.OVER_LIMIT, engine.reserve(1, 90_000));
+        CreditExposureEngine.Exposure exposure = engine.getExposure(1);
+        assertEquals(0, exposure.getReserved());
+        assertEquals(90_000, exposure.getCommitted());
+        assertEquals(10_000, exposure.getAvailable());
+    }
+    
+    @Test
+    void releasedReservationFreesTheCredit() {
+        assertEquals(CreditDecision.ACCEPTED, engine.reserve(1, 90_000));
+        assertTrue(engine.release(1, 90_000));
+        
+        assertEquals(CreditDecision.ACCEPTED, engine.reserve(1, 90_000));
+    }
+    
+    @Test
+    void reconcileDropsCommitsTheBalanceNowIncludes() throws SQLException {
+        engine.reserve(1, 90_000);
+        execute("INSERT INTO OPEN_ITEMS VALUES (1, 900.00, CURRENT_DATE)");
+        engine.commit(1, 90_000);
+        
+        ReconcileReport report = engine.reconcile();
+        
+        CreditExposureEngine.Exposure exposure = engine.getExposure(1);
+        assertEquals(90_000, exposure.getBalance());
+        assertEquals(0, exposure.getCommitted());
+        assertEquals(0, report.getDriftedCustomers());
+        assertEquals(CreditDecision.OVER_LIMIT, engine.reserve(1, 90_000));
+    }
+    
+    @Test
+    void reconcileKeepsCommitsMadeAfterItsQueryStarted() throws SQLException {
+        engine.reserve(1, 30_000);
+        // Saved and committed while the query runs, so the balance it reads does not include it
+        duringQuery = () -> engine.commit(1, 30_000);
+        
+        engine.reconcile();
+        
+        CreditExposureEngine.Exposure exposure = engine.getExposure(1);
+        assertEquals(0, exposure.getBalance());
+        assertEquals(30_000, exposure.getCommitted());
+        assertEquals(CreditDecision.OVER_LIMIT, engine.reserve(1, 80_000));
+        
+        execute("INSERT INTO OPEN_ITEMS VALUES (1, 300.00, CURRENT_DATE)");
+        engine.reconcile();
+        
+        exposure = engine.getExposure(1);
+        assertEquals(30_000, exposure.getBalance());
+        assertEquals(0, exposure.getCommitted());
+    }
+    
+    private static void execute(String... sql) throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection(); Statement statement = connection.createStatement()) {
+            for (String each : sql) {
+                statement.execute(each);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.erp.hierarchy;
+
+import com.erp.util.DatabaseUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrgChartIndexTest {
+    
+    private OrgChartIndex index;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("DROP TABLE IF EXISTS EMPLOYEES",
+                "CREATE TABLE EMPLOYEES (EMPLOYEE_ID NUMBER PRIMARY KEY, MANAGER_ID NUMBER, STATUS VARCHAR2(20),"
+                        + " MODIFIED_DATE TIMESTAMP, MODIFIED_BY VARCHAR2(50))",
+                "INSERT INTO EMPLOYEES (EMPLOYEE_ID, MANAGER_ID, STATUS) VALUES (1, NULL, 'ACTIVE')",
+                "INSERT INTO EMPLOYEES (EMPLOYEE_ID, MANAGER_ID, STATUS) VALUES (2, 1, 'ACTIVE')");
+        index = new OrgChartIndex();
+    }
+    
+    @Test
+    void statusChangeLoadsAnEmployeeInsertedSinceTheReload() throws SQLException {
+        execute("INSERT INTO EMPLOYEES (EMPLOYEE_ID, MANAGER_ID, STATUS) VALUES (3, 2, 'ACTIVE')");
+        
+        index.changeStatus(3, "INACTIVE", "test");
+        
+        assertEquals("INACTIVE", index.get().getStatus(3));
+        assertTrue(index.get().isUnder(3, 1));
+    }
+    
+    @Test
+    void managerChangeLoadsAManagerInsertedSinceTheReload() throws SQLException {
+        execute("INSERT INTO EMPLOYEES (EMPLOYEE_ID, MANAGER_ID, STATUS) VALUES (4, 1, 'ACTIVE')");
+        
+        index.changeManager(2, 4L, "test");
+        
+        assertTrue(index.get().isUnder(2, 4));
+        assertEquals(2, index.get().countReports(1));
+    }
+    
+    @Test
+    void changeToAnEmployeeMissingFromTheTableStillFails() {
+        assertThrows(NoSuchElementException.class, () -> index.changeStatus(99, "ACTIVE", "test"));
+        assertThrows(IllegalArgumentException.class, () -> index.changeManager(2, 99L, "test"));
+    }
+    
+    private static void execute(String... sql) throws SQLException {
+        try (Connection connection = DatabaseUtil.getConnection(); Statement statement = connection.createStatement()) {
+            for (String each : sql) {
+                statement.execute(each);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.erp.hierarchy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrgChartTest {
+    
+    private static final long NONE = OrgChart.NO_MANAGER;
+    
+    // 1 -> {2 -> {4, 5}, 3 -> {6 -> {7}}}
+    private static OrgChart tree() {
+        return OrgChart.build(new long[] {1, 2, 3, 4, 5, 6, 7},
+                new long[] {NONE, 1, 1, 2, 2, 3, 6},
+                statuses(7)).chart;
+    }
+    
+    @Test
+    void moveRightRenumbersTheTeamUnderItsNewManager() {
+        OrgChart before = tree();
+        OrgChart after = before.withManager(2, 6L);
+        
+        assertEquals(List.of(6L, 7L, 2L, 4L, 5L), ids(after.getReports(3, Integer.MAX_VALUE, null, 0, 100)));
+        assertEquals(List.of(1, 2, 2, 3, 3), levels(after.getReports(3, Integer.MAX_VALUE, null, 0, 100)));
+        assertEquals(List.of(2L, 6L, 3L, 1L), ids(after.getChain(4, false)));
+        assertEquals(6, after.countReports(1));
+        assertEquals(5, after.countReports(3));
+        assertEquals(4, after.countReports(6));
+        assertEquals(2, after.countReports(2));
+        assertTrue(after.isUnder(5, 6));
+        assertEquals(Long.valueOf(6), after.getManagerId(2));
+        
+        // The snapshot it was derived from is unchanged
+        assertFalse(before.isUnder(2, 6));
+        assertEquals(1, before.countReports(6));
+        assertEquals(List.of(2L, 4L, 5L, 3L, 6L, 7L), ids(before.getReports(1, Integer.MAX_VALUE, null, 0, 100)));
+    }
+    
+    @Test
+    void moveLeftRenumbersTheEmployeesItPasses() {
+        OrgChart after = tree().withManager(6, 2L);
+        
+        assertEquals(List.of(2L, 4L, 5L, 6L, 7L, 3L), ids(after.getReports(1, Integer.MAX_VALUE, null, 0, 100)));
+        assertEquals(List.of(1, 2, 2, 2, 3, 1), levels(after.getReports(1, Integer.MAX_VALUE, null, 0, 100)));
+        assertEquals(4, after.countReports(2));
+        assertEquals(0, after.countReports(3));
+        assertTrue(after.isUnder(7, 2));
+        assertFalse(after.isUnder(7, 3));
+    }
+    
+    @Test
+    void moveToTopLevelDetachesTheTeam() {
+        OrgChart after = tree().withManager(3, null);
+        
+        assertNull(after.getManagerId(3));
+        assertEquals(3, after.countReports(1));
+        assertEquals(2, after.countReports(3));
+        assertFalse(after.isUnder(7, 1));
+        assertEquals(List.of(6L, 3L), ids(after.getChain(7, false)));
+    }
+    
+    @Test
+    void moveUnderOwnReportIsRejected() {
+        OrgChart chart = tree();
+        
+        assertThrows(IllegalStateException.class, () -> chart.withManager(3, 7L));
+        assertThrows(IllegalStateException.class, () -> chart.withManager(2, 2L));
+        assertThrows(IllegalArgumentException.class, () -> chart.withManager(2, 99L));
+    }
+    
+    @Test
+    void newEmployeeJoinsTheEndOfTheManagersTeam() {
+        OrgChart after = tree().withEmployee(8, 2L, "ACTIVE");
+        
+        assertEquals(8, after.size());
+        assertEquals(List.of(4L, 5L, 8L), ids(after.getReports(2, 1, null, 0, 100)));
+        assertEquals(List.of(2L, 1L), ids(after.getChain(8, false)));
+        assertEquals(7, after.countReports(1));
+    }
+    
+    @Test
+    void buildBreaksACycleAtOneMember() {
+        // 3 -> 4 -> 5 -> 3 is a cycle, 6 hangs off it, 7 names itself and 8 names a missing manager
+        OrgChart.Built built = OrgChart.build(new long[] {1, 2, 3, 4, 5, 6, 7, 8},
+                new long[] {NONE, 1, 5, 3, 4, 3, 7, 99},
+                statuses(8));
+        OrgChart chart = built.chart;
+        
+        assertEquals(3, built.droppedLinks);
+        assertEquals(8, chart.size());
+        List<Long> cycleRoots = new ArrayList<>();
+        for (long id = 3; id <= 5; id++) {
+            if (chart.getManagerId(id) == null) {
+                cycleRoots.add(id);
+            }
+        }
+        assertEquals(1, cycleRoots.size());
+        long root = cycleRoots.get(0);
+        assertEquals(3, chart.countReports(root));
+        assertTrue(chart.isUnder(6, root));
+        assertNull(chart.getManagerId(7));
+        assertNull(chart.getManagerId(8));
+        assertEquals(1, chart.countReports(1));
+    }
+    
+    private static String[] statuses(int n) {
+        String[] statuses = new String[n];
+        for (int i = 0; i < n; i++) {
+            statuses[i] = "ACTIVE";
+        }
+        return statuses;
+    }
+    
+    private static List<Long> ids(List<OrgChart.Member> members) {
+        List<Long> ids = new ArrayList<>();
+        for (OrgChart.Member member : members) {
+            ids.add(member.getEmployeeId());
+        }
+        return ids;
+    }
+    
+    private static List<Integer> levels(List<OrgChart.Member> members) {
+        List<Integer> levels = new ArrayList<>();
+        for (OrgChart.Member member : members) {
+            levels.add(member.getLevel());
+        }
+        return levels;
+    }
+}
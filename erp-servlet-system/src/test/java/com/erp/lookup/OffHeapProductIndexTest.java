@@ -0,0 +1,71 @@
+package com.erp.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapProductIndexTest {
+    
+    private final OffHeapProductIndex index = new OffHeapProductIndex(16, 1024);
+    
+    @Test
+    void findsByEveryKey() {
+        assertTrue(index.upsert(7, "P7", "890", "8471", new BigDecimal("99.50"), new BigDecimal("18")));
+        
+        PriceRecord byBarcode = index.findByBarcode("890");
+        assertNotNull(byBarcode);
+        assertEquals(7, byBarcode.getProductId());
+        assertEquals("P7", byBarcode.getProductCode());
+        assertEquals("8471", byBarcode.getHsn());
+        assertEquals(new BigDecimal("99.50"), byBarcode.getUnitPrice());
+        assertEquals(new BigDecimal("18.00"), byBarcode.getTaxRate());
+        assertNotNull(index.findByProductCode("P7"));
+        assertNotNull(index.findById(7));
+    }
+    
+    @Test
+    void changedKeysReplaceOldOnes() {
+        index.upsert(7, "P7", "890", null, BigDecimal.ONE, null);
+        index.upsert(7, "P7-B", "891", null, BigDecimal.TEN, null);
+        
+        assertNull(index.findByBarcode("890"));
+        assertNull(index.findByProductCode("P7"));
+        assertEquals(BigDecimal.TEN.setScale(2), index.findByBarcode("891").getUnitPrice());
+        assertEquals(7, index.findByProductCode("P7-B").getProductId());
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void removedProductUpsertedAgainIsFoundByItsKeys() {
+        index.upsert(7, "P7", "890", null, BigDecimal.ONE, null);
+        assertTrue(index.remove(7));
+        assertNull(index.findByBarcode("890"));
+        assertNull(index.findById(7));
+        
+        assertTrue(index.upsert(7, "P7", "890", null, BigDecimal.ONE, null));
+        
+        assertEquals(7, index.findByBarcode("890").getProductId());
+        assertEquals(7, index.findByProductCode("P7").getProductId());
+        assertEquals(1, index.size());
+        assertTrue(index.remove(7));
+        assertNull(index.findByProductCode("P7"));
+    }
+    
+    @Test
+    void copyKeepsOnlyLiveProducts() {
+        index.upsert(1, "P1", "801", null, BigDecimal.ONE, null);
+        index.upsert(2, "P2", "802", null, BigDecimal.ONE, null);
+        index.remove(1);
+        
+        OffHeapProductIndex copy = index.copy(64, 4096);
+        
+        assertEquals(1, copy.size());
+        assertNull(copy.findByBarcode("801"));
+        assertEquals(2, copy.findByBarcode("802").getProductId());
+    }
+}
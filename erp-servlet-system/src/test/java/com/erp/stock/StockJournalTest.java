@@ -0,0 +1,258 @@
+package com.erp.stock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockJournalTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replaysOnlyRecordsAfterTheCheckpoint() throws Exception {
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            journal.append(1, -5).get();
+            journal.append(2, 7).get();
+            journal.append(1, -3).get();
+        }
+        
+        List<StockJournal.Record> replay = new ArrayList<>();
+        try (StockJournal journal = StockJournal.open(directory, 2, replay)) {
+            assertEquals(1, replay.size());
+            assertEquals(3, replay.get(0).seq);
+            assertEquals(1, replay.get(0).productId);
+            assertEquals(-3, replay.get(0).delta);
+            
+            // Numbering carries on after the highest record on disk
+            journal.append(3, 1).get();
+            assertEquals(4, journal.drainDurable().get(0).seq);
+        }
+    }
+    
+    @Test
+    void truncatesATornRecordAtTheEndOfTheLastSegment() throws Exception {
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            journal.append(1, -5).get();
+            journal.append(1, -3).get();
+        }
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[10], StandardOpenOption.APPEND);
+        
+        List<StockJournal.Record> replay = new ArrayList<>();
+        StockJournal.open(directory, 0, replay).close();
+        
+        assertEquals(2, replay.size());
+        assertEquals(2 * 24, Files.size(segment));
+    }
+    
+    @Test
+    void refusesToOpenWithACorruptRecordBeforeTheLastSegment() throws Exception {
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            journal.append(1, -5).get();
+        }
+        StockJournal.open(directory, 0, new ArrayList<>()).close();
+        Path first = segments().get(0);
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[12] ^= 1;
+        Files.write(first, bytes);
+        
+        assertThrows(IOException.class, () -> StockJournal.open(directory, 0, new ArrayList<>()));
+    }
+    
+    @Test
+    void failedBatchIsNotReplayed() throws Exception {
+        StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>());
+        journal.append(1, -5).get();
+        journal.append(1, -3).get();
+        FailingChannel failing = failSegmentSync(journal);
+        
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> journal.append(1, -100).get());
+        assertEquals("disk full", failed.getCause().getMessage());
+        // The journal stays refused once a write has failed
+        assertThrows(ExecutionException.class, () -> journal.append(1, -1).get());
+        failing.fail = false;
+        journal.close();
+        
+        List<StockJournal.Record> replay = new ArrayList<>();
+        StockJournal.open(directory, 0, replay).close();
+        assertEquals(2, replay.size());
+        assertEquals(-5, replay.get(0).delta);
+        assertEquals(-3, replay.get(1).delta);
+    }
+    
+    @Test
+    void deleteAppliedKeepsTheLiveSegment() throws Exception {
+        // Each open starts a segment, so three sessions leave journal-1 (seq 1-2), journal-3 (seq 3) and journal-4
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            journal.append(1, -5).get();
+            journal.append(1, -3).get();
+        }
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            journal.append(1, -1).get();
+        }
+        try (StockJournal journal = StockJournal.open(directory, 0, new ArrayList<>())) {
+            assertEquals(List.of(1L, 3L, 4L), firstSeqs());
+            
+            journal.deleteApplied(2);
+            assertEquals(List.of(3L, 4L), firstSeqs());
+            
+            journal.deleteApplied(Long.MAX_VALUE);
+            assertEquals(List.of(4L), firstSeqs());
+            
+            journal.append(2, 9).get();
+        }
+        
+        List<StockJournal.Record> replay = new ArrayList<>();
+        StockJournal.open(directory, 3, replay).close();
+        assertEquals(1, replay.size());
+        assertEquals(4, replay.get(0).seq);
+    }
+    
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private List<Long> firstSeqs() throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        for (Path segment : segments()) {
+            String name = segment.getFileName().toString();
+            seqs.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())));
+        }
+        return seqs;
+    }
+    
+    /**
+     * Swaps the journal's open segment for one whose data sync fails, after its records are written. The next
+     * append hands the swap to the writer thread through the queue
+     */
+    private static FailingChannel failSegmentSync(StockJournal journal) throws ReflectiveOperationException {
+        Field field = StockJournal.class.getDeclaredField("segment");
+        field.setAccessible(true);
+        FailingChannel failing = new FailingChannel((FileChannel) field.get(journal));
+        field.set(journal, failing);
+        return failing;
+    }
+    
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean fail = true;
+        
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public void force(boolean metaData) throws IOException {
+            // Only the batch sync fails, so cutting the batch off can still be made durable
+            if (fail && !metaData) {
+                throw new IOException("disk full");
+            }
+            delegate.force(metaData);
+        }
+        
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+        
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+        
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+        
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+        
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+        
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+        
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+        
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+        
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+        
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+        
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+        
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+        
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+        
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+        
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+        
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
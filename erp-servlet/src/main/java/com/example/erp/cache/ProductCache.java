@@ -0,0 +1,113 @@
+package com.example.erp.cache;
+
+import com.example.erp.config.EnvConfig;
+import com.example.erp.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache of products by id (Caffeine, W-TinyLFU eviction).
+ * Misses are cached as {@link Optional#empty()} with a shorter TTL so repeated lookups
+ * of unknown ids do not reach the database either.
+ */
+public class ProductCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCache.class);
+
+    private final Cache<Long, Optional<Product>> cache;
+
+    public ProductCache(long maximumSize, Duration ttl, Duration negativeTtl) {
+        long ttlNanos = ttl.toNanos();
+        long negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<Product>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<Product> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<Product> value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(id, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<Product> value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public static ProductCache fromEnv() {
+        long maximumSize = EnvConfig.getLong("PRODUCT_CACHE_MAX_SIZE", 10_000);
+        Duration ttl = Duration.ofSeconds(EnvConfig.getLong("PRODUCT_CACHE_TTL_SECONDS", 60));
+        Duration negativeTtl = Duration.ofSeconds(EnvConfig.getLong("PRODUCT_CACHE_NEGATIVE_TTL_SECONDS", 5));
+        LOGGER.info("Product cache enabled: maximumSize={} ttl={} negativeTtl={}", maximumSize, ttl, negativeTtl);
+        return new ProductCache(maximumSize, ttl, negativeTtl);
+    }
+
+    /**
+     * Returns the cached lookup for {@code id}, calling {@code loader} on a miss. Concurrent misses
+     * for the same id wait for a single load.
+     */
+    public Optional<Product> get(long id, Loader loader) throws SQLException {
+        try {
+            return cache.get(id, key -> {
+                try {
+                    return loader.load(key);
+                } catch (SQLException e) {
+                    throw new LoadFailedException(e);
+                }
+            });
+        } catch (LoadFailedException e) {
+            throw (SQLException) e.getCause();
+        }
+    }
+
+    /**
+     * @return the cached lookup for {@code id}, or {@code null} if it is not cached
+     */
+    public Optional<Product> getIfPresent(long id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Drops the entry for {@code id}. If a load for the same id is in flight, this waits for it
+     * and removes its result, so a read racing a write cannot leave the old row cached.
+     */
+    public void invalidate(long id) {
+        cache.invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Optional<Product> load(long id) throws SQLException;
+    }
+
+    private static final class LoadFailedException extends RuntimeException {
+        LoadFailedException(SQLException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.erp.concurrent;
+
+import com.example.erp.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit driven by database latency.
+ * <p>
+ * Every interval the limiter averages the latency recorded in the given DAO histograms since the previous
+ * interval. Above the target it multiplies the limit by {@code backoffRatio}; at or below it, and if the limit
+ * was nearly reached, it adds one. Admission itself is a single CAS on the in-flight count. Writes may only use
+ * {@code writeShare} of the limit, so the remainder is always available to reads.
+ */
+public final class AdaptiveLimiter implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveLimiter.class);
+
+    private final List<LatencyHistogram> latencies;
+    private final long targetLatencyNanos;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double writeShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile int limit;
+    private long lastCount;
+    private long lastSum;
+
+    public AdaptiveLimiter(List<LatencyHistogram> latencies, long targetLatencyMillis, int initialLimit, int minLimit,
+                           int maxLimit, double backoffRatio, double writeShare, long intervalMillis) {
+        this.latencies = latencies;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.writeShare = writeShare;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "admission-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::adjust, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return {@code true} if admitted, in which case {@link #release()} must be called exactly once
+     */
+    public boolean tryAcquire(boolean write) {
+        int allowed = write ? Math.max(1, (int) (limit * writeShare)) : limit;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                (write ? rejectedWrites : rejectedReads).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void adjust() {
+        long count = 0;
+        long sum = 0;
+        for (LatencyHistogram histogram : latencies) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            count += snapshot.count();
+            sum += snapshot.sum();
+        }
+        long samples = count - lastCount;
+        long averageNanos = samples > 0 ? (sum - lastSum) / samples : 0;
+        lastCount = count;
+        lastSum = sum;
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples == 0) {
+            return;
+        }
+
+        int current = limit;
+        int next = current;
+        if (averageNanos > targetLatencyNanos) {
+            next = Math.max(minLimit, (int) (current * backoffRatio));
+        } else if (peak >= current * 0.8) {
+            next = Math.min(maxLimit, current + 1);
+        }
+        if (next != current) {
+            limit = next;
+            LOGGER.debug("Admission limit {} -> {} (avg DB latency {} us, peak in-flight {})",
+                    current, next, averageNanos / 1000, peak);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedReads() {
+        return rejectedReads.sum();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
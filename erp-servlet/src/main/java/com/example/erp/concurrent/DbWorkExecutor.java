@@ -0,0 +1,147 @@
+package com.example.erp.concurrent;
+
+import com.example.erp.config.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database-bound request work off the container threads.
+ * <p>
+ * Work runs on virtual threads when the JVM provides them (Java 21+), otherwise on cached platform threads.
+ * Either way a fair semaphore sized to the connection pool caps how many tasks touch the database at once, so
+ * excess requests wait here instead of inside {@code getConnection()}; the thread count is bounded by admission
+ * control and the request timeout, not by the pool size, so a released permit is free for a waiting task.
+ * A task that cannot get a permit before its deadline runs its timeout callback instead, and a task that goes on
+ * to wait for another thread's database work can give its permit back early with {@link #releasePermit()}.
+ */
+public final class DbWorkExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbWorkExecutor.class);
+    // The permit the task running on this thread still holds, if any.
+    private static final ThreadLocal<Semaphore> HELD_PERMIT = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long requestTimeoutMillis;
+    private final boolean virtualThreads;
+
+    public DbWorkExecutor(int maxConcurrency, long requestTimeoutMillis) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(new WorkerFactory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        LOGGER.info("DB work executor started: maxConcurrency={} requestTimeoutMs={} virtualThreads={}",
+                maxConcurrency, requestTimeoutMillis, virtualThreads);
+    }
+
+    public static DbWorkExecutor fromEnv(int poolSize) {
+        return new DbWorkExecutor(poolSize, EnvConfig.getLong("REQUEST_TIMEOUT_MS", 5000));
+    }
+
+    public long getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /** Tasks currently waiting for a database permit. */
+    public int getQueuedTasks() {
+        return permits.getQueueLength();
+    }
+
+    /** Tasks currently holding a database permit. */
+    public int getActiveTasks() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Schedules {@code work}; if no permit is free before {@code deadlineNanos} (a {@link System#nanoTime()}
+     * value), or the executor is shut down, {@code onTimeout} runs instead. Exactly one of the two runs.
+     */
+    public void execute(long deadlineNanos, Runnable work, Runnable onTimeout) {
+        try {
+            executor.execute(() -> runWithPermit(deadlineNanos, work, onTimeout));
+        } catch (RejectedExecutionException e) {
+            onTimeout.run();
+        }
+    }
+
+    private void runWithPermit(long deadlineNanos, Runnable work, Runnable onTimeout) {
+        boolean acquired;
+        try {
+            long remaining = deadlineNanos - System.nanoTime();
+            acquired = remaining > 0 && permits.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            onTimeout.run();
+            return;
+        }
+        HELD_PERMIT.set(permits);
+        try {
+            work.run();
+        } finally {
+            releasePermit();
+        }
+    }
+
+    /**
+     * Gives back the database permit of the task running on the calling thread, for a task whose remaining work
+     * only waits on database work done elsewhere (such as a coalesced write) and would otherwise keep a slot idle.
+     * The task must not use the database afterwards. Does nothing outside a task or once the permit is released.
+     */
+    public static void releasePermit() {
+        Semaphore held = HELD_PERMIT.get();
+        if (held != null) {
+            HELD_PERMIT.remove();
+            held.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(requestTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "db-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.erp.concurrent;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges concurrent calls with the same key into one: the first caller runs the call, and callers arriving
+ * while it is in flight wait for its result instead of issuing their own. Nothing is remembered once the
+ * call completes.
+ * <p>
+ * A caller that joins gets a result read when the leader started, which may be before a write the caller has
+ * already seen complete. Where that matters, put a version that every write bumps in the key, read before
+ * calling, so callers only join calls that started after the writes they know about.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    /**
+     * @param maxWaitMillis how long a follower waits for the leader before failing with {@link SQLTimeoutException}
+     */
+    public SingleFlight(long maxWaitMillis) {
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    public V execute(K key, Call<V> call) throws SQLException {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+        try {
+            V value = call.call();
+            mine.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> leader) throws SQLException {
+        try {
+            return leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            waitTimeouts.increment();
+            throw new SQLTimeoutException("Timed out waiting for an identical in-flight query");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for an identical in-flight query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                SQLException sqlCause = (SQLException) cause;
+                // New instance so this caller's stack trace is recorded too.
+                throw new SQLException(sqlCause.getMessage(), sqlCause.getSQLState(), sqlCause.getErrorCode(), sqlCause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /** Callers that were served by another caller's in-flight call. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Followers that gave up after the maximum wait. */
+    public long getWaitTimeoutCount() {
+        return waitTimeouts.sum();
+    }
+
+    @FunctionalInterface
+    public interface Call<V> {
+        V call() throws SQLException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.erp.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+public final class ObjectMappers {
+
+    private ObjectMappers() {}
+
+    /**
+     * Mapper for API payloads: java.time values (e.g. {@code Product.createdAt}) are written as ISO-8601 strings.
+     */
+    public static ObjectMapper create() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    /**
+     * Mapper for a binary dataformat such as Smile or CBOR. Instants are written as epoch milliseconds, a plain
+     * integer in those formats, rather than ISO-8601 text.
+     */
+    public static ObjectMapper create(JsonFactory binaryFactory) {
+        ObjectMapper mapper = new ObjectMapper(binaryFactory);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+        mapper.disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
+        return mapper;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.erp.dao;
+
+/**
+ * Outcome of {@link ProductDao#createProducts(java.util.List, int)}, one slot per input product in input order.
+ */
+public final class BatchCreateResult {
+
+    private final long[] ids;
+    private final String[] errors;
+
+    BatchCreateResult(int size) {
+        this.ids = new long[size];
+        this.errors = new String[size];
+    }
+
+    void created(int index, long id) {
+        ids[index] = id;
+        errors[index] = null;
+    }
+
+    void failed(int index, String error) {
+        errors[index] = error;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isCreated(int index) {
+        return errors[index] == null;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public String getError(int index) {
+        return errors[index];
+    }
+}
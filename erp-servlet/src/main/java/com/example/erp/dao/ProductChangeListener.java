@@ -0,0 +1,11 @@
+package com.example.erp.dao;
+
+/**
+ * Notified by {@link ProductDao} after a write to a product row has committed.
+ */
+@FunctionalInterface
+public interface ProductChangeListener {
+
+    /** Called on the writing thread; implementations must return quickly and not throw. */
+    void productChanged(long id);
+}
@@ -1,11 +1,16 @@
 package com.example.erp.dao;
 
+import com.example.erp.cache.ProductCache;
+import com.example.erp.concurrent.SingleFlight;
+import com.example.erp.metrics.LatencyHistogram;
+import com.example.erp.metrics.MetricsRegistry;
 import com.example.erp.model.Product;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,21 +19,136 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
 
-public class ProductDao {
+public class ProductDao implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProductDao.class);
 
+    // Rows per round-trip for list queries; the Oracle driver default of 10 makes large scans chatty.
+    private static final int LIST_FETCH_SIZE = 500;
+    private static final long DEFAULT_COALESCE_MAX_WAIT_MILLIS = 5000;
+
     private final HikariDataSource dataSource;
+    private final ProductCache productCache;
+    private final MetricsRegistry metrics;
+    private volatile UpdateCoalescer updateCoalescer;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Identical concurrent reads are merged into one database call. Keys carry the change version read before the
+    // call, so a read never joins a query that started before a write it has already seen complete.
+    private final SingleFlight<LookupKey, Optional<Product>> lookupFlights;
+    private final SingleFlight<Long, List<Product>> listFlights;
+    private final SingleFlight<PageKey, List<Product>> pageFlights;
+    private final AtomicLong changeVersion = new AtomicLong();
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, ProductRowMapper> rowMappers = new ConcurrentHashMap<>();
+    // Quoted name of the PRODUCTS.ID identity sequence, resolved on first batch insert.
+    private volatile String identitySequence;
+
+    private final LatencyHistogram createLatency;
+    private final LatencyHistogram batchInsertLatency;
+    private final LatencyHistogram getLatency;
+    private final LatencyHistogram updateLatency;
+    private final LatencyHistogram deleteLatency;
+    private final LatencyHistogram listLatency;
+    private final LatencyHistogram pageLatency;
+    private final LatencyHistogram streamLatency;
+    private final LatencyHistogram priceScanLatency;
 
     public ProductDao(HikariDataSource dataSource) {
+        this(dataSource, null, new MetricsRegistry(), DEFAULT_COALESCE_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * @param productCache           read-through cache for {@link #getProductById(long)}, or {@code null} to always query
+     * @param metrics                registry for per-operation latency histograms
+     * @param coalesceMaxWaitMillis  how long a read waits on an identical in-flight query before giving up
+     */
+    public ProductDao(HikariDataSource dataSource, ProductCache productCache, MetricsRegistry metrics,
+                      long coalesceMaxWaitMillis) {
         this.dataSource = dataSource;
+        this.productCache = productCache;
+        this.metrics = metrics;
+        this.lookupFlights = new SingleFlight<>(coalesceMaxWaitMillis);
+        this.listFlights = new SingleFlight<>(coalesceMaxWaitMillis);
+        this.pageFlights = new SingleFlight<>(coalesceMaxWaitMillis);
+        metrics.counter("erp_dao_coalesced_lookups_total", "Product lookups served by an identical in-flight query",
+                lookupFlights::getCoalescedCount);
+        metrics.counter("erp_dao_coalesced_lists_total", "List and page reads served by an identical in-flight query",
+                () -> listFlights.getCoalescedCount() + pageFlights.getCoalescedCount());
+        metrics.counter("erp_dao_coalesce_wait_timeouts_total", "Reads that gave up waiting on an in-flight query",
+                () -> lookupFlights.getWaitTimeoutCount() + listFlights.getWaitTimeoutCount()
+                        + pageFlights.getWaitTimeoutCount());
+        this.createLatency = daoHistogram(metrics, "CREATE_PRODUCT");
+        this.batchInsertLatency = daoHistogram(metrics, "BATCH_INSERT");
+        this.getLatency = daoHistogram(metrics, "GET_PRODUCT");
+        this.updateLatency = daoHistogram(metrics, "UPDATE_PRODUCT");
+        this.deleteLatency = daoHistogram(metrics, "DELETE_PRODUCT");
+        this.listLatency = daoHistogram(metrics, "LIST_PRODUCTS");
+        this.pageLatency = daoHistogram(metrics, "LIST_PRODUCTS_PAGE");
+        // Includes the time the consumer spends writing each row to the client.
+        this.streamLatency = daoHistogram(metrics, "STREAM_PRODUCTS");
+        this.priceScanLatency = daoHistogram(metrics, "SCAN_PRICES");
+    }
+
+    private record LookupKey(long version, long id) {
+    }
+
+    private record PageKey(long version, long afterId, int limit) {
+    }
+
+    /**
+     * Opt-in: merge updates to the same id arriving within {@code windowMillis} into one last-writer-wins write,
+     * and send each window's writes as a single JDBC batch. Call before the DAO is shared.
+     */
+    public void enableWriteCoalescing(long windowMillis) {
+        if (updateCoalescer != null) {
+            throw new IllegalStateException("Write coalescing is already enabled");
+        }
+        UpdateCoalescer coalescer = new UpdateCoalescer(dataSource, windowMillis, this::productChanged,
+                daoHistogram(metrics, "UPDATE_PRODUCT_BATCH"));
+        metrics.counter("erp_dao_merged_updates_total",
+                "Product updates superseded by a later update in the same window", coalescer::getMergedCount);
+        updateCoalescer = coalescer;
+        LOGGER.info("Product update coalescing enabled with a {} ms window", windowMillis);
+    }
+
+    /** Registers a listener for committed creates, updates and deletes. */
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /** Flushes pending coalesced updates. */
+    @Override
+    public void close() {
+        UpdateCoalescer coalescer = updateCoalescer;
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    /**
+     * Latencies of the per-request calls (single-row reads and writes, keyset pages). Excludes full listings,
+     * streams and batches, whose duration depends on the data size and the client rather than on database load.
+     */
+    public List<LatencyHistogram> requestLatencies() {
+        return List.of(getLatency, pageLatency, createLatency, updateLatency, deleteLatency);
+    }
+
+    private static LatencyHistogram daoHistogram(MetricsRegistry metrics, String operation) {
+        return metrics.histogram("erp_dao_latency_seconds", "ProductDao database call latency", "operation", operation);
     }
 
     public long createProduct(String name, double price) throws SQLException {
+        long start = System.nanoTime();
         String call = "{ call PKG_PRODUCT.CREATE_PRODUCT(?, ?, ?) }";
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall(call)) {
@@ -38,11 +158,134 @@ public class ProductDao {
             stmt.execute();
             long id = stmt.getLong(3);
             LOGGER.info("Created product id={} name={} price={}", id, name, price);
+            // The id may have been looked up before it existed; drop that cached miss.
+            productChanged(id);
             return id;
+        } finally {
+            createLatency.record(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Inserts {@code products} in chunks of {@code chunkSize}, one JDBC batch and one transaction per chunk.
+     * Ids are reserved from the table's identity sequence in a single round-trip per chunk, so they come back
+     * in input order. If a chunk fails it is rolled back and its rows are retried one by one through
+     * {@link #createProduct(String, double)}, so a bad row only fails itself.
+     */
+    public BatchCreateResult createProducts(List<Product> products, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        BatchCreateResult result = new BatchCreateResult(products.size());
+        for (int from = 0; from < products.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, products.size());
+            List<Product> chunk = products.subList(from, to);
+            try {
+                long[] ids = insertChunk(chunk);
+                for (int i = 0; i < ids.length; i++) {
+                    result.created(from + i, ids[i]);
+                    productChanged(ids[i]);
+                }
+                LOGGER.info("Created {} products in batch, ids {}..{}", ids.length, ids[0], ids[ids.length - 1]);
+            } catch (SQLException e) {
+                LOGGER.warn("Batch insert of {} products failed, retrying rows individually: {}", chunk.size(),
+                        e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Product product = chunk.get(i);
+                    try {
+                        result.created(from + i, createProduct(product.getName(), product.getPrice()));
+                    } catch (SQLException rowError) {
+                        result.failed(from + i, rowError.getMessage());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private long[] insertChunk(List<Product> chunk) throws SQLException {
+        long start = System.nanoTime();
+        String sql = "INSERT INTO PRODUCTS (ID, NAME, PRICE) VALUES (?, ?, ?)";
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long[] ids = reserveIds(conn, chunk.size());
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < ids.length; i++) {
+                        Product product = chunk.get(i);
+                        ps.setLong(1, ids[i]);
+                        ps.setString(2, product.getName());
+                        ps.setDouble(3, product.getPrice());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+                return ids;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            batchInsertLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private long[] reserveIds(Connection conn, int count) throws SQLException {
+        String sql = "SELECT " + identitySequence(conn) + ".NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+        long[] ids = new long[count];
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, count);
+            ps.setFetchSize(count);
+            try (ResultSet rs = ps.executeQuery()) {
+                int n = 0;
+                while (rs.next()) {
+                    ids[n++] = rs.getLong(1);
+                }
+                if (n != count) {
+                    throw new SQLException("Expected " + count + " ids from " + identitySequence + ", got " + n);
+                }
+            }
+        }
+        // NEXTVAL order across rows is unspecified; sort so ids follow input order.
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private String identitySequence(Connection conn) throws SQLException {
+        String sequence = identitySequence;
+        if (sequence != null) {
+            return sequence;
+        }
+        String sql = "SELECT SEQUENCE_NAME FROM USER_TAB_IDENTITY_COLS WHERE TABLE_NAME = 'PRODUCTS' AND COLUMN_NAME = 'ID'";
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("PRODUCTS.ID is not an identity column");
+            }
+            sequence = '"' + rs.getString(1) + '"';
+        }
+        identitySequence = sequence;
+        return sequence;
+    }
+
     public Optional<Product> getProductById(long id) throws SQLException {
+        LookupKey key = new LookupKey(changeVersion.get(), id);
+        if (productCache != null) {
+            Optional<Product> cached = productCache.getIfPresent(id);
+            if (cached != null) {
+                return cached;
+            }
+            return lookupFlights.execute(key, () -> productCache.get(id, this::loadProductById));
+        }
+        return lookupFlights.execute(key, () -> loadProductById(id));
+    }
+
+    private Optional<Product> loadProductById(long id) throws SQLException {
+        long start = System.nanoTime();
         String call = "{ call PKG_PRODUCT.GET_PRODUCT(?, ?) }";
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall(call)) {
@@ -51,14 +294,25 @@ public class ProductDao {
             stmt.execute();
             try (ResultSet rs = (ResultSet) stmt.getObject(2)) {
                 if (rs != null && rs.next()) {
-                    return Optional.of(mapRow(rs));
+                    return Optional.of(mapperFor(call, rs).mapRow(rs));
                 }
             }
+        } finally {
+            getLatency.record(System.nanoTime() - start);
         }
         return Optional.empty();
     }
 
+    /**
+     * Updates a product. With {@link #enableWriteCoalescing(long)} on, the update is merged with other updates to
+     * the same id in the current window and this call returns once the merged write has committed.
+     */
     public boolean updateProduct(long id, String name, double price) throws SQLException {
+        UpdateCoalescer coalescer = updateCoalescer;
+        if (coalescer != null) {
+            return coalescer.update(id, name, price);
+        }
+        long start = System.nanoTime();
         String call = "{ call PKG_PRODUCT.UPDATE_PRODUCT(?, ?, ?, ?) }";
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall(call)) {
@@ -69,11 +323,15 @@ public class ProductDao {
             stmt.execute();
             int updated = stmt.getInt(4);
             LOGGER.info("Updated product id={} rows={}", id, updated);
+            productChanged(id);
             return updated > 0;
+        } finally {
+            updateLatency.record(System.nanoTime() - start);
         }
     }
 
     public boolean deleteProduct(long id) throws SQLException {
+        long start = System.nanoTime();
         String call = "{ call PKG_PRODUCT.DELETE_PRODUCT(?, ?) }";
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall(call)) {
@@ -82,30 +340,200 @@ public class ProductDao {
             stmt.execute();
             int deleted = stmt.getInt(2);
             LOGGER.info("Deleted product id={} rows={}", id, deleted);
+            productChanged(id);
             return deleted > 0;
+        } finally {
+            deleteLatency.record(System.nanoTime() - start);
         }
     }
 
+    /**
+     * All products, ordered by id. Concurrent calls share one query, so the returned list is unmodifiable.
+     */
     public List<Product> listProducts() throws SQLException {
+        return listFlights.execute(changeVersion.get(), this::queryAllProducts);
+    }
+
+    private List<Product> queryAllProducts() throws SQLException {
+        long start = System.nanoTime();
         // For simplicity, use a direct SELECT. You can create a PL/SQL that returns a cursor instead.
         String sql = "SELECT ID, NAME, PRICE, CREATED_AT FROM PRODUCTS ORDER BY ID";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(LIST_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                ProductRowMapper mapper = mapperFor(sql, rs);
+                List<Product> products = new ArrayList<>();
+                while (rs.next()) {
+                    products.add(mapper.mapRow(rs));
+                }
+                return Collections.unmodifiableList(products);
+            }
+        } finally {
+            listLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Keyset page: up to {@code limit} products with an id greater than {@code afterId}, ordered by id.
+     * Uses the primary key index, so the cost of a page does not grow with its position in the table.
+     * Concurrent requests for the same page share one query, so the returned list is unmodifiable.
+     */
+    public List<Product> listProductsPage(long afterId, int limit) throws SQLException {
+        return pageFlights.execute(new PageKey(changeVersion.get(), afterId, limit), () -> queryPage(afterId, limit));
+    }
+
+    private List<Product> queryPage(long afterId, int limit) throws SQLException {
+        long start = System.nanoTime();
+        String sql = "SELECT ID, NAME, PRICE, CREATED_AT FROM PRODUCTS WHERE ID > ? ORDER BY ID "
+                + "FETCH FIRST ? ROWS ONLY";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            ps.setFetchSize(Math.min(limit, LIST_FETCH_SIZE));
+            try (ResultSet rs = ps.executeQuery()) {
+                ProductRowMapper mapper = mapperFor(sql, rs);
+                List<Product> products = new ArrayList<>(limit);
+                while (rs.next()) {
+                    products.add(mapper.mapRow(rs));
+                }
+                return Collections.unmodifiableList(products);
+            }
+        } finally {
+            pageLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Streams every product, ordered by id, to {@code consumer} straight from the cursor.
+     * Nothing is accumulated, so memory use does not depend on the size of the table.
+     *
+     * @return the number of rows streamed
+     */
+    public long streamProducts(ProductConsumer consumer) throws SQLException, IOException {
+        long start = System.nanoTime();
+        String sql = "SELECT ID, NAME, PRICE, CREATED_AT FROM PRODUCTS ORDER BY ID";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(LIST_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                ProductRowMapper mapper = mapperFor(sql, rs);
+                long count = 0;
+                while (rs.next()) {
+                    consumer.accept(mapper.mapRow(rs));
+                    count++;
+                }
+                return count;
+            }
+        } finally {
+            streamLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /** Lowest and highest product id, or empty if the table has no rows. */
+    public Optional<IdRange> getIdRange() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT MIN(ID), MAX(ID) FROM PRODUCTS");
              ResultSet rs = ps.executeQuery()) {
-            List<Product> products = new ArrayList<>();
-            while (rs.next()) {
-                products.add(mapRow(rs));
+            if (!rs.next()) {
+                return Optional.empty();
             }
-            return products;
+            long min = rs.getLong(1);
+            return rs.wasNull() ? Optional.empty() : Optional.of(new IdRange(min, rs.getLong(2)));
         }
     }
 
-    private Product mapRow(ResultSet rs) throws SQLException {
-        long id = rs.getLong("ID");
-        String name = rs.getString("NAME");
-        double price = rs.getDouble("PRICE");
-        Timestamp createdAtTs = rs.getTimestamp("CREATED_AT");
-        Instant createdAt = createdAtTs != null ? createdAtTs.toInstant() : null;
-        return new Product(id, name, price, createdAt);
+    public record IdRange(long minId, long maxId) {
+    }
+
+    /**
+     * Passes the price of every product with an id in {@code [fromId, toId]} to {@code consumer}, reading only
+     * the price column and creating no row objects. Disjoint id ranges can be scanned on separate connections.
+     *
+     * @param createdFrom inclusive lower bound on CREATED_AT, or {@code null} for none
+     * @param createdTo   exclusive upper bound on CREATED_AT, or {@code null} for none
+     * @return the number of prices read
+     */
+    public long scanPrices(long fromId, long toId, Instant createdFrom, Instant createdTo, DoubleConsumer consumer)
+            throws SQLException {
+        long start = System.nanoTime();
+        StringBuilder sql = new StringBuilder("SELECT PRICE FROM PRODUCTS WHERE ID BETWEEN ? AND ?");
+        if (createdFrom != null) {
+            sql.append(" AND CREATED_AT >= ?");
+        }
+        if (createdTo != null) {
+            sql.append(" AND CREATED_AT < ?");
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            ps.setLong(param++, fromId);
+            ps.setLong(param++, toId);
+            if (createdFrom != null) {
+                ps.setTimestamp(param++, Timestamp.from(createdFrom));
+            }
+            if (createdTo != null) {
+                ps.setTimestamp(param, Timestamp.from(createdTo));
+            }
+            // One narrow column per row, so each round-trip can carry many more rows than a full listing.
+            ps.setFetchSize(LIST_FETCH_SIZE * 4);
+            try (ResultSet rs = ps.executeQuery()) {
+                long count = 0;
+                while (rs.next()) {
+                    double price = rs.getDouble(1);
+                    if (!rs.wasNull()) {
+                        consumer.accept(price);
+                        count++;
+                    }
+                }
+                return count;
+            }
+        } finally {
+            priceScanLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Receives rows from {@link #streamProducts(ProductConsumer)} while the cursor is still open.
+     */
+    @FunctionalInterface
+    public interface ProductConsumer {
+        void accept(Product product) throws IOException;
+    }
+
+    private void productChanged(long id) {
+        changeVersion.incrementAndGet();
+        if (productCache != null) {
+            productCache.invalidate(id);
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            try {
+                listener.productChanged(id);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Product change listener failed for id {}", id, e);
+            }
+        }
+    }
+
+    /**
+     * Counter bumped by every write made through this DAO. Listings cannot have changed on this node while it
+     * stays the same.
+     */
+    public long getChangeVersion() {
+        return changeVersion.get();
+    }
+
+    /**
+     * Returns the mapper compiled for the query {@code shapeKey} (its SQL or call text), resolving column indexes
+     * from {@code rs} the first time that query runs.
+     */
+    private ProductRowMapper mapperFor(String shapeKey, ResultSet rs) throws SQLException {
+        ProductRowMapper mapper = rowMappers.get(shapeKey);
+        if (mapper == null) {
+            mapper = ProductRowMapper.compile(rs.getMetaData());
+            rowMappers.putIfAbsent(shapeKey, mapper);
+        }
+        return mapper;
     }
 }
\ No newline at end of file
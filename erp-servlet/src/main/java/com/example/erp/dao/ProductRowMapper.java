@@ -0,0 +1,53 @@
+package com.example.erp.dao;
+
+import com.example.erp.model.Product;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Maps product rows by column index. Indexes are resolved once from {@link ResultSetMetaData} when the mapper
+ * is built, so per-row mapping does no column-name lookups.
+ */
+final class ProductRowMapper {
+
+    private final int id;
+    private final int name;
+    private final int price;
+    private final int createdAt;
+
+    private ProductRowMapper(int id, int name, int price, int createdAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.createdAt = createdAt;
+    }
+
+    static ProductRowMapper compile(ResultSetMetaData metaData) throws SQLException {
+        int id = 0;
+        int name = 0;
+        int price = 0;
+        int createdAt = 0;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            switch (metaData.getColumnLabel(i).toUpperCase()) {
+                case "ID" -> id = i;
+                case "NAME" -> name = i;
+                case "PRICE" -> price = i;
+                case "CREATED_AT" -> createdAt = i;
+                default -> { }
+            }
+        }
+        if (id == 0 || name == 0 || price == 0) {
+            throw new SQLException("Product query must select ID, NAME and PRICE");
+        }
+        return new ProductRowMapper(id, name, price, createdAt);
+    }
+
+    Product mapRow(ResultSet rs) throws SQLException {
+        Timestamp createdAtTs = createdAt > 0 ? rs.getTimestamp(createdAt) : null;
+        return new Product(rs.getLong(id), rs.getString(name), rs.getDouble(price),
+                createdAtTs != null ? createdAtTs.toInstant() : null);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.erp.dao;
+
+import com.example.erp.concurrent.DbWorkExecutor;
+import com.example.erp.metrics.LatencyHistogram;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Merges product updates that arrive within one window. Only the last name/price submitted for an id is written,
+ * and all ids pending at the end of the window go out as one JDBC batch in one transaction. Every submitter
+ * waits for the flush and gets the outcome of the write that superseded theirs. If a row makes the batch fail,
+ * the rows are written one by one and only that row's submitters see the error.
+ * <p>
+ * Rows are written in id order, so batches from different nodes lock overlapping rows in the same order instead
+ * of deadlocking (ORA-00060). A submitter running on the {@link DbWorkExecutor} gives its permit back while it
+ * waits, since the flusher does the write on its own connection; otherwise a window's worth of waiting
+ * {@code PUT}s would keep the permits, and the pooled connections behind them, idle.
+ */
+final class UpdateCoalescer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpdateCoalescer.class);
+
+    private static final String UPDATE_SQL = "UPDATE PRODUCTS SET NAME = ?, PRICE = ? WHERE ID = ?";
+    private static final String EXISTS_SQL = "SELECT 1 FROM PRODUCTS WHERE ID = ?";
+    // Upper bound on a submitter's wait beyond the window: one pool borrow timeout plus the batch itself.
+    private static final long FLUSH_GRACE_MILLIS = 30_000;
+
+    private final HikariDataSource dataSource;
+    private final LongConsumer onFlushed;
+    private final LatencyHistogram flushLatency;
+    private final long windowMillis;
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final LongAdder merged = new LongAdder();
+
+    /**
+     * @param onFlushed called with each written id after commit and before its submitters are released
+     */
+    UpdateCoalescer(HikariDataSource dataSource, long windowMillis, LongConsumer onFlushed,
+                    LatencyHistogram flushLatency) {
+        this.dataSource = dataSource;
+        this.windowMillis = windowMillis;
+        this.onFlushed = onFlushed;
+        this.flushLatency = flushLatency;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-update-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the update and blocks until the batch carrying it (or a later update to the same id) has committed.
+     * The caller must not use the database afterwards if it ran on the {@link DbWorkExecutor}, whose permit this
+     * releases.
+     *
+     * @return whether the row existed
+     */
+    boolean update(long id, String name, double price) throws SQLException {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        while (true) {
+            Pending entry = pending.computeIfAbsent(id, Pending::new);
+            synchronized (entry) {
+                if (entry.drained) {
+                    // The flusher took this entry between lookup and lock; start a new one.
+                    continue;
+                }
+                if (!entry.waiters.isEmpty()) {
+                    merged.increment();
+                }
+                entry.name = name;
+                entry.price = price;
+                entry.waiters.add(result);
+            }
+            break;
+        }
+        DbWorkExecutor.releasePermit();
+        try {
+            return result.get(windowMillis + FLUSH_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SQLTimeoutException("Timed out waiting for coalesced update of product " + id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for coalesced update of product " + id, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException
+                    ? new SQLException(cause.getMessage(), ((SQLException) cause).getSQLState(), cause)
+                    : new SQLException(cause);
+        }
+    }
+
+    /** Updates that were absorbed into another update to the same id. */
+    long getMergedCount() {
+        return merged.sum();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Pending> batch = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            Pending entry = pending.remove(id);
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.drained = true;
+                }
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.sort(Comparator.comparingLong(entry -> entry.id));
+
+        long start = System.nanoTime();
+        try {
+            int[] counts = executeBatch(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), counts[i] > 0);
+            }
+            LOGGER.info("Flushed {} coalesced product updates", batch.size());
+        } catch (BatchUpdateException e) {
+            // One bad row fails the whole batch; write the rows one by one so it only fails its own submitters.
+            LOGGER.warn("Coalesced update batch of {} products failed, retrying rows individually: {}",
+                    batch.size(), e.getMessage());
+            updateIndividually(batch);
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.error("Coalesced update batch of {} products failed", batch.size(), e);
+            for (Pending entry : batch) {
+                entry.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            }
+        } finally {
+            flushLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void complete(Pending entry, boolean updated) {
+        onFlushed.accept(entry.id);
+        entry.waiters.forEach(waiter -> waiter.complete(updated));
+    }
+
+    private void updateIndividually(List<Pending> batch) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            for (Pending entry : batch) {
+                try {
+                    bind(ps, entry);
+                    complete(entry, ps.executeUpdate() > 0);
+                } catch (SQLException | RuntimeException e) {
+                    LOGGER.error("Coalesced update of product {} failed", entry.id, e);
+                    entry.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Could not retry coalesced updates individually", e);
+            for (Pending entry : batch) {
+                entry.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction.
+     *
+     * @return the update count of each entry; where the driver reported {@link Statement#SUCCESS_NO_INFO} the
+     * row is looked up after commit, so an update to a missing id still counts 0
+     */
+    private int[] executeBatch(List<Pending> batch) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            int[] counts;
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+                for (Pending entry : batch) {
+                    bind(ps, entry);
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                    counts[i] = exists(conn, batch.get(i).id) ? 1 : 0;
+                }
+            }
+            return counts;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Pending entry) throws SQLException {
+        ps.setString(1, entry.name);
+        ps.setDouble(2, entry.price);
+        ps.setLong(3, entry.id);
+    }
+
+    private static boolean exists(Connection conn, long id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(EXISTS_SQL)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /** Stops the timer and writes whatever is still pending. */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(windowMillis + FLUSH_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private static final class Pending {
+        private final long id;
+        private final List<CompletableFuture<Boolean>> waiters = new ArrayList<>(1);
+        private String name;
+        private double price;
+        private boolean drained;
+
+        private Pending(long id) {
+            this.id = id;
+        }
+    }
+}
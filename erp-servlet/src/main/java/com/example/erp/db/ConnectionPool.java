@@ -1,7 +1,9 @@
 package com.example.erp.db;
 
+import com.example.erp.config.EnvConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,9 +14,16 @@ public final class ConnectionPool {
     private ConnectionPool() {}
 
     public static HikariDataSource initializeFromEnv() {
-        String jdbcUrl = getEnvOrDefault("ORACLE_JDBC_URL", "jdbc:oracle:thin:@//localhost:1521/ORCLCDB");
-        String username = getEnvOrDefault("ORACLE_DB_USER", "system");
-        String password = getEnvOrDefault("ORACLE_DB_PASSWORD", "oracle");
+        return initializeFromEnv(null);
+    }
+
+    /**
+     * @param metricsTrackerFactory receives pool borrow timings, or {@code null} for none
+     */
+    public static HikariDataSource initializeFromEnv(MetricsTrackerFactory metricsTrackerFactory) {
+        String jdbcUrl = EnvConfig.get("ORACLE_JDBC_URL", "jdbc:oracle:thin:@//localhost:1521/ORCLCDB");
+        String username = EnvConfig.get("ORACLE_DB_USER", "system");
+        String password = EnvConfig.get("ORACLE_DB_PASSWORD", "oracle");
 
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(jdbcUrl);
@@ -24,9 +33,12 @@ public final class ConnectionPool {
         config.setDriverClassName("oracle.jdbc.OracleDriver");
         config.setMaximumPoolSize(10);
         config.setMinimumIdle(2);
-        config.setConnectionTimeout(15000);
+        config.setConnectionTimeout(EnvConfig.getLong("DB_CONNECTION_TIMEOUT_MS", 15000));
         config.setIdleTimeout(600000);
         config.setMaxLifetime(1800000);
+        if (metricsTrackerFactory != null) {
+            config.setMetricsTrackerFactory(metricsTrackerFactory);
+        }
 
         // Optional Oracle-specific performance properties
         config.addDataSourceProperty("oracle.net.CONNECT_TIMEOUT", "10000");
@@ -35,10 +47,5 @@ public final class ConnectionPool {
         LOGGER.info("Initializing HikariCP with URL: {} and user: {}", jdbcUrl, username);
         return new HikariDataSource(config);
     }
-
-    private static String getEnvOrDefault(String key, String defaultValue) {
-        String value = System.getenv(key);
-        return (value == null || value.isBlank()) ? defaultValue : value;
-    }
 }
 
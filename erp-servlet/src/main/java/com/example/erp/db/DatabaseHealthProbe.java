@@ -0,0 +1,103 @@
+package com.example.erp.db;
+
+import com.example.erp.metrics.LatencyHistogram;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the database from a background thread and caches the outcome, so health checks never borrow a
+ * connection themselves. Each run also takes the 99th percentile of pool borrow waits since the previous run;
+ * above the threshold the node reports not ready even though the database answers.
+ */
+public final class DatabaseHealthProbe implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseHealthProbe.class);
+
+    public record Status(boolean ready, boolean databaseUp, String error, double probeMillis,
+                         double poolWaitP99Millis, Instant checkedAt) {
+    }
+
+    private final HikariDataSource dataSource;
+    private final LatencyHistogram borrowWait;
+    private final long intervalMillis;
+    private final long poolWaitThresholdNanos;
+    private final int validationTimeoutSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Status status = new Status(false, false, "Not checked yet", 0, 0, Instant.EPOCH);
+    private LatencyHistogram.Snapshot lastBorrowWait;
+
+    public DatabaseHealthProbe(HikariDataSource dataSource, LatencyHistogram borrowWait, long intervalMillis,
+                               long poolWaitThresholdMillis, int validationTimeoutSeconds) {
+        this.dataSource = dataSource;
+        this.borrowWait = borrowWait;
+        this.intervalMillis = intervalMillis;
+        this.poolWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(poolWaitThresholdMillis);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.lastBorrowWait = borrowWait.snapshot();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        LatencyHistogram.Snapshot current = borrowWait.snapshot();
+        long waitP99 = current.minus(lastBorrowWait).quantile(0.99);
+        lastBorrowWait = current;
+
+        long start = System.nanoTime();
+        boolean up = false;
+        String error = null;
+        try (Connection conn = dataSource.getConnection()) {
+            up = conn.isValid(validationTimeoutSeconds);
+            if (!up) {
+                error = "Connection validation failed";
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        double probeMillis = (System.nanoTime() - start) / 1e6;
+
+        boolean ready = up && waitP99 <= poolWaitThresholdNanos;
+        Status previous = status;
+        status = new Status(ready, up, error, probeMillis, waitP99 / 1e6, Instant.now());
+        if (previous.ready() != ready) {
+            LOGGER.warn("Readiness changed to {} (database up: {}, pool wait p99 {} ms{})", ready, up,
+                    waitP99 / 1_000_000, error == null ? "" : ", " + error);
+        }
+    }
+
+    /** Latest result; reported as not ready if the probe has not run for three intervals. */
+    public Status getStatus() {
+        Status current = status;
+        if (current.ready() && current.checkedAt().isBefore(Instant.now().minusMillis(3 * intervalMillis))) {
+            return new Status(false, current.databaseUp(), "Health probe is stale", current.probeMillis(),
+                    current.poolWaitP99Millis(), current.checkedAt());
+        }
+        return current;
+    }
+
+    public HikariPoolMXBean getPool() {
+        return dataSource.getHikariPoolMXBean();
+    }
+
+    public int getMaximumPoolSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.erp.filter;
+
+import com.example.erp.concurrent.AdaptiveLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejects requests with 503 and {@code Retry-After} as soon as the adaptive concurrency limit is reached, instead
+ * of letting them queue for a connection. GET/HEAD count as reads; everything else is a write and may only use
+ * part of the limit. Passes everything through when no limiter is configured.
+ */
+public class AdmissionControlFilter implements Filter {
+
+    private static final String REJECTED_BODY = "{\"error\":\"Service overloaded, retry later\"}";
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        AdaptiveLimiter limiter = (AdaptiveLimiter) request.getServletContext().getAttribute("admissionLimiter");
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String method = ((HttpServletRequest) request).getMethod();
+        boolean write = !("GET".equals(method) || "HEAD".equals(method));
+        if (!limiter.tryAcquire(write)) {
+            HttpServletResponse resp = (HttpServletResponse) response;
+            resp.setStatus(503);
+            resp.setHeader("Retry-After", "1");
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().write(REJECTED_BODY);
+            return;
+        }
+
+        Release release = new Release(limiter);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The servlet finishes on another thread; keep the slot until the response completes.
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private static final class Release implements AsyncListener {
+        private final AdaptiveLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Release(AdaptiveLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        void run() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the next async cycle if the request is dispatched again.
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
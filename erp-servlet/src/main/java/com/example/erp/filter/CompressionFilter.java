@@ -0,0 +1,122 @@
+package com.example.erp.filter;
+
+import com.example.erp.config.EnvConfig;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Gzips responses larger than {@code COMPRESSION_MIN_BYTES} for clients that accept it. Compression runs as the
+ * servlet writes, so a streamed listing is never buffered whole; {@link Deflater}s come from a shared pool.
+ * <p>
+ * A servlet that completes an async request itself must close the response output stream before calling
+ * {@code complete()}, which writes the gzip trailer.
+ */
+public class CompressionFilter implements Filter {
+
+    private DeflaterPool pool;
+    private int minBytes;
+    private boolean enabled;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        enabled = EnvConfig.getBoolean("COMPRESSION_ENABLED", true);
+        minBytes = EnvConfig.getInt("COMPRESSION_MIN_BYTES", 1024);
+        int level = EnvConfig.getInt("COMPRESSION_LEVEL", Deflater.DEFAULT_COMPRESSION);
+        pool = new DeflaterPool(level, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+        if (!enabled || "HEAD".equals(req.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        resp.addHeader("Vary", "Accept-Encoding");
+        if (!acceptsGzip(req.getHeader("Accept-Encoding"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponseWrapper wrapper = new GzipResponseWrapper(resp, pool, minBytes);
+        boolean async = false;
+        try {
+            chain.doFilter(request, wrapper);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new Abandon(wrapper));
+            } else {
+                wrapper.finish();
+            }
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equalsIgnoreCase("x-gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        rejected = false;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Frees the deflater if the async request ended without its body being closed. */
+    private static final class Abandon implements AsyncListener {
+        private final GzipResponseWrapper wrapper;
+
+        private Abandon(GzipResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            wrapper.abandon();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.erp.filter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Reusable raw-deflate {@link Deflater}s. Each one holds native zlib state, so creating one per response costs
+ * an allocation outside the heap and a finalizer-free {@code end()} that is easy to miss.
+ */
+final class DeflaterPool {
+
+    private final ConcurrentLinkedQueue<Deflater> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int level;
+    private final int maxIdle;
+
+    DeflaterPool(int level, int maxIdle) {
+        this.level = level;
+        this.maxIdle = maxIdle;
+    }
+
+    Deflater borrow() {
+        Deflater deflater = idle.poll();
+        if (deflater != null) {
+            idleCount.decrementAndGet();
+            return deflater;
+        }
+        // nowrap: the gzip header and trailer are written by the caller.
+        return new Deflater(level, true);
+    }
+
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(deflater);
+        } else {
+            idleCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.erp.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Holds back the first {@code minBytes} of the body. A body that ends within them is sent as is; once it grows
+ * past them the response switches to gzip and every later write is deflated straight through to the client.
+ * Resetting an uncommitted response undoes the switch, so the replacement body starts over in held mode.
+ */
+final class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final DeflaterPool pool;
+    private final int minBytes;
+    private GzipStream stream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    GzipResponseWrapper(HttpServletResponse response, DeflaterPool pool, int minBytes) {
+        super(response);
+        this.pool = pool;
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (stream == null) {
+            stream = new GzipStream(super.getOutputStream());
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            stream = new GzipStream(super.getOutputStream());
+            writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    // The length of a compressed body is unknown up front; it is only passed on if the body stays uncompressed.
+    @Override
+    public void setContentLength(int len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        } else if (stream != null) {
+            stream.flush();
+        } else {
+            super.flushBuffer();
+        }
+    }
+
+    // The container throws if the response is committed, so the stream is only reset once that has passed.
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        resetBody(true);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        contentLength = -1;
+        resetBody(false);
+    }
+
+    private void resetBody(boolean keptHeaders) {
+        if (stream == null) {
+            return;
+        }
+        if (writer != null) {
+            // Characters the writer still buffers belong to the discarded body too.
+            stream.discard(writer);
+        }
+        stream.reset(keptHeaders);
+    }
+
+    /** Writes out whatever is still held back and the gzip trailer. Safe to call more than once. */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.close();
+        } else if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Frees the deflater of a body that was never finished, e.g. after a client abort. It is ended rather than
+     * pooled, since a worker thread may still be about to write.
+     */
+    void abandon() {
+        if (stream != null) {
+            stream.abandon();
+        }
+    }
+
+    private boolean compressible() {
+        int status = getStatus();
+        return status >= 200 && status != 204 && status != 304 && !containsHeader("Content-Encoding");
+    }
+
+    private final class GzipStream extends ServletOutputStream {
+        private final ServletOutputStream out;
+        private byte[] held;
+        private int heldCount;
+        private Deflater deflater;
+        private CRC32 crc;
+        private byte[] deflated;
+        private long uncompressedSize;
+        private boolean passThrough;
+        private String originalEtag;
+        private boolean discarding;
+        private boolean closed;
+        private boolean abandoned;
+
+        GzipStream(ServletOutputStream out) {
+            this.out = out;
+            this.held = new byte[minBytes];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (discarding) {
+                return;
+            }
+            if (closed || abandoned) {
+                throw new IOException("Stream closed");
+            }
+            if (held != null) {
+                if (heldCount + len <= held.length) {
+                    System.arraycopy(b, off, held, heldCount, len);
+                    heldCount += len;
+                    return;
+                }
+                byte[] pending = held;
+                int pendingCount = heldCount;
+                held = null;
+                if (compressible()) {
+                    startGzip();
+                } else {
+                    passThrough = true;
+                    applyContentLength();
+                }
+                writeBody(pending, 0, pendingCount);
+            }
+            writeBody(b, off, len);
+        }
+
+        private void startGzip() throws IOException {
+            setHeader("Content-Encoding", "gzip");
+            String etag = getHeader("ETag");
+            if (etag != null && !etag.startsWith("W/")) {
+                // The compressed bytes are a different representation; only a weak tag still holds.
+                originalEtag = etag;
+                setHeader("ETag", "W/" + etag);
+            }
+            deflater = pool.borrow();
+            crc = new CRC32();
+            deflated = new byte[8192];
+            out.write(GZIP_HEADER);
+        }
+
+        private void writeBody(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (passThrough) {
+                out.write(b, off, len);
+                return;
+            }
+            crc.update(b, off, len);
+            uncompressedSize += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain(Deflater.NO_FLUSH);
+            }
+        }
+
+        private void drain(int flushMode) throws IOException {
+            int n = deflater.deflate(deflated, 0, deflated.length, flushMode);
+            if (n > 0) {
+                out.write(deflated, 0, n);
+            }
+        }
+
+        private void applyContentLength() {
+            if (contentLength >= 0) {
+                GzipResponseWrapper.super.setContentLengthLong(contentLength);
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            // Held bytes stay held: a flush does not decide whether the body is worth compressing.
+            if (held != null || discarding || closed || abandoned) {
+                return;
+            }
+            if (deflater != null) {
+                int n;
+                do {
+                    n = deflater.deflate(deflated, 0, deflated.length, Deflater.SYNC_FLUSH);
+                    out.write(deflated, 0, n);
+                } while (n == deflated.length);
+            }
+            out.flush();
+        }
+
+        synchronized void discard(PrintWriter pending) {
+            discarding = true;
+            try {
+                pending.flush();
+            } finally {
+                discarding = false;
+            }
+        }
+
+        /**
+         * Drops the body written so far and goes back to holding. If gzip had started, its deflater state goes too,
+         * and unless the container already cleared the headers, so do the gzip headers it set.
+         */
+        synchronized void reset(boolean keptHeaders) {
+            if (closed || abandoned) {
+                return;
+            }
+            if (deflater != null) {
+                pool.release(deflater);
+                deflater = null;
+                crc = null;
+                deflated = null;
+                uncompressedSize = 0;
+                if (keptHeaders) {
+                    // Jetty removes a header set to null.
+                    setHeader("Content-Encoding", null);
+                    if (originalEtag != null && ("W/" + originalEtag).equals(getHeader("ETag"))) {
+                        setHeader("ETag", originalEtag);
+                    }
+                }
+            }
+            originalEtag = null;
+            passThrough = false;
+            if (held == null) {
+                held = new byte[minBytes];
+            }
+            heldCount = 0;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed || abandoned) {
+                return;
+            }
+            closed = true;
+            try {
+                if (held != null) {
+                    if (heldCount > 0) {
+                        GzipResponseWrapper.super.setContentLengthLong(heldCount);
+                        out.write(held, 0, heldCount);
+                    }
+                    held = null;
+                } else if (deflater != null) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        drain(Deflater.NO_FLUSH);
+                    }
+                    writeTrailer();
+                }
+            } finally {
+                if (deflater != null) {
+                    pool.release(deflater);
+                    deflater = null;
+                }
+                out.close();
+            }
+        }
+
+        private void writeTrailer() throws IOException {
+            long crcValue = crc.getValue();
+            byte[] trailer = new byte[8];
+            for (int i = 0; i < 4; i++) {
+                trailer[i] = (byte) (crcValue >>> (8 * i));
+                trailer[4 + i] = (byte) (uncompressedSize >>> (8 * i));
+            }
+            out.write(trailer);
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            out.setWriteListener(writeListener);
+        }
+    }
+}
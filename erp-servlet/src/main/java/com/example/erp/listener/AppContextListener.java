@@ -1,8 +1,21 @@
 package com.example.erp.listener;
 
+import com.example.erp.cache.ProductCache;
+import com.example.erp.concurrent.AdaptiveLimiter;
+import com.example.erp.concurrent.DbWorkExecutor;
+import com.example.erp.config.EnvConfig;
 import com.example.erp.dao.ProductDao;
 import com.example.erp.db.ConnectionPool;
+import com.example.erp.db.DatabaseHealthProbe;
+import com.example.erp.metrics.MetricsRegistry;
+import com.example.erp.metrics.PoolMetricsTrackerFactory;
+import com.example.erp.search.ProductIndexMaintainer;
+import com.example.erp.search.ProductSearchIndex;
+import com.example.erp.snapshot.CatalogSnapshot;
+import com.example.erp.snapshot.CatalogSnapshotRefresher;
+import com.example.erp.stats.ProductStatsService;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
@@ -17,16 +30,149 @@ public class AppContextListener implements ServletContextListener {
     public void contextInitialized(ServletContextEvent sce) {
         ServletContext context = sce.getServletContext();
 
-        HikariDataSource dataSource = ConnectionPool.initializeFromEnv();
+        MetricsRegistry metrics = new MetricsRegistry();
+        context.setAttribute("metrics", metrics);
+
+        PoolMetricsTrackerFactory poolMetrics = new PoolMetricsTrackerFactory(metrics);
+        HikariDataSource dataSource = ConnectionPool.initializeFromEnv(poolMetrics);
         context.setAttribute("dataSource", dataSource);
-        context.setAttribute("productDao", new ProductDao(dataSource));
+        registerPoolGauges(metrics, dataSource);
+
+        DatabaseHealthProbe healthProbe = new DatabaseHealthProbe(dataSource, poolMetrics.getBorrowWait(),
+                EnvConfig.getLong("HEALTH_PROBE_INTERVAL_MS", 5000),
+                EnvConfig.getLong("HEALTH_POOL_WAIT_THRESHOLD_MS", 250), 2);
+        context.setAttribute("healthProbe", healthProbe);
+
+        ProductCache productCache = null;
+        if (EnvConfig.getBoolean("PRODUCT_CACHE_ENABLED", true)) {
+            productCache = ProductCache.fromEnv();
+            context.setAttribute("productCache", productCache);
+            registerCacheMetrics(metrics, productCache);
+        }
+        long coalesceMaxWaitMillis = EnvConfig.getLong("DAO_COALESCE_MAX_WAIT_MS", 5000);
+        ProductDao productDao = new ProductDao(dataSource, productCache, metrics, coalesceMaxWaitMillis);
+        long updateWindowMillis = EnvConfig.getLong("PRODUCT_UPDATE_COALESCE_WINDOW_MS", 0);
+        if (updateWindowMillis > 0) {
+            productDao.enableWriteCoalescing(updateWindowMillis);
+        }
+        context.setAttribute("productDao", productDao);
+
+        if (EnvConfig.getBoolean("PRODUCT_SEARCH_ENABLED", true)) {
+            ProductIndexMaintainer search = new ProductIndexMaintainer(productDao, new ProductSearchIndex());
+            search.start();
+            context.setAttribute("productSearch", search);
+            metrics.gauge("erp_search_index_products", "Products in the search index", search.getIndex()::size);
+        }
+
+        if (EnvConfig.getBoolean("CATALOG_SNAPSHOT_ENABLED", false)) {
+            CatalogSnapshotRefresher snapshots = new CatalogSnapshotRefresher(productDao,
+                    EnvConfig.getLong("CATALOG_SNAPSHOT_REFRESH_MS", 5000),
+                    EnvConfig.getLong("CATALOG_SNAPSHOT_FULL_REFRESH_MS", 300_000));
+            context.setAttribute("catalogSnapshot", snapshots);
+            registerSnapshotMetrics(metrics, snapshots);
+        }
+
+        // Each extra scan holds its own connection outside the DbWorkExecutor's permits, so it is opt-in.
+        int statsParallelism = EnvConfig.getInt("STATS_PARALLELISM", 1);
+        context.setAttribute("productStats", new ProductStatsService(productDao, statsParallelism));
+
+        if (EnvConfig.getBoolean("ASYNC_ENABLED", true)) {
+            DbWorkExecutor executor = DbWorkExecutor.fromEnv(dataSource.getMaximumPoolSize());
+            context.setAttribute("dbWorkExecutor", executor);
+            metrics.gauge("erp_db_work_queued", "Requests waiting for a database slot", executor::getQueuedTasks);
+            metrics.gauge("erp_db_work_active", "Requests holding a database slot", executor::getActiveTasks);
+        }
+
+        if (EnvConfig.getBoolean("ADMISSION_CONTROL_ENABLED", true)) {
+            AdaptiveLimiter limiter = createAdmissionLimiter(productDao, dataSource.getMaximumPoolSize());
+            context.setAttribute("admissionLimiter", limiter);
+            metrics.gauge("erp_admission_limit", "Current adaptive concurrency limit", limiter::getLimit);
+            metrics.gauge("erp_admission_in_flight", "Admitted product requests in flight", limiter::getInFlight);
+            metrics.counter("erp_admission_rejected_reads_total", "Reads rejected with 503",
+                    limiter::getRejectedReads);
+            metrics.counter("erp_admission_rejected_writes_total", "Writes rejected with 503",
+                    limiter::getRejectedWrites);
+        }
 
         LOGGER.info("Application context initialized. DataSource and DAOs are ready.");
     }
 
+    private static AdaptiveLimiter createAdmissionLimiter(ProductDao productDao, int poolSize) {
+        int maxLimit = EnvConfig.getInt("ADMISSION_MAX_LIMIT", poolSize * 20);
+        int minLimit = EnvConfig.getInt("ADMISSION_MIN_LIMIT", poolSize);
+        int initialLimit = EnvConfig.getInt("ADMISSION_INITIAL_LIMIT", poolSize * 4);
+        long targetMillis = EnvConfig.getLong("ADMISSION_TARGET_LATENCY_MS", 100);
+        double writeShare = EnvConfig.getInt("ADMISSION_WRITE_SHARE_PERCENT", 80) / 100.0;
+        return new AdaptiveLimiter(productDao.requestLatencies(), targetMillis, initialLimit, minLimit, maxLimit,
+                0.9, writeShare, 1000);
+    }
+
+    private static void registerSnapshotMetrics(MetricsRegistry metrics, CatalogSnapshotRefresher snapshots) {
+        metrics.gauge("erp_catalog_snapshot_products", "Products in the catalog snapshot", () -> {
+            CatalogSnapshot snapshot = snapshots.getSnapshot();
+            return snapshot != null ? snapshot.size() : 0;
+        });
+        metrics.gauge("erp_catalog_snapshot_bytes", "Estimated heap used by the catalog snapshot", () -> {
+            CatalogSnapshot snapshot = snapshots.getSnapshot();
+            return snapshot != null ? snapshot.estimatedBytes() : 0;
+        });
+        metrics.gauge("erp_catalog_snapshot_age_seconds", "Time since the snapshot last read PRODUCTS in full", () -> {
+            CatalogSnapshot snapshot = snapshots.getSnapshot();
+            return snapshot != null ? (System.currentTimeMillis() - snapshot.getFullReadAtMillis()) / 1000.0 : 0;
+        });
+    }
+
+    private static void registerPoolGauges(MetricsRegistry metrics, HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        metrics.gauge("erp_pool_active_connections", "Connections borrowed from the pool", pool::getActiveConnections);
+        metrics.gauge("erp_pool_idle_connections", "Idle connections in the pool", pool::getIdleConnections);
+        metrics.gauge("erp_pool_total_connections", "Open connections in the pool", pool::getTotalConnections);
+        metrics.gauge("erp_pool_pending_threads", "Threads waiting for a connection",
+                pool::getThreadsAwaitingConnection);
+        metrics.gauge("erp_pool_max_connections", "Configured maximum pool size", dataSource::getMaximumPoolSize);
+    }
+
+    private static void registerCacheMetrics(MetricsRegistry metrics, ProductCache cache) {
+        metrics.counter("erp_product_cache_hits_total", "Product cache hits", () -> cache.stats().hitCount());
+        metrics.counter("erp_product_cache_misses_total", "Product cache misses", () -> cache.stats().missCount());
+        metrics.counter("erp_product_cache_evictions_total", "Product cache evictions",
+                () -> cache.stats().evictionCount());
+        metrics.gauge("erp_product_cache_size", "Approximate number of cached products", cache::estimatedSize);
+    }
+
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         ServletContext context = sce.getServletContext();
+        Object limiter = context.getAttribute("admissionLimiter");
+        if (limiter instanceof AdaptiveLimiter) {
+            ((AdaptiveLimiter) limiter).close();
+        }
+        Object healthProbe = context.getAttribute("healthProbe");
+        if (healthProbe instanceof DatabaseHealthProbe) {
+            ((DatabaseHealthProbe) healthProbe).close();
+        }
+        Object executor = context.getAttribute("dbWorkExecutor");
+        if (executor instanceof DbWorkExecutor) {
+            // Let in-flight requests finish before their connections go away.
+            ((DbWorkExecutor) executor).close();
+            LOGGER.info("DB work executor stopped.");
+        }
+        Object productDao = context.getAttribute("productDao");
+        if (productDao instanceof ProductDao) {
+            ((ProductDao) productDao).close();
+        }
+        Object stats = context.getAttribute("productStats");
+        if (stats instanceof ProductStatsService) {
+            ((ProductStatsService) stats).close();
+        }
+        Object snapshots = context.getAttribute("catalogSnapshot");
+        if (snapshots instanceof CatalogSnapshotRefresher) {
+            ((CatalogSnapshotRefresher) snapshots).close();
+        }
+        Object search = context.getAttribute("productSearch");
+        if (search instanceof ProductIndexMaintainer) {
+            ((ProductIndexMaintainer) search).close();
+        }
         Object ds = context.getAttribute("dataSource");
         if (ds instanceof HikariDataSource) {
             try {
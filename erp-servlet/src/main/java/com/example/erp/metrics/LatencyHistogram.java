@@ -0,0 +1,125 @@
+package com.example.erp.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of durations in nanoseconds.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKETS} linear buckets, so any recorded value is reported
+ * within 12.5% of its true value, up to about 36 minutes. {@link #record(long)} is a few arithmetic operations
+ * and one atomic increment; it never allocates or blocks.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 41;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+    }
+
+    /** Sum of all recorded values, in nanoseconds. */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Point-in-time copy of the counts. Buckets are read one by one while recording continues, which is
+     * accurate enough for monitoring.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        private Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /** Values recorded between {@code earlier} and this snapshot. */
+        public Snapshot minus(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                total += delta[i];
+            }
+            return new Snapshot(delta, total, Math.max(0, sum - earlier.sum));
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        /**
+         * Values in buckets that lie entirely at or below {@code nanos}. A bucket straddling the bound is left
+         * out, so a value may be counted against the next larger bound, never a smaller one.
+         */
+        public long countAtOrBelow(long nanos) {
+            long total = 0;
+            for (int i = 0; i < counts.length && bucketUpperBound(i) <= nanos; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        /** Upper bound of the bucket holding the given quantile, in nanoseconds; 0 when empty. */
+        public long quantile(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return MAX_VALUE;
+        }
+    }
+}
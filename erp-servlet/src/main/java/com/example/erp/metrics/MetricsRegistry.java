@@ -0,0 +1,117 @@
+package com.example.erp.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds the application's histograms, gauges and counters and renders them in the Prometheus text format.
+ * Metrics are registered once at startup and kept in fields by their users, so nothing is looked up per request.
+ */
+public class MetricsRegistry {
+
+    // Bucket bounds in seconds. Cumulative counts since startup, unlike quantiles, can be rated over any window
+    // and summed across nodes by Prometheus.
+    private static final double[] BUCKET_BOUNDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Returns the histogram for {@code family{label="value"}}, creating it on first use. Values are exported
+     * in seconds as a Prometheus histogram; take quantiles with {@code histogram_quantile} over a recent
+     * {@code rate} of its buckets.
+     */
+    public synchronized LatencyHistogram histogram(String family, String help, String label, String value) {
+        Family f = family(family, help, "histogram");
+        String labels = label + "=\"" + value + "\"";
+        for (Series series : f.series) {
+            if (series.labels.equals(labels)) {
+                return series.histogram;
+            }
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        f.series.add(new Series(labels, histogram, null));
+        return histogram;
+    }
+
+    public synchronized void gauge(String name, String help, DoubleSupplier supplier) {
+        family(name, help, "gauge").series.add(new Series("", null, supplier));
+    }
+
+    /** Registers a monotonically increasing value that is owned elsewhere (e.g. a cache's own statistics). */
+    public synchronized void counter(String name, String help, DoubleSupplier supplier) {
+        family(name, help, "counter").series.add(new Series("", null, supplier));
+    }
+
+    public synchronized void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.write("# HELP " + name + " " + family.help + "\n");
+            out.write("# TYPE " + name + " " + family.type + "\n");
+            for (Series series : family.series) {
+                if (series.histogram != null) {
+                    writeHistogram(out, name, series);
+                } else {
+                    out.write(name + " " + format(series.supplier.getAsDouble()) + "\n");
+                }
+            }
+        }
+    }
+
+    private void writeHistogram(Writer out, String name, Series series) throws IOException {
+        LatencyHistogram.Snapshot snapshot = series.histogram.snapshot();
+        for (double bound : BUCKET_BOUNDS) {
+            String le = BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+            out.write(name + "_bucket{" + series.labels + ",le=\"" + le + "\"} "
+                    + snapshot.countAtOrBelow((long) (bound * 1e9)) + "\n");
+        }
+        out.write(name + "_bucket{" + series.labels + ",le=\"+Inf\"} " + snapshot.count() + "\n");
+        out.write(name + "_sum{" + series.labels + "} " + format(snapshot.sum() / 1e9) + "\n");
+        out.write(name + "_count{" + series.labels + "} " + snapshot.count() + "\n");
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final List<Series> series = new ArrayList<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final class Series {
+        private final String labels;
+        private final LatencyHistogram histogram;
+        private final DoubleSupplier supplier;
+
+        private Series(String labels, LatencyHistogram histogram, DoubleSupplier supplier) {
+            this.labels = labels;
+            this.histogram = histogram;
+            this.supplier = supplier;
+        }
+    }
+}
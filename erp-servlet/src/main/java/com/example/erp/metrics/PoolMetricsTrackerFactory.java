@@ -0,0 +1,42 @@
+package com.example.erp.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds HikariCP's connection borrow wait times and borrow timeouts into a {@link MetricsRegistry}.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final LatencyHistogram borrowWait;
+    private final LongAdder borrowTimeouts = new LongAdder();
+
+    public PoolMetricsTrackerFactory(MetricsRegistry registry) {
+        this.borrowWait = registry.histogram("erp_pool_borrow_wait_seconds",
+                "Time spent waiting for a pooled connection", "pool", "erp");
+        registry.counter("erp_pool_borrow_timeouts_total",
+                "Connection requests that timed out waiting for the pool", borrowTimeouts::sum);
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                borrowWait.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                borrowTimeouts.increment();
+            }
+        };
+    }
+
+    public LatencyHistogram getBorrowWait() {
+        return borrowWait;
+    }
+}
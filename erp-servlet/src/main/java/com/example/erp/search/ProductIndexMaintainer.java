@@ -0,0 +1,92 @@
+package com.example.erp.search;
+
+import com.example.erp.dao.ProductChangeListener;
+import com.example.erp.dao.ProductDao;
+import com.example.erp.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads {@link ProductSearchIndex} from {@link ProductDao} on a background thread, then re-reads each product
+ * the DAO reports as changed. Changes reported during the initial load queue behind it, so the load can never
+ * overwrite a newer version of a row.
+ */
+public final class ProductIndexMaintainer implements ProductChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductIndexMaintainer.class);
+
+    private final ProductDao productDao;
+    private final ProductSearchIndex index;
+    private final ExecutorService worker;
+    // Ids with a refresh already queued; a burst of writes to one product costs a single read.
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ProductIndexMaintainer(ProductDao productDao, ProductSearchIndex index) {
+        this.productDao = productDao;
+        this.index = index;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "product-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Registers for DAO changes and starts the initial load. */
+    public void start() {
+        productDao.addChangeListener(this);
+        worker.execute(this::load);
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            long rows = productDao.streamProducts(index::put);
+            ready = true;
+            LOGGER.info("Product search index built with {} products in {} ms", rows,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            LOGGER.error("Product search index build failed; search stays unavailable", e);
+        }
+    }
+
+    @Override
+    public void productChanged(long id) {
+        if (pending.add(id)) {
+            worker.execute(() -> refresh(id));
+        }
+    }
+
+    private void refresh(long id) {
+        pending.remove(id);
+        try {
+            Optional<Product> product = productDao.getProductById(id);
+            if (product.isPresent()) {
+                index.put(product.get());
+            } else {
+                index.remove(id);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not refresh product {} in the search index", id, e);
+        }
+    }
+
+    public ProductSearchIndex getIndex() {
+        return index;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.erp.search;
+
+import com.example.erp.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory n-gram index over product names for type-ahead search.
+ * <p>
+ * Every trigram of a normalized name, and the one- and two-character prefix of each of its words, maps to an
+ * {@code int[]} posting of document numbers. Queries of three or more characters intersect the trigram
+ * postings; shorter ones read a word-prefix posting. Each candidate is checked against its stored name, so
+ * postings only ever need to be a superset of the true matches.
+ * <p>
+ * That is what keeps writes cheap. Every {@link #put} takes a new, higher document number, so postings stay
+ * sorted by only ever being appended to, and the replaced or removed document is merely blanked. Once more
+ * than half of the documents are blank the index is rebuilt from the live ones. Reads take no locks; writes
+ * are serialized.
+ */
+public final class ProductSearchIndex {
+
+    private static final long PREFIX_TAG = 1L << 62;
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_NAME_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+    private static final int MIN_COMPACTION_DEAD = 1024;
+    private static final long[] NO_GRAMS = new long[0];
+
+    private volatile State state = new State(1024);
+    // Writer-only: current document number of each product id.
+    private final Map<Long, Integer> docById = new HashMap<>();
+    private volatile int liveCount;
+
+    /**
+     * Ids of one gram in ascending document order. Readers take {@code size} and then {@code docs}; the writer
+     * publishes a grown array before the size that needs it, so the array read is always long enough.
+     */
+    private static final class Posting {
+        volatile int[] docs = new int[4];
+        volatile int size;
+
+        void append(int doc) {
+            int[] current = docs;
+            int n = size;
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n * 2);
+                current[n] = doc;
+                docs = current;
+            } else {
+                current[n] = doc;
+            }
+            size = n + 1;
+        }
+    }
+
+    private static final class State {
+        final ConcurrentHashMap<Long, Posting> postings = new ConcurrentHashMap<>();
+        volatile String[] names;
+        volatile Product[] products;
+        int docCount;
+        int deadCount;
+
+        State(int capacity) {
+            names = new String[capacity];
+            products = new Product[capacity];
+        }
+
+        void add(Product product, String normalized) {
+            int doc = docCount;
+            if (doc == names.length) {
+                String[] grownNames = Arrays.copyOf(names, doc * 2);
+                Product[] grownProducts = Arrays.copyOf(products, doc * 2);
+                grownNames[doc] = normalized;
+                grownProducts[doc] = product;
+                names = grownNames;
+                products = grownProducts;
+            } else {
+                names[doc] = normalized;
+                products[doc] = product;
+            }
+            docCount = doc + 1;
+            for (long gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new Posting()).append(doc);
+            }
+        }
+
+        void kill(int doc) {
+            names[doc] = null;
+            products[doc] = null;
+            deadCount++;
+        }
+    }
+
+    /** Adds the product, or replaces the indexed version with the same id. */
+    public synchronized void put(Product product) {
+        State current = state;
+        Integer previous = docById.put(product.getId(), current.docCount);
+        if (previous != null) {
+            current.kill(previous);
+        }
+        current.add(product, normalize(product.getName()));
+        liveCount = docById.size();
+        compactIfSparse();
+    }
+
+    public synchronized void remove(long id) {
+        Integer previous = docById.remove(id);
+        if (previous != null) {
+            state.kill(previous);
+            liveCount = docById.size();
+            compactIfSparse();
+        }
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    private void compactIfSparse() {
+        State current = state;
+        if (current.deadCount < MIN_COMPACTION_DEAD || current.deadCount * 2 < current.docCount) {
+            return;
+        }
+        State compacted = new State(Math.max(1024, docById.size() * 2));
+        for (int doc = 0; doc < current.docCount; doc++) {
+            Product product = current.products[doc];
+            if (product != null) {
+                docById.put(product.getId(), compacted.docCount);
+                compacted.add(product, current.names[doc]);
+            }
+        }
+        state = compacted;
+    }
+
+    /**
+     * Best {@code limit} products whose name contains {@code query}, ignoring case and punctuation. Exact
+     * matches come first, then names starting with the query, then words starting with it, then any other
+     * substring; shorter names and then lower ids break ties.
+     */
+    public List<Product> search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        State current = state;
+        String wordNeedle = ' ' + needle;
+        TopK top = new TopK(limit);
+        if (needle.length() < 3) {
+            Posting posting = current.postings.get(prefixGram(needle, 0, needle.length()));
+            if (posting != null) {
+                int size = posting.size;
+                int[] docs = posting.docs;
+                for (int i = 0; i < size; i++) {
+                    offer(current, top, docs[i], needle, wordNeedle);
+                }
+            }
+            return top.products(current);
+        }
+
+        long[] queryGrams = trigrams(needle);
+        int lists = queryGrams.length;
+        int[][] docs = new int[lists][];
+        int[] sizes = new int[lists];
+        for (int i = 0; i < lists; i++) {
+            Posting posting = current.postings.get(queryGrams[i]);
+            if (posting == null) {
+                return List.of();
+            }
+            sizes[i] = posting.size;
+            docs[i] = posting.docs;
+        }
+        intersect(current, top, docs, sizes, needle, wordNeedle);
+        return top.products(current);
+    }
+
+    /** Walks the shortest posting and gallops through the others, which are all sorted by document. */
+    private void intersect(State current, TopK top, int[][] docs, int[] sizes, String needle, String wordNeedle) {
+        int lists = docs.length;
+        int shortest = 0;
+        for (int i = 1; i < lists; i++) {
+            if (sizes[i] < sizes[shortest]) {
+                shortest = i;
+            }
+        }
+        int[] cursors = new int[lists];
+        candidates:
+        for (int c = 0; c < sizes[shortest]; c++) {
+            int doc = docs[shortest][c];
+            for (int i = 0; i < lists; i++) {
+                if (i == shortest) {
+                    continue;
+                }
+                int at = advance(docs[i], sizes[i], cursors[i], doc);
+                cursors[i] = at;
+                if (at == sizes[i]) {
+                    return;
+                }
+                if (docs[i][at] != doc) {
+                    continue candidates;
+                }
+            }
+            offer(current, top, doc, needle, wordNeedle);
+        }
+    }
+
+    /** First index at or after {@code from} whose document is {@code >= target}, or {@code size}. */
+    private static int advance(int[] docs, int size, int from, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && docs[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        if (high >= size) {
+            high = size;
+        }
+        int at = Arrays.binarySearch(docs, low, high, target);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    private static void offer(State current, TopK top, int doc, String needle, String wordNeedle) {
+        String name = current.names[doc];
+        if (name == null) {
+            return;
+        }
+        int at = name.indexOf(needle);
+        if (at < 0) {
+            return;
+        }
+        int rank;
+        if (at == 0) {
+            rank = name.length() == needle.length() ? RANK_EXACT : RANK_NAME_PREFIX;
+        } else {
+            rank = name.contains(wordNeedle) ? RANK_WORD_PREFIX : RANK_SUBSTRING;
+        }
+        Product product = current.products[doc];
+        if (product == null) {
+            return;
+        }
+        long id = product.getId();
+        long key = ((long) rank << 60) | ((long) Math.min(name.length(), 0xFFFF) << 44) | (id & ((1L << 44) - 1));
+        top.offer(key, doc);
+    }
+
+    /** Lower case, with every run of non-alphanumeric characters collapsed to one space. */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** Sorted, distinct trigram and word-prefix keys of a normalized name. */
+    static long[] grams(String normalized) {
+        long[] trigrams = trigrams(normalized);
+        long[] all = Arrays.copyOf(trigrams, trigrams.length + 2 * (normalized.length() / 2 + 1));
+        int n = trigrams.length;
+        int wordStart = 0;
+        while (wordStart < normalized.length()) {
+            int wordEnd = normalized.indexOf(' ', wordStart);
+            if (wordEnd < 0) {
+                wordEnd = normalized.length();
+            }
+            all[n++] = prefixGram(normalized, wordStart, 1);
+            if (wordEnd - wordStart >= 2) {
+                all[n++] = prefixGram(normalized, wordStart, 2);
+            }
+            wordStart = wordEnd + 1;
+        }
+        return distinct(all, n);
+    }
+
+    private static long[] trigrams(String s) {
+        if (s.length() < 3) {
+            return NO_GRAMS;
+        }
+        long[] grams = new long[s.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        return distinct(grams, grams.length);
+    }
+
+    private static long prefixGram(String s, int start, int length) {
+        long key = PREFIX_TAG | ((long) length << 48) | s.charAt(start);
+        if (length == 2) {
+            key |= (long) s.charAt(start + 1) << 16;
+        }
+        return key;
+    }
+
+    private static long[] distinct(long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (n == 0 || values[n - 1] != values[i]) {
+                values[n++] = values[i];
+            }
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    /** Bounded max-heap on the packed rank key; keeps the {@code limit} smallest. */
+    private static final class TopK {
+        private final long[] keys;
+        private final int[] ids;
+        private int size;
+
+        TopK(int limit) {
+            keys = new long[limit];
+            ids = new int[limit];
+        }
+
+        void offer(long key, int id) {
+            if (size < keys.length) {
+                keys[size] = key;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (key < keys[0]) {
+                keys[0] = key;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] >= keys[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && keys[left] > keys[largest]) {
+                    largest = left;
+                }
+                if (right < size && keys[right] > keys[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+
+        List<Product> products(State state) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+            List<Product> result = new ArrayList<>(size);
+            for (Integer i : order) {
+                Product product = state.products[ids[i]];
+                if (product != null) {
+                    result.add(product);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.erp.servlet;
+
+import com.example.erp.cache.ProductCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CacheStatsServlet extends HttpServlet {
+
+    private transient ObjectMapper objectMapper;
+
+    @Override
+    public void init() throws ServletException {
+        objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        ProductCache productCache = (ProductCache) getServletContext().getAttribute("productCache");
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        if (productCache == null) {
+            objectMapper.writeValue(resp.getWriter(), Map.of("enabled", false));
+            return;
+        }
+
+        CacheStats stats = productCache.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", true);
+        body.put("size", productCache.estimatedSize());
+        body.put("hits", stats.hitCount());
+        body.put("misses", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictions", stats.evictionCount());
+        body.put("loadFailures", stats.loadFailureCount());
+        body.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        objectMapper.writeValue(resp.getWriter(), Map.of("productCache", body));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.erp.servlet;
+
+import com.example.erp.model.Product;
+
+import java.time.Instant;
+
+/**
+ * Strong entity tags for product responses and {@code If-None-Match} evaluation.
+ */
+final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {}
+
+    /** Tag derived from the row's content, so it changes whenever any serialized field does. */
+    static String forProduct(Product product) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, product.getId());
+        hash = mix(hash, Double.doubleToLongBits(product.getPrice()));
+        String name = product.getName();
+        if (name != null) {
+            for (int i = 0; i < name.length(); i++) {
+                hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+            }
+        }
+        Instant createdAt = product.getCreatedAt();
+        if (createdAt != null) {
+            hash = mix(hash, createdAt.getEpochSecond());
+            hash = mix(hash, createdAt.getNano());
+        }
+        return "\"p" + product.getId() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Tag for a listing: this node's instance id and write counter, plus a time bucket so writes made through
+     * other nodes are picked up within one bucket.
+     */
+    static String forListing(String instanceId, long changeVersion, long bucket) {
+        return "\"l" + instanceId + "-" + Long.toHexString(changeVersion) + "-" + Long.toHexString(bucket) + "\"";
+    }
+
+    /** Weak comparison as RFC 9110 requires for If-None-Match; {@code *} matches any current representation. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+}
@@ -1,18 +1,78 @@
 package com.example.erp.servlet;
 
+import com.example.erp.config.ObjectMappers;
+import com.example.erp.db.DatabaseHealthProbe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * {@code /health} and {@code /health/live}: the process is up. {@code /health/ready}: the cached result of
+ * {@link DatabaseHealthProbe} plus pool counts, 503 when the node should not receive traffic.
+ */
 public class HealthServlet extends HttpServlet {
+
+    private transient ObjectMapper objectMapper;
+
+    @Override
+    public void init() throws ServletException {
+        objectMapper = ObjectMappers.create();
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
-        resp.getWriter().write("{\"status\":\"ok\"}");
+        resp.setHeader("Cache-Control", "no-store");
+        String path = req.getPathInfo();
+        if (path == null || "/".equals(path) || "/live".equals(path)) {
+            resp.getWriter().write("{\"status\":\"ok\"}");
+        } else if ("/ready".equals(path)) {
+            writeReadiness(resp);
+        } else {
+            resp.setStatus(404);
+            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Not found"));
+        }
     }
-}
 
+    private void writeReadiness(HttpServletResponse resp) throws IOException {
+        DatabaseHealthProbe probe = (DatabaseHealthProbe) getServletContext().getAttribute("healthProbe");
+        if (probe == null) {
+            resp.setStatus(503);
+            objectMapper.writeValue(resp.getWriter(), Map.of("status", "unavailable", "error", "No health probe"));
+            return;
+        }
+
+        DatabaseHealthProbe.Status status = probe.getStatus();
+        Map<String, Object> database = new LinkedHashMap<>();
+        database.put("up", status.databaseUp());
+        database.put("probeMillis", status.probeMillis());
+        database.put("checkedAt", status.checkedAt());
+        if (status.error() != null) {
+            database.put("error", status.error());
+        }
+
+        HikariPoolMXBean pool = probe.getPool();
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        poolStats.put("active", pool.getActiveConnections());
+        poolStats.put("idle", pool.getIdleConnections());
+        poolStats.put("pending", pool.getThreadsAwaitingConnection());
+        poolStats.put("total", pool.getTotalConnections());
+        poolStats.put("max", probe.getMaximumPoolSize());
+        poolStats.put("waitP99Millis", status.poolWaitP99Millis());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.ready() ? "ready" : "unavailable");
+        body.put("database", database);
+        body.put("pool", poolStats);
+        resp.setStatus(status.ready() ? 200 : 503);
+        objectMapper.writeValue(resp.getWriter(), body);
+    }
+}
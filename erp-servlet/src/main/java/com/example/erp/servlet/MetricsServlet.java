@@ -0,0 +1,19 @@
+package com.example.erp.servlet;
+
+import com.example.erp.metrics.MetricsRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public class MetricsServlet extends HttpServlet {
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        MetricsRegistry metrics = (MetricsRegistry) getServletContext().getAttribute("metrics");
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.setCharacterEncoding("UTF-8");
+        metrics.writePrometheus(resp.getWriter());
+    }
+}
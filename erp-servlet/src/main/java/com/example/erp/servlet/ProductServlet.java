@@ -1,176 +1,715 @@
 package com.example.erp.servlet;
 
+import com.example.erp.concurrent.DbWorkExecutor;
+import com.example.erp.config.EnvConfig;
+import com.example.erp.dao.BatchCreateResult;
 import com.example.erp.dao.ProductDao;
+import com.example.erp.metrics.LatencyHistogram;
+import com.example.erp.metrics.MetricsRegistry;
 import com.example.erp.model.Product;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.erp.search.ProductIndexMaintainer;
+import com.example.erp.snapshot.CatalogSnapshot;
+import com.example.erp.snapshot.CatalogSnapshotRefresher;
+import com.example.erp.stats.PriceSketch;
+import com.example.erp.stats.ProductStatsService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class ProductServlet extends HttpServlet {
 
-    private transient ObjectMapper objectMapper;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductServlet.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int DEFAULT_STATS_BUCKETS = 10;
+    private static final int MAX_STATS_BUCKETS = 100;
+
+    private int batchChunkSize;
+    private int maxBatchItems;
+    private String instanceId;
+    private long listingEtagMillis;
+
+    private transient LatencyHistogram listRoute;
+    private transient LatencyHistogram searchRoute;
+    private transient LatencyHistogram statsRoute;
+    private transient LatencyHistogram getRoute;
+    private transient LatencyHistogram createRoute;
+    private transient LatencyHistogram batchRoute;
+    private transient LatencyHistogram updateRoute;
+    private transient LatencyHistogram deleteRoute;
 
     @Override
     public void init() throws ServletException {
-        objectMapper = new ObjectMapper();
+        batchChunkSize = EnvConfig.getInt("PRODUCT_BATCH_SIZE", 500);
+        if (batchChunkSize < 1) {
+            throw new ServletException("PRODUCT_BATCH_SIZE must be at least 1");
+        }
+        maxBatchItems = EnvConfig.getInt("PRODUCT_BATCH_MAX_ITEMS", 10_000);
+        // Distinguishes this node's listing ETags from other nodes' and from earlier runs of this one.
+        instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        long listingEtagMaxAge = EnvConfig.getLong("LISTING_ETAG_MAX_AGE_SECONDS", 30);
+        if (listingEtagMaxAge < 0) {
+            throw new ServletException("LISTING_ETAG_MAX_AGE_SECONDS must not be negative");
+        }
+        // 0 leaves time out of listing ETags, for a single node where the write counter sees every change.
+        listingEtagMillis = TimeUnit.SECONDS.toMillis(listingEtagMaxAge);
+
+        MetricsRegistry metrics = (MetricsRegistry) getServletContext().getAttribute("metrics");
+        if (metrics == null) {
+            metrics = new MetricsRegistry();
+        }
+        listRoute = routeHistogram(metrics, "GET /api/products");
+        searchRoute = routeHistogram(metrics, "GET /api/products?q");
+        statsRoute = routeHistogram(metrics, "GET /api/products/stats");
+        getRoute = routeHistogram(metrics, "GET /api/products/{id}");
+        createRoute = routeHistogram(metrics, "POST /api/products");
+        batchRoute = routeHistogram(metrics, "POST /api/products/batch");
+        updateRoute = routeHistogram(metrics, "PUT /api/products/{id}");
+        deleteRoute = routeHistogram(metrics, "DELETE /api/products/{id}");
+    }
+
+    private static LatencyHistogram routeHistogram(MetricsRegistry metrics, String route) {
+        return metrics.histogram("erp_http_request_seconds",
+                "Product API request latency, including time queued for the database", "route", route);
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String pathInfo = req.getPathInfo();
+        boolean collection = pathInfo == null || pathInfo.equals("/");
+        if (collection && req.getParameter("q") != null) {
+            // Answered from memory; no reason to wait for a database slot.
+            long start = System.nanoTime();
+            try {
+                search(req, resp);
+            } finally {
+                searchRoute.record(System.nanoTime() - start);
+            }
+            return;
+        }
+        if ("/stats".equals(pathInfo)) {
+            dispatch(req, resp, this::handleStats, statsRoute);
+            return;
+        }
+        CatalogSnapshot snapshot = acceptableSnapshot(req);
+        if (snapshot != null) {
+            long start = System.nanoTime();
+            try {
+                serveSnapshot(req, resp, snapshot, collection);
+            } finally {
+                (collection ? listRoute : getRoute).record(System.nanoTime() - start);
+            }
+            return;
+        }
+        dispatch(req, resp, this::handleGet, collection ? listRoute : getRoute);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        dispatch(req, resp, this::handlePost, "/batch".equals(req.getPathInfo()) ? batchRoute : createRoute);
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        dispatch(req, resp, this::handlePut, updateRoute);
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        dispatch(req, resp, this::handleDelete, deleteRoute);
+    }
+
+    /**
+     * Runs {@code handler} on the {@link DbWorkExecutor} when one is configured, releasing the container thread
+     * until the response is complete. The worker is the only thread that writes the response, including the
+     * 503 sent when no database permit frees up within the request timeout.
+     */
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp, Handler handler, LatencyHistogram route)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        DbWorkExecutor executor = (DbWorkExecutor) getServletContext().getAttribute("dbWorkExecutor");
+        if (executor == null || !req.isAsyncSupported()) {
+            try {
+                handler.handle(req, resp);
+            } finally {
+                route.record(System.nanoTime() - start);
+            }
+            return;
+        }
+
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        // The executor enforces the deadline itself; a container timeout would race the worker for the response.
+        asyncContext.setTimeout(0);
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(executor.getRequestTimeoutMillis());
+        executor.execute(deadline, () -> {
+            try {
+                handler.handle(req, resp);
+            } catch (Exception e) {
+                LOGGER.error("Unhandled error in {} {}", req.getMethod(), req.getRequestURI(), e);
+                if (!resp.isCommitted()) {
+                    resp.resetBuffer();
+                    resp.setStatus(500);
+                    writeQuietly(resp, Map.of("error", "Internal error"));
+                }
+            } finally {
+                closeBody(resp);
+                asyncContext.complete();
+                route.record(System.nanoTime() - start);
+            }
+        }, () -> {
+            resp.setStatus(503);
+            resp.setHeader("Retry-After", "1");
+            writeQuietly(resp, Map.of("error", "Service busy, retry later"));
+            closeBody(resp);
+            asyncContext.complete();
+            route.record(System.nanoTime() - start);
+        });
+    }
+
+    private void writeQuietly(HttpServletResponse resp, Object body) {
+        try {
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            write(resp, WireFormat.JSON, body);
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.warn("Could not write error response", e);
+        }
+    }
+
+    /** Ends the body before {@code complete()}; a wrapping filter may still be holding or compressing bytes. */
+    private static void closeBody(HttpServletResponse resp) {
+        try {
+            resp.getOutputStream().close();
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.debug("Could not close response body", e);
+        }
+    }
+
+    /**
+     * Picks the response format from {@code Accept} and sets the matching content type.
+     */
+    private static WireFormat negotiate(HttpServletRequest req, HttpServletResponse resp) {
+        WireFormat format = WireFormat.forAccept(req.getHeader("Accept"));
+        resp.setContentType(format.mediaType());
+        if (format == WireFormat.JSON) {
+            resp.setCharacterEncoding("UTF-8");
+        }
+        resp.setHeader("Vary", "Accept");
+        return format;
+    }
+
+    private static void write(HttpServletResponse resp, WireFormat format, Object body) throws IOException {
+        format.mapper().writeValue(resp.getOutputStream(), body);
+    }
+
+    private static Map<?, ?> readBody(HttpServletRequest req) throws IOException {
+        return WireFormat.forContentType(req.getContentType()).mapper().readValue(req.getInputStream(), Map.class);
+    }
+
+    /**
+     * Returns the {@code {id}} segment of a {@code /{id}} path, or {@code null} for any other shape.
+     */
+    static String idSegment(String pathInfo) {
+        String[] parts = pathInfo.split("/");
+        return parts.length == 2 ? parts[1] : null;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException;
+    }
+
+    private void handleGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         ProductDao productDao = (ProductDao) getServletContext().getAttribute("productDao");
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
+        WireFormat format = negotiate(req, resp);
 
         String pathInfo = req.getPathInfo();
         if (pathInfo == null || pathInfo.equals("/")) {
-            try {
-                List<Product> products = productDao.listProducts();
-                objectMapper.writeValue(resp.getWriter(), products);
-            } catch (SQLException e) {
-                resp.setStatus(500);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", e.getMessage()));
+            // Decided from the DAO's write counter alone, so an unchanged listing costs no query at all.
+            String etag = ETags.forListing(instanceId, productDao.getChangeVersion(),
+                    listingEtagMillis == 0 ? 0 : System.currentTimeMillis() / listingEtagMillis);
+            if (notModified(req, resp, format, etag)) {
+                return;
+            }
+            String after = req.getParameter("after");
+            String limit = req.getParameter("limit");
+            if (after != null || limit != null) {
+                writePage(productDao::listProductsPage, after, limit, format, resp);
+            } else {
+                streamAll(productDao, format, resp);
             }
             return;
         }
 
         // /{id}
-        String[] parts = pathInfo.split("/");
-        if (parts.length == 2) {
+        String segment = idSegment(pathInfo);
+        if (segment != null) {
             try {
-                long id = Long.parseLong(parts[1]);
+                long id = Long.parseLong(segment);
                 Optional<Product> product = productDao.getProductById(id);
                 if (product.isPresent()) {
-                    objectMapper.writeValue(resp.getWriter(), product.get());
+                    if (notModified(req, resp, format, ETags.forProduct(product.get()))) {
+                        return;
+                    }
+                    write(resp, format, product.get());
                 } else {
                     resp.setStatus(404);
-                    objectMapper.writeValue(resp.getWriter(), Map.of("error", "Not found"));
+                    write(resp, format, Map.of("error", "Not found"));
                 }
             } catch (NumberFormatException ex) {
                 resp.setStatus(400);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", "Invalid id"));
+                write(resp, format, Map.of("error", "Invalid id"));
+            } catch (SQLTimeoutException e) {
+                busy(resp, format, e);
             } catch (SQLException e) {
                 resp.setStatus(500);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", e.getMessage()));
+                write(resp, format, Map.of("error", e.getMessage()));
             }
             return;
         }
 
         resp.setStatus(404);
-        objectMapper.writeValue(resp.getWriter(), Map.of("error", "Not found"));
+        write(resp, format, Map.of("error", "Not found"));
     }
 
-    @Override
-    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    /**
+     * The catalog snapshot, if one is loaded and no older than the client allows with
+     * {@code Cache-Control: max-stale[=seconds]}; otherwise {@code null} and the request goes to the database.
+     */
+    private CatalogSnapshot acceptableSnapshot(HttpServletRequest req) {
+        CatalogSnapshotRefresher refresher =
+                (CatalogSnapshotRefresher) getServletContext().getAttribute("catalogSnapshot");
+        if (refresher == null) {
+            return null;
+        }
+        long maxStaleMillis = maxStaleMillis(req.getHeader("Cache-Control"));
+        CatalogSnapshot snapshot = refresher.getSnapshot();
+        if (maxStaleMillis < 0 || snapshot == null) {
+            return null;
+        }
+        return System.currentTimeMillis() - snapshot.getFullReadAtMillis() <= maxStaleMillis ? snapshot : null;
+    }
+
+    /** {@code max-stale} from a Cache-Control header in milliseconds, unbounded without a value, -1 if absent. */
+    static long maxStaleMillis(String cacheControl) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String d = directive.trim();
+            if (d.equalsIgnoreCase("max-stale")) {
+                return Long.MAX_VALUE;
+            }
+            if (d.regionMatches(true, 0, "max-stale=", 0, 10)) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(d.substring(10).replace("\"", "").trim()));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void serveSnapshot(HttpServletRequest req, HttpServletResponse resp, CatalogSnapshot snapshot,
+                               boolean collection) throws IOException {
+        WireFormat format = negotiate(req, resp);
+        long ageMillis = Math.max(0, System.currentTimeMillis() - snapshot.getFullReadAtMillis());
+        resp.setHeader("Age", Long.toString(ageMillis / 1000));
+
+        if (collection) {
+            String after = req.getParameter("after");
+            String limit = req.getParameter("limit");
+            if (after != null || limit != null) {
+                writePage(snapshot::page, after, limit, format, resp);
+                return;
+            }
+            JsonGenerator gen = format.mapper().getFactory().createGenerator(resp.getOutputStream());
+            gen.writeStartArray();
+            for (int i = 0; i < snapshot.size(); i++) {
+                format.rowWriter().writeValue(gen, snapshot.product(i));
+            }
+            gen.writeEndArray();
+            gen.close();
+            return;
+        }
+
+        String segment = idSegment(req.getPathInfo());
+        if (segment == null) {
+            resp.setStatus(404);
+            write(resp, format, Map.of("error", "Not found"));
+            return;
+        }
+        try {
+            int index = snapshot.indexOf(Long.parseLong(segment));
+            if (index >= 0) {
+                write(resp, format, snapshot.product(index));
+            } else {
+                resp.setStatus(404);
+                write(resp, format, Map.of("error", "Not found"));
+            }
+        } catch (NumberFormatException ex) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "Invalid id"));
+        }
+    }
+
+    private void search(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        WireFormat format = negotiate(req, resp);
+        ProductIndexMaintainer search = (ProductIndexMaintainer) getServletContext().getAttribute("productSearch");
+        if (search == null) {
+            resp.setStatus(501);
+            write(resp, format, Map.of("error", "Search is disabled"));
+            return;
+        }
+        if (!search.isReady()) {
+            resp.setStatus(503);
+            resp.setHeader("Retry-After", "5");
+            write(resp, format, Map.of("error", "Search index is still loading"));
+            return;
+        }
+
+        int limit;
+        try {
+            String limitParam = req.getParameter("limit");
+            limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_SEARCH_LIMIT;
+        } catch (NumberFormatException ex) {
+            limit = -1;
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "limit must be between 1 and " + MAX_SEARCH_LIMIT));
+            return;
+        }
+        write(resp, format, search.getIndex().search(req.getParameter("q"), limit));
+    }
+
+    private void handleStats(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        WireFormat format = negotiate(req, resp);
+        ProductStatsService stats = (ProductStatsService) getServletContext().getAttribute("productStats");
+
+        Instant createdFrom;
+        Instant createdTo;
+        try {
+            createdFrom = parseCreatedAt(req.getParameter("createdFrom"));
+            createdTo = parseCreatedAt(req.getParameter("createdTo"));
+        } catch (DateTimeParseException ex) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "createdFrom and createdTo must be ISO-8601 dates or instants"));
+            return;
+        }
+        int buckets;
+        try {
+            String bucketsParam = req.getParameter("buckets");
+            buckets = bucketsParam != null ? Integer.parseInt(bucketsParam) : DEFAULT_STATS_BUCKETS;
+        } catch (NumberFormatException ex) {
+            buckets = -1;
+        }
+        if (buckets < 1 || buckets > MAX_STATS_BUCKETS) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "buckets must be between 1 and " + MAX_STATS_BUCKETS));
+            return;
+        }
+
+        try {
+            write(resp, format, statsBody(stats.priceStats(createdFrom, createdTo), buckets));
+        } catch (SQLTimeoutException e) {
+            busy(resp, format, e);
+        } catch (SQLException e) {
+            resp.setStatus(500);
+            write(resp, format, Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** An instant, or a date taken as the start of that day in UTC; {@code null} when absent. */
+    static Instant parseCreatedAt(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+        return Instant.parse(value);
+    }
+
+    private static Map<String, Object> statsBody(PriceSketch sketch, int buckets) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", sketch.count());
+        if (sketch.count() == 0) {
+            return body;
+        }
+        body.put("min", sketch.min());
+        body.put("max", sketch.max());
+        body.put("mean", sketch.mean());
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", sketch.quantile(0.50));
+        percentiles.put("p90", sketch.quantile(0.90));
+        percentiles.put("p95", sketch.quantile(0.95));
+        percentiles.put("p99", sketch.quantile(0.99));
+        body.put("percentiles", percentiles);
+        body.put("relativeAccuracy", PriceSketch.RELATIVE_ACCURACY);
+        body.put("histogram", sketch.histogram(buckets));
+        return body;
+    }
+
+    /**
+     * Sets the validators on {@code resp}; if the client's copy is current, also sends 304 and returns true.
+     */
+    private boolean notModified(HttpServletRequest req, HttpServletResponse resp, WireFormat format, String baseEtag) {
+        // Each representation needs its own strong tag.
+        String etag = baseEtag.substring(0, baseEtag.length() - 1) + format.etagSuffix() + "\"";
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", "no-cache");
+        if (ETags.matches(req.getHeader("If-None-Match"), etag)) {
+            resp.setStatus(304);
+            return true;
+        }
+        return false;
+    }
+
+    private void busy(HttpServletResponse resp, WireFormat format, SQLTimeoutException e) throws IOException {
+        resp.setStatus(503);
+        resp.setHeader("Retry-After", "1");
+        write(resp, format, Map.of("error", e.getMessage()));
+    }
+
+    @FunctionalInterface
+    private interface PageSource {
+        List<Product> page(long afterId, int limit) throws SQLException;
+    }
+
+    private void writePage(PageSource source, String afterParam, String limitParam, WireFormat format,
+                           HttpServletResponse resp) throws IOException {
+        long after;
+        int limit;
+        try {
+            after = afterParam != null ? Long.parseLong(afterParam) : 0L;
+            limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException ex) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "after and limit must be numbers"));
+            return;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            resp.setStatus(400);
+            write(resp, format, Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+            return;
+        }
+
+        try {
+            List<Product> products = source.page(after, limit);
+            if (products.size() == limit) {
+                // Clients pass this back as ?after= to fetch the next page.
+                resp.setHeader("X-Next-After", Long.toString(products.get(products.size() - 1).getId()));
+            }
+            write(resp, format, products);
+        } catch (SQLTimeoutException e) {
+            busy(resp, format, e);
+        } catch (SQLException e) {
+            resp.setStatus(500);
+            write(resp, format, Map.of("error", e.getMessage()));
+        }
+    }
+
+    private void streamAll(ProductDao productDao, WireFormat format, HttpServletResponse resp) throws IOException {
+        JsonGenerator gen = format.mapper().getFactory().createGenerator(resp.getOutputStream());
+        try {
+            gen.writeStartArray();
+            productDao.streamProducts(product -> format.rowWriter().writeValue(gen, product));
+            gen.writeEndArray();
+            gen.close();
+        } catch (SQLException e) {
+            if (resp.isCommitted()) {
+                // Part of the array is already on the wire; the status can no longer change.
+                LOGGER.error("Product listing failed after the response was committed", e);
+                throw new IOException(e);
+            }
+            resp.resetBuffer();
+            resp.setStatus(500);
+            write(resp, format, Map.of("error", e.getMessage()));
+        }
+    }
+
+    private void handlePost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         ProductDao productDao = (ProductDao) getServletContext().getAttribute("productDao");
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
+        WireFormat format = negotiate(req, resp);
+
+        String pathInfo = req.getPathInfo();
+        if ("/batch".equals(pathInfo)) {
+            createBatch(productDao, req, resp, format);
+            return;
+        }
+        if (pathInfo != null && !pathInfo.equals("/")) {
+            resp.setStatus(404);
+            write(resp, format, Map.of("error", "Not found"));
+            return;
+        }
 
         try {
-            Map<String, Object> body = objectMapper.readValue(req.getInputStream(), Map.class);
+            Map<?, ?> body = readBody(req);
             String name = (String) body.get("name");
             Number priceNum = (Number) body.get("price");
             if (name == null || name.isBlank() || priceNum == null) {
                 resp.setStatus(400);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", "name and price are required"));
+                write(resp, format, Map.of("error", "name and price are required"));
                 return;
             }
             double price = priceNum.doubleValue();
             long id = productDao.createProduct(name, price);
             resp.setStatus(201);
-            objectMapper.writeValue(resp.getWriter(), Map.of("id", id));
+            write(resp, format, Map.of("id", id));
         } catch (SQLException e) {
             resp.setStatus(500);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", e.getMessage()));
+            write(resp, format, Map.of("error", e.getMessage()));
         }
     }
 
-    @Override
-    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    private void createBatch(ProductDao productDao, HttpServletRequest req, HttpServletResponse resp,
+                             WireFormat format) throws IOException {
+        List<?> items = WireFormat.forContentType(req.getContentType()).mapper()
+                .readValue(req.getInputStream(), List.class);
+        if (items.isEmpty() || items.size() > maxBatchItems) {
+            resp.setStatus(400);
+            write(resp, format,
+                    Map.of("error", "batch must contain between 1 and " + maxBatchItems + " products"));
+            return;
+        }
+
+        // Invalid items are reported without reaching the database; valid ones keep their input position.
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        List<Product> valid = new ArrayList<>(items.size());
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            Object name = item instanceof Map ? ((Map<?, ?>) item).get("name") : null;
+            Object price = item instanceof Map ? ((Map<?, ?>) item).get("price") : null;
+            if (!(name instanceof String) || ((String) name).isBlank() || !(price instanceof Number)) {
+                results.add(Map.of("index", i, "error", "name and price are required"));
+                continue;
+            }
+            results.add(null);
+            valid.add(new Product(0, (String) name, ((Number) price).doubleValue(), null));
+            validIndexes.add(i);
+        }
+
+        BatchCreateResult created = productDao.createProducts(valid, batchChunkSize);
+        int failed = items.size() - valid.size();
+        for (int i = 0; i < created.size(); i++) {
+            int index = validIndexes.get(i);
+            if (created.isCreated(i)) {
+                results.set(index, Map.of("index", index, "id", created.getId(i)));
+            } else {
+                results.set(index, Map.of("index", index, "error", created.getError(i)));
+                failed++;
+            }
+        }
+
+        resp.setStatus(failed == 0 ? 201 : 207);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("created", items.size() - failed);
+        body.put("failed", failed);
+        body.put("results", results);
+        write(resp, format, body);
+    }
+
+    private void handlePut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         ProductDao productDao = (ProductDao) getServletContext().getAttribute("productDao");
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
+        WireFormat format = negotiate(req, resp);
 
         String pathInfo = req.getPathInfo();
         if (pathInfo == null || pathInfo.equals("/")) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Missing id in path"));
+            write(resp, format, Map.of("error", "Missing id in path"));
             return;
         }
-        String[] parts = pathInfo.split("/");
-        if (parts.length != 2) {
+        String segment = idSegment(pathInfo);
+        if (segment == null) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Invalid path"));
+            write(resp, format, Map.of("error", "Invalid path"));
             return;
         }
 
         try {
-            long id = Long.parseLong(parts[1]);
-            Map<String, Object> body = objectMapper.readValue(req.getInputStream(), Map.class);
+            long id = Long.parseLong(segment);
+            Map<?, ?> body = readBody(req);
             String name = (String) body.get("name");
             Number priceNum = (Number) body.get("price");
             if (name == null || name.isBlank() || priceNum == null) {
                 resp.setStatus(400);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", "name and price are required"));
+                write(resp, format, Map.of("error", "name and price are required"));
                 return;
             }
             boolean updated = productDao.updateProduct(id, name, priceNum.doubleValue());
             if (updated) {
-                objectMapper.writeValue(resp.getWriter(), Map.of("updated", true));
+                write(resp, format, Map.of("updated", true));
             } else {
                 resp.setStatus(404);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", "Not found"));
+                write(resp, format, Map.of("error", "Not found"));
             }
         } catch (NumberFormatException ex) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Invalid id"));
+            write(resp, format, Map.of("error", "Invalid id"));
         } catch (SQLException e) {
             resp.setStatus(500);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", e.getMessage()));
+            write(resp, format, Map.of("error", e.getMessage()));
         }
     }
 
-    @Override
-    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    private void handleDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         ProductDao productDao = (ProductDao) getServletContext().getAttribute("productDao");
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
+        WireFormat format = negotiate(req, resp);
 
         String pathInfo = req.getPathInfo();
         if (pathInfo == null || pathInfo.equals("/")) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Missing id in path"));
+            write(resp, format, Map.of("error", "Missing id in path"));
             return;
         }
-        String[] parts = pathInfo.split("/");
-        if (parts.length != 2) {
+        String segment = idSegment(pathInfo);
+        if (segment == null) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Invalid path"));
+            write(resp, format, Map.of("error", "Invalid path"));
             return;
         }
 
         try {
-            long id = Long.parseLong(parts[1]);
+            long id = Long.parseLong(segment);
             boolean deleted = productDao.deleteProduct(id);
             if (deleted) {
-                objectMapper.writeValue(resp.getWriter(), Map.of("deleted", true));
+                write(resp, format, Map.of("deleted", true));
             } else {
                 resp.setStatus(404);
-                objectMapper.writeValue(resp.getWriter(), Map.of("error", "Not found"));
+                write(resp, format, Map.of("error", "Not found"));
             }
         } catch (NumberFormatException ex) {
             resp.setStatus(400);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", "Invalid id"));
+            write(resp, format, Map.of("error", "Invalid id"));
         } catch (SQLException e) {
             resp.setStatus(500);
-            objectMapper.writeValue(resp.getWriter(), Map.of("error", e.getMessage()));
+            write(resp, format, Map.of("error", e.getMessage()));
         }
     }
 }
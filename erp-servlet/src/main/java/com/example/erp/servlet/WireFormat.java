@@ -0,0 +1,100 @@
+package com.example.erp.servlet;
+
+import com.example.erp.config.ObjectMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Representations the product API can read and write. JSON is the default; Smile and CBOR are chosen through
+ * {@code Accept} for responses and {@code Content-Type} for request bodies.
+ */
+enum WireFormat {
+    JSON("application/json", ObjectMappers.create()),
+    SMILE("application/x-jackson-smile", ObjectMappers.create(new SmileFactory())),
+    CBOR("application/cbor", ObjectMappers.create(new CBORFactory()));
+
+    private final String mediaType;
+    private final ObjectMapper mapper;
+    // Streamed rows must not flush the generator one by one; the container buffer decides when to send.
+    private final ObjectWriter rowWriter;
+
+    WireFormat(String mediaType, ObjectMapper mapper) {
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+        this.rowWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    String mediaType() {
+        return mediaType;
+    }
+
+    ObjectMapper mapper() {
+        return mapper;
+    }
+
+    ObjectWriter rowWriter() {
+        return rowWriter;
+    }
+
+    /** Suffix that keeps strong ETags distinct per representation. */
+    String etagSuffix() {
+        return this == JSON ? "" : "-" + name().toLowerCase();
+    }
+
+    /**
+     * First supported type listed in {@code Accept} (ranges with {@code q=0} are skipped); JSON when nothing
+     * listed is supported, so browsers and tools sending {@code text/html} or {@code *}{@code /*} keep getting JSON.
+     */
+    static WireFormat forAccept(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            if (isRejected(parts)) {
+                continue;
+            }
+            WireFormat format = byMediaType(parts[0]);
+            if (format != null) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+
+    /** Format of a request body; anything other than Smile or CBOR is read as JSON, as before. */
+    static WireFormat forContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        WireFormat format = byMediaType(contentType.split(";", 2)[0]);
+        return format != null ? format : JSON;
+    }
+
+    private static WireFormat byMediaType(String mediaType) {
+        String type = mediaType.trim();
+        for (WireFormat format : values()) {
+            if (format.mediaType.equalsIgnoreCase(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRejected(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.erp.snapshot;
+
+import com.example.erp.model.Product;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable column-wise copy of the PRODUCTS table, sorted by id.
+ * <p>
+ * Each row costs three primitive array slots plus a reference into a {@link NameDictionary}, instead of a
+ * {@link Product} with its own String and Instant. Rows are materialized as {@link Product}s only while a
+ * response is being written.
+ */
+public final class CatalogSnapshot {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final long[] ids;
+    private final double[] prices;
+    private final long[] createdAtMillis;
+    private final int[] names;
+    private final NameDictionary.View dictionary;
+    private final int size;
+    private final long fullReadAtMillis;
+
+    private CatalogSnapshot(long[] ids, double[] prices, long[] createdAtMillis, int[] names,
+                            NameDictionary.View dictionary, int size, long fullReadAtMillis) {
+        this.ids = ids;
+        this.prices = prices;
+        this.createdAtMillis = createdAtMillis;
+        this.names = names;
+        this.dictionary = dictionary;
+        this.size = size;
+        this.fullReadAtMillis = fullReadAtMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * When PRODUCTS was last read in full for this snapshot; every change committed before then is included. Later
+     * inserts and this node's own writes may be merged in too, but updates and deletes made through other nodes are
+     * only seen by the next full read, so staleness is measured from here.
+     */
+    public long getFullReadAtMillis() {
+        return fullReadAtMillis;
+    }
+
+    public long maxId() {
+        return size == 0 ? 0 : ids[size - 1];
+    }
+
+    /** Row index of {@code id}, or a negative number if absent. */
+    public int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    public Product product(int index) {
+        long created = createdAtMillis[index];
+        return new Product(ids[index], dictionary.get(names[index]), prices[index],
+                created == NO_TIMESTAMP ? null : Instant.ofEpochMilli(created));
+    }
+
+    /** Up to {@code limit} products with an id above {@code afterId}, in id order. */
+    public List<Product> page(long afterId, int limit) {
+        int from = indexOf(afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = Math.min(size, from + limit);
+        List<Product> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(product(i));
+        }
+        return page;
+    }
+
+    /** Heap used by the columns and the part of the name dictionary this snapshot references. */
+    public long estimatedBytes() {
+        long columnBytes = (long) ids.length * 8 + (long) prices.length * 8 + (long) createdAtMillis.length * 8
+                + (long) names.length * 4;
+        return columnBytes + dictionary.usedBytes();
+    }
+
+    /**
+     * Rough heap cost of the same rows as {@code List<Product>}: compressed-oops object headers and fields for
+     * each Product, its String and backing byte[], its Instant, and one list slot.
+     */
+    public long estimatedObjectModelBytes() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int nameLength = dictionary.length(names[i]);
+            total += 40 + 24 + align(16 + nameLength) + (createdAtMillis[i] == NO_TIMESTAMP ? 0 : 24) + 4;
+        }
+        return total;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * New snapshot with {@code upserts} (keyed by id, iterated in id order) applied and {@code deletedIds}
+     * removed. Unchanged runs of rows between the changed ids are copied column by column with
+     * {@link System#arraycopy}. The full-read time is carried over, since a merge only covers the rows it was given.
+     */
+    CatalogSnapshot merge(Map<Long, Product> upserts, Set<Long> deletedIds, NameDictionary dictionary) {
+        TreeSet<Long> changed = new TreeSet<>(upserts.keySet());
+        changed.addAll(deletedIds);
+        int newSize = size;
+        for (long id : changed) {
+            boolean present = indexOf(id) >= 0;
+            boolean kept = upserts.containsKey(id) && !deletedIds.contains(id);
+            newSize += (kept ? 1 : 0) - (present ? 1 : 0);
+        }
+        // Exact size, so build() does not have to copy the columns again to trim them.
+        Builder builder = new Builder(newSize, dictionary);
+        int cursor = 0;
+        for (long id : changed) {
+            int at = Arrays.binarySearch(ids, cursor, size, id);
+            int runEnd = at >= 0 ? at : -at - 1;
+            builder.addRun(this, cursor, runEnd);
+            cursor = at >= 0 ? at + 1 : runEnd;
+            Product upsert = upserts.get(id);
+            if (upsert != null && !deletedIds.contains(id)) {
+                builder.add(upsert);
+            }
+        }
+        builder.addRun(this, cursor, size);
+        return builder.build(fullReadAtMillis);
+    }
+
+    /** Appends rows in ascending id order. */
+    static final class Builder {
+        private final NameDictionary dictionary;
+        private long[] ids;
+        private double[] prices;
+        private long[] createdAtMillis;
+        private int[] names;
+        private int size;
+
+        Builder(int expectedSize, NameDictionary dictionary) {
+            this.dictionary = dictionary;
+            int capacity = Math.max(0, expectedSize);
+            ids = new long[capacity];
+            prices = new double[capacity];
+            createdAtMillis = new long[capacity];
+            names = new int[capacity];
+        }
+
+        void add(Product product) {
+            Instant created = product.getCreatedAt();
+            int name = dictionary.intern(product.getName() != null ? product.getName() : "");
+            addRaw(product.getId(), product.getPrice(), created == null ? NO_TIMESTAMP : created.toEpochMilli(),
+                    name);
+        }
+
+        void addRun(CatalogSnapshot source, int from, int to) {
+            int count = to - from;
+            if (count <= 0) {
+                return;
+            }
+            ensureCapacity(size + count);
+            System.arraycopy(source.ids, from, ids, size, count);
+            System.arraycopy(source.prices, from, prices, size, count);
+            System.arraycopy(source.createdAtMillis, from, createdAtMillis, size, count);
+            System.arraycopy(source.names, from, names, size, count);
+            size += count;
+        }
+
+        private void addRaw(long id, double price, long created, int name) {
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            prices[size] = price;
+            createdAtMillis[size] = created;
+            names[size] = name;
+            size++;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > ids.length) {
+                int capacity = Math.max(required, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                createdAtMillis = Arrays.copyOf(createdAtMillis, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+        }
+
+        CatalogSnapshot build(long fullReadAtMillis) {
+            if (size != ids.length) {
+                // Trim so estimatedBytes() reports what is actually retained.
+                ids = Arrays.copyOf(ids, size);
+                prices = Arrays.copyOf(prices, size);
+                createdAtMillis = Arrays.copyOf(createdAtMillis, size);
+                names = Arrays.copyOf(names, size);
+            }
+            return new CatalogSnapshot(ids, prices, createdAtMillis, names, dictionary.view(), size, fullReadAtMillis);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.erp.snapshot;
+
+import com.example.erp.dao.ProductChangeListener;
+import com.example.erp.dao.ProductDao;
+import com.example.erp.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link CatalogSnapshot} current from a background thread.
+ * <p>
+ * PRODUCTS has no modification column, so each refresh combines three sources: rows with an id above the
+ * snapshot's highest id (inserts from any node), the ids {@link ProductDao} reported as changed on this node,
+ * and a periodic full reload that also picks up updates and deletes made through other nodes.
+ */
+public final class CatalogSnapshotRefresher implements ProductChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshotRefresher.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final ProductDao productDao;
+    private final long fullRefreshMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+
+    private volatile CatalogSnapshot snapshot;
+    private NameDictionary dictionary;
+    private long lastFullRefresh;
+
+    public CatalogSnapshotRefresher(ProductDao productDao, long refreshMillis, long fullRefreshMillis) {
+        this.productDao = productDao;
+        this.fullRefreshMillis = fullRefreshMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        productDao.addChangeListener(this);
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Latest snapshot, or {@code null} until the first load has finished. */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void productChanged(long id) {
+        changedIds.add(id);
+    }
+
+    private void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            if (snapshot == null || now - lastFullRefresh >= fullRefreshMillis) {
+                fullRefresh(now);
+            } else {
+                incrementalRefresh();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Catalog snapshot refresh failed; keeping the previous snapshot", e);
+        }
+    }
+
+    private void fullRefresh(long readAt) throws Exception {
+        // Changes reported from here on are re-read by the next incremental refresh.
+        changedIds.clear();
+        NameDictionary fresh = new NameDictionary();
+        CatalogSnapshot current = snapshot;
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(current != null ? current.size() : 0, fresh);
+        productDao.streamProducts(builder::add);
+        CatalogSnapshot loaded = builder.build(readAt);
+        dictionary = fresh;
+        snapshot = loaded;
+        lastFullRefresh = readAt;
+        if (loaded.size() > 0) {
+            LOGGER.info("Catalog snapshot loaded: {} products, {} bytes per product (about {} as objects)",
+                    loaded.size(), loaded.estimatedBytes() / loaded.size(),
+                    loaded.estimatedObjectModelBytes() / loaded.size());
+        }
+    }
+
+    private void incrementalRefresh() throws Exception {
+        CatalogSnapshot current = snapshot;
+        TreeMap<Long, Product> upserts = new TreeMap<>();
+        Set<Long> deleted = new HashSet<>();
+
+        long after = current.maxId();
+        List<Product> page;
+        do {
+            page = productDao.listProductsPage(after, PAGE_SIZE);
+            for (Product product : page) {
+                upserts.put(product.getId(), product);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        for (Long id : changedIds) {
+            changedIds.remove(id);
+            Optional<Product> product;
+            try {
+                product = productDao.getProductById(id);
+            } catch (Exception e) {
+                changedIds.add(id);
+                throw e;
+            }
+            if (product.isPresent()) {
+                upserts.put(id, product.get());
+            } else {
+                deleted.add(id);
+            }
+        }
+
+        if (!upserts.isEmpty() || !deleted.isEmpty()) {
+            snapshot = current.merge(upserts, deleted, dictionary);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
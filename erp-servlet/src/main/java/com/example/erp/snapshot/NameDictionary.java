@@ -0,0 +1,106 @@
+package com.example.erp.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only dictionary of product names stored as UTF-8 in one byte array, with an open-addressing hash table
+ * of entry numbers for de-duplication. Only the refresher thread appends; readers use a {@link View}, which
+ * stays valid because appends never touch bytes or offsets that an earlier view covers.
+ */
+final class NameDictionary {
+
+    private byte[] bytes = new byte[1 << 16];
+    // Entry i spans bytes[offsets[i]] .. bytes[offsets[i + 1]].
+    private int[] offsets = new int[1025];
+    private int count;
+    private int[] table = new int[2048];
+
+    static final class View {
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final int count;
+
+        private View(byte[] bytes, int[] offsets, int count) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        String get(int entry) {
+            return new String(bytes, offsets[entry], offsets[entry + 1] - offsets[entry], StandardCharsets.UTF_8);
+        }
+
+        /** UTF-8 length of an entry; the length of a compact Latin-1 String's backing array for ASCII names. */
+        int length(int entry) {
+            return offsets[entry + 1] - offsets[entry];
+        }
+
+        /** Bytes referenced by this view: the UTF-8 text plus one offset per entry. */
+        long usedBytes() {
+            return offsets[count] + 4L * (count + 1);
+        }
+    }
+
+    View view() {
+        return new View(bytes, offsets, count);
+    }
+
+    int intern(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(utf8);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                entry = append(utf8);
+                table[slot] = entry + 1;
+                if (count * 2 > table.length) {
+                    rehash();
+                }
+                return entry;
+            }
+            if (equalsEntry(entry, utf8)) {
+                return entry;
+            }
+        }
+    }
+
+    private int append(byte[] utf8) {
+        int start = offsets[count];
+        if (start + utf8.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + utf8.length));
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        System.arraycopy(utf8, 0, bytes, start, utf8.length);
+        offsets[count + 1] = start + utf8.length;
+        return count++;
+    }
+
+    private boolean equalsEntry(int entry, byte[] utf8) {
+        int start = offsets[entry];
+        int end = offsets[entry + 1];
+        return Arrays.equals(bytes, start, end, utf8, 0, utf8.length);
+    }
+
+    private void rehash() {
+        int[] grown = new int[table.length * 2];
+        int mask = grown.length - 1;
+        for (int entry = 0; entry < count; entry++) {
+            int start = offsets[entry];
+            int slot = hash(Arrays.copyOfRange(bytes, start, offsets[entry + 1])) & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = entry + 1;
+        }
+        table = grown;
+    }
+
+    private static int hash(byte[] utf8) {
+        int h = Arrays.hashCode(utf8);
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.erp.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size, mergeable summary of a stream of prices.
+ * <p>
+ * Count, sum, minimum and maximum are exact. Quantiles and histogram buckets come from logarithmic buckets
+ * whose width grows with the value, so any reported quantile is within {@value #RELATIVE_ACCURACY} (1%)
+ * of a price that was actually added. Memory is the same {@code long[]} whether one price or a billion is added,
+ * and sketches built over disjoint parts of the data {@link #merge merge} into exactly the sketch of the whole.
+ * <p>
+ * Not thread-safe; give each scan its own sketch and merge them at the end.
+ */
+public final class PriceSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Prices below one hundredth of a cent share the zero bucket; above a trillion they share the last one.
+    private static final double MIN_TRACKED = 1e-4;
+    private static final double MAX_TRACKED = 1e12;
+    private static final int MIN_INDEX = logIndex(MIN_TRACKED);
+    private static final int BUCKET_COUNT = logIndex(MAX_TRACKED) - MIN_INDEX + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long zeroCount;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double price) {
+        if (Double.isNaN(price)) {
+            return;
+        }
+        if (price < MIN_TRACKED) {
+            zeroCount++;
+        } else {
+            counts[bucketIndex(price)]++;
+        }
+        count++;
+        sum += price;
+        if (price < min) {
+            min = price;
+        }
+        if (price > max) {
+            max = price;
+        }
+    }
+
+    /** Adds everything recorded in {@code other} to this sketch. */
+    public void merge(PriceSketch other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    /** Smallest price added, or NaN if none. */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** Largest price added, or NaN if none. */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * Estimated price at quantile {@code q} (0 to 1), or NaN if nothing was added.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return min;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return clamp(bucketValue(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Splits {@code [min, max]} into {@code buckets} equal-width ranges and counts the prices in each.
+     * Prices near a range edge may be attributed to the neighbouring range, within the sketch's accuracy.
+     */
+    public List<Bucket> histogram(int buckets) {
+        List<Bucket> result = new ArrayList<>(buckets);
+        if (count == 0) {
+            return result;
+        }
+        double width = (max - min) / buckets;
+        long[] rangeCounts = new long[buckets];
+        rangeCounts[0] += zeroCount;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                rangeCounts[rangeIndex(clamp(bucketValue(i)), width, buckets)] += counts[i];
+            }
+        }
+        for (int i = 0; i < buckets; i++) {
+            double from = min + i * width;
+            double to = i == buckets - 1 ? max : min + (i + 1) * width;
+            result.add(new Bucket(from, to, rangeCounts[i]));
+        }
+        return result;
+    }
+
+    private int rangeIndex(double value, double width, int buckets) {
+        if (width <= 0) {
+            return 0;
+        }
+        return Math.min(buckets - 1, (int) ((value - min) / width));
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int logIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    static int bucketIndex(double value) {
+        return Math.min(BUCKET_COUNT - 1, logIndex(value) - MIN_INDEX);
+    }
+
+    /** The value within {@code relativeAccuracy} of every value in bucket {@code index}. */
+    static double bucketValue(int index) {
+        return 2 * Math.pow(GAMMA, index + MIN_INDEX) / (GAMMA + 1);
+    }
+
+    /** Prices in {@code [from, to)}; the last bucket also includes {@code to}. */
+    public record Bucket(double from, double to, long count) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.erp.stats;
+
+import com.example.erp.dao.ProductDao;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Price statistics over the product table, computed in a single pass without holding any rows.
+ * <p>
+ * Large tables are split by id into up to {@code parallelism} contiguous ranges. The calling thread scans the
+ * first range itself and the others run on this service's threads, each on its own connection and into its own
+ * {@link PriceSketch}; the sketches are merged once every scan is done.
+ */
+public final class ProductStatsService implements AutoCloseable {
+
+    // Below this many ids per range, another connection costs more than it saves.
+    private static final long MIN_IDS_PER_SCAN = 50_000;
+
+    private final ProductDao productDao;
+    private final int parallelism;
+    private final ExecutorService scanners;
+
+    public ProductStatsService(ProductDao productDao, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.productDao = productDao;
+        this.parallelism = parallelism;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scanners = parallelism == 1 ? null : Executors.newFixedThreadPool(parallelism - 1, r -> {
+            Thread thread = new Thread(r, "product-stats-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Summarizes the prices of products created in {@code [createdFrom, createdTo)}; either bound may be
+     * {@code null}.
+     */
+    public PriceSketch priceStats(Instant createdFrom, Instant createdTo) throws SQLException {
+        Optional<ProductDao.IdRange> idRange = productDao.getIdRange();
+        PriceSketch total = new PriceSketch();
+        if (idRange.isEmpty()) {
+            return total;
+        }
+        long minId = idRange.get().minId();
+        long maxId = idRange.get().maxId();
+        long span = maxId - minId + 1;
+        int scans = (int) Math.max(1, Math.min(parallelism, span / MIN_IDS_PER_SCAN));
+        long step = span / scans;
+
+        List<Future<PriceSketch>> others = new ArrayList<>(scans - 1);
+        try {
+            for (int i = 1; i < scans; i++) {
+                long from = minId + i * step;
+                long to = i == scans - 1 ? maxId : from + step - 1;
+                others.add(scanners.submit(() -> scan(from, to, createdFrom, createdTo)));
+            }
+            total.merge(scan(minId, scans == 1 ? maxId : minId + step - 1, createdFrom, createdTo));
+            for (Future<PriceSketch> other : others) {
+                total.merge(other.get());
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for price scans", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Price scan failed", e.getCause());
+        } finally {
+            // Returns the connections of scans that have not finished when another one failed.
+            for (Future<PriceSketch> other : others) {
+                other.cancel(true);
+            }
+        }
+    }
+
+    private PriceSketch scan(long fromId, long toId, Instant createdFrom, Instant createdTo) throws SQLException {
+        PriceSketch sketch = new PriceSketch();
+        productDao.scanPrices(fromId, toId, createdFrom, createdTo, sketch::add);
+        return sketch;
+    }
+
+    @Override
+    public void close() {
+        if (scanners != null) {
+            scanners.shutdownNow();
+        }
+    }
+}
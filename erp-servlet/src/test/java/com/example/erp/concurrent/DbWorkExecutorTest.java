@@ -0,0 +1,50 @@
+package com.example.erp.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DbWorkExecutorTest {
+
+    @Test
+    void releasedPermitLetsTheNextTaskRunWhileTheFirstIsStillWaiting() throws InterruptedException {
+        try (DbWorkExecutor executor = new DbWorkExecutor(1, 5000)) {
+            CountDownLatch firstWaiting = new CountDownLatch(1);
+            CountDownLatch secondRan = new CountDownLatch(1);
+            CountDownLatch firstDone = new CountDownLatch(1);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            executor.execute(deadline, () -> {
+                DbWorkExecutor.releasePermit();
+                firstWaiting.countDown();
+                try {
+                    secondRan.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // A second release must not hand out an extra permit
+                DbWorkExecutor.releasePermit();
+                firstDone.countDown();
+            }, () -> { });
+            assertTrue(firstWaiting.await(5, TimeUnit.SECONDS));
+
+            executor.execute(deadline, secondRan::countDown, () -> { });
+
+            assertTrue(secondRan.await(5, TimeUnit.SECONDS));
+            assertTrue(firstDone.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(0, executor.getActiveTasks());
+        }
+    }
+
+    @Test
+    void releaseOutsideATaskDoesNothing() {
+        try (DbWorkExecutor executor = new DbWorkExecutor(1, 5000)) {
+            DbWorkExecutor.releasePermit();
+            assertEquals(0, executor.getActiveTasks());
+        }
+    }
+}
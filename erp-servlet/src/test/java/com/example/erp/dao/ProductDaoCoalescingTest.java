@@ -0,0 +1,167 @@
+package com.example.erp.dao;
+
+import com.example.erp.metrics.MetricsRegistry;
+import com.example.erp.model.Product;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the plain SQL paths of {@link ProductDao} against H2, with updates going through write coalescing since H2
+ * has no PL/SQL.
+ */
+class ProductDaoCoalescingTest {
+
+    private GatedDataSource dataSource;
+    private ProductDao dao;
+    private final ExecutorService readers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:coalescing;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        dataSource = new GatedDataSource(config);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS PRODUCTS");
+            stmt.execute("CREATE TABLE PRODUCTS (ID NUMBER PRIMARY KEY, NAME VARCHAR2(200) NOT NULL,"
+                    + " PRICE NUMBER(12,2) NOT NULL, CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP)");
+            stmt.execute("INSERT INTO PRODUCTS (ID, NAME, PRICE) VALUES (1, 'old', 10)");
+        }
+        dao = new ProductDao(dataSource, null, new MetricsRegistry(), 30_000);
+        dao.enableWriteCoalescing(5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readers.shutdownNow();
+        dao.close();
+        dataSource.close();
+    }
+
+    @Test
+    void pageReadAfterWriteDoesNotJoinQueryStartedBeforeIt() throws Exception {
+        Gate gate = dataSource.arm();
+        Future<List<Product>> before = readers.submit(() -> dao.listProductsPage(0, 10));
+        assertTrue(gate.queried.await(5, TimeUnit.SECONDS));
+
+        assertTrue(dao.updateProduct(1, "new", 20));
+        Future<List<Product>> after = readers.submit(() -> dao.listProductsPage(0, 10));
+
+        // Joining the held query would block until the gate opens
+        assertEquals("new", after.get(5, TimeUnit.SECONDS).get(0).getName());
+        gate.release.countDown();
+        assertEquals("old", before.get(5, TimeUnit.SECONDS).get(0).getName());
+    }
+
+    @Test
+    void listReadAfterWriteDoesNotJoinQueryStartedBeforeIt() throws Exception {
+        Gate gate = dataSource.arm();
+        Future<List<Product>> before = readers.submit(() -> dao.listProducts());
+        assertTrue(gate.queried.await(5, TimeUnit.SECONDS));
+
+        assertTrue(dao.updateProduct(1, "new", 20));
+        Future<List<Product>> after = readers.submit(() -> dao.listProducts());
+
+        assertEquals("new", after.get(5, TimeUnit.SECONDS).get(0).getName());
+        gate.release.countDown();
+        assertEquals("old", before.get(5, TimeUnit.SECONDS).get(0).getName());
+    }
+
+    @Test
+    void concurrentReadsWithNoWriteBetweenShareOneQuery() throws Exception {
+        Gate gate = dataSource.arm();
+        Future<List<Product>> first = readers.submit(() -> dao.listProductsPage(0, 10));
+        assertTrue(gate.queried.await(5, TimeUnit.SECONDS));
+        Future<List<Product>> second = readers.submit(() -> dao.listProductsPage(0, 10));
+
+        Thread.sleep(100);
+        gate.release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, dataSource.selects.get());
+    }
+
+    private static final class Gate {
+        final CountDownLatch queried = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+    }
+
+    /**
+     * Holds the next SELECT after it has read its rows, until the test opens the gate.
+     */
+    private static final class GatedDataSource extends HikariDataSource {
+        private final AtomicReference<Gate> armed = new AtomicReference<>();
+        private final AtomicInteger selects = new AtomicInteger();
+
+        GatedDataSource(HikariConfig config) {
+            super(config);
+        }
+
+        Gate arm() {
+            Gate gate = new Gate();
+            armed.set(gate);
+            selects.set(0);
+            return gate;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection conn = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                    (self, method, args) -> {
+                        Object result = invoke(conn, method, args);
+                        if ("prepareStatement".equals(method.getName()) && ((String) args[0]).startsWith("SELECT")) {
+                            return gated((PreparedStatement) result);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement gated(PreparedStatement ps) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class}, (self, method, args) -> {
+                        Object result = invoke(ps, method, args);
+                        if ("executeQuery".equals(method.getName())) {
+                            selects.incrementAndGet();
+                            Gate gate = armed.getAndSet(null);
+                            if (gate != null) {
+                                gate.queried.countDown();
+                                gate.release.await();
+                            }
+                        }
+                        return result;
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.erp.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GzipResponseWrapperTest {
+
+    private static final int MIN_BYTES = 64;
+
+    private final FakeResponse response = new FakeResponse();
+    private final GzipResponseWrapper wrapper =
+            new GzipResponseWrapper(response.proxy(), new DeflaterPool(6, 2), MIN_BYTES);
+
+    @Test
+    void largeBodyIsGzipped() throws IOException {
+        response.headers.put("ETag", "\"v1\"");
+        byte[] body = body(1000);
+        wrapper.getOutputStream().write(body);
+        wrapper.finish();
+
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertEquals("W/\"v1\"", response.headers.get("ETag"));
+        assertArrayEquals(body, gunzip(response.body.toByteArray()));
+    }
+
+    @Test
+    void resetBufferAfterGzipStartedSendsReplacementAsIs() throws IOException {
+        response.headers.put("ETag", "\"v1\"");
+        wrapper.getOutputStream().write(body(1000));
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+
+        wrapper.resetBuffer();
+        wrapper.setStatus(500);
+        wrapper.getOutputStream().write("failed".getBytes(StandardCharsets.UTF_8));
+        wrapper.finish();
+
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals("\"v1\"", response.headers.get("ETag"));
+        assertEquals("6", response.headers.get("Content-Length"));
+        assertEquals("failed", response.body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void resetBufferAfterGzipStartedGzipsLargeReplacementFromScratch() throws IOException {
+        wrapper.getOutputStream().write(body(1000));
+
+        wrapper.resetBuffer();
+        byte[] replacement = body(500);
+        wrapper.getOutputStream().write(replacement);
+        wrapper.finish();
+
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertArrayEquals(replacement, gunzip(response.body.toByteArray()));
+    }
+
+    @Test
+    void resetAfterGzipStartedThroughWriterDropsBufferedCharacters() throws IOException {
+        PrintWriter writer = wrapper.getWriter();
+        writer.print("x".repeat(1000));
+        writer.print("still in the writer");
+
+        wrapper.reset();
+        String replacement = "y".repeat(300);
+        writer.print(replacement);
+        wrapper.finish();
+
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertEquals(replacement, new String(gunzip(response.body.toByteArray()), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        return body;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * An uncommitted container response: the body stays in a buffer that a reset clears, and a header set to null
+     * is removed, as Jetty does.
+     */
+    private static final class FakeResponse {
+        final Map<String, String> headers = new HashMap<>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int status = 200;
+
+        private final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class}, (self, method, args) -> {
+                        switch (method.getName()) {
+                            case "getOutputStream":
+                                return out;
+                            case "getCharacterEncoding":
+                                return StandardCharsets.UTF_8.name();
+                            case "getStatus":
+                                return status;
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "setHeader":
+                                if (args[1] == null) {
+                                    headers.remove((String) args[0]);
+                                } else {
+                                    headers.put((String) args[0], (String) args[1]);
+                                }
+                                return null;
+                            case "getHeader":
+                                return headers.get((String) args[0]);
+                            case "containsHeader":
+                                return headers.containsKey((String) args[0]);
+                            case "setContentLengthLong":
+                                headers.put("Content-Length", Long.toString((Long) args[0]));
+                                return null;
+                            case "resetBuffer":
+                                body.reset();
+                                return null;
+                            case "reset":
+                                body.reset();
+                                headers.clear();
+                                status = 200;
+                                return null;
+                            case "isCommitted":
+                                return false;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}